@@ -0,0 +1,181 @@
+package org.diy4j.jbond;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.diy4j.jbond.annotation.BindTag;
+import org.diy4j.jbond.annotation.Pattern;
+import org.diy4j.jbond.annotation.PatternSet;
+import org.diy4j.jbond.annotation.RangePattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * benchmarks of unmarshalling synthetic logs.<br>
+ * One line in <code>errorInterval</code> lines starts an error entry followed by a stack
+ * trace line, and the others are noise. Block logs consist of ranges of
+ * {@link RangePattern}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UnmarshalBenchmark {
+
+  @Param({ "100000" })
+  public int lineCount;
+
+  @Param({ "20" })
+  public int errorInterval;
+
+  private List<String> errorLines;
+  private File errorFile;
+  private File blockFile;
+  private final List<String> singleEntry = Arrays.asList(
+      "12:00:00 ERROR txn=1 connection reset", "    at org.example.Client.send(Client.java:10)");
+
+  private Unmarshaller<ErrorEntry> errorUnmarshaller;
+  private Unmarshaller<Block> blockUnmarshaller;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.errorLines = new ArrayList<>(this.lineCount);
+    for (int i = 0; this.errorLines.size() < this.lineCount; i++) {
+      final String time = String.format("12:%02d:%02d.%03d", i / 60000 % 60, i / 1000 % 60,
+          i % 1000);
+      if (i % this.errorInterval == 0) {
+        this.errorLines.add(time + " ERROR txn=" + i + " connection reset by peer");
+        this.errorLines.add("    at org.example.Client.send(Client.java:" + i % 500 + ")");
+      } else {
+        this.errorLines.add(time + " INFO request " + i + " served in " + i % 97 + " ms");
+      }
+    }
+    this.errorFile = writeTemp(this.errorLines);
+
+    final List<String> blockLines = new ArrayList<>(this.lineCount);
+    for (int i = 0; blockLines.size() < this.lineCount; i++) {
+      blockLines.add("BEGIN " + i);
+      blockLines.add("item=item" + i % 13);
+      blockLines.add("noise " + i);
+      blockLines.add("n=" + i % 101);
+      blockLines.add(i % 10 == 0 ? "ABORT" : "tag=t" + i % 7);
+      blockLines.add("END");
+    }
+    this.blockFile = writeTemp(blockLines);
+
+    this.errorUnmarshaller = Unmarshallers.getTextUnmarshaller(ErrorEntry.class);
+    this.blockUnmarshaller = Unmarshallers.getTextUnmarshaller(Block.class);
+  }
+
+  private static File writeTemp(List<String> lines) throws IOException {
+    final File file = File.createTempFile("jbond-bench", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    return file;
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.errorFile.delete();
+    this.blockFile.delete();
+  }
+
+  /** binding of a single entry, dominated by matching and conversion of captured values. */
+  @Benchmark
+  public List<ErrorEntry> bindSingleEntry() {
+    return this.errorUnmarshaller.unmarshal(this.singleEntry);
+  }
+
+  @Benchmark
+  public List<ErrorEntry> unmarshalList() {
+    return this.errorUnmarshaller.unmarshal(this.errorLines);
+  }
+
+  @Benchmark
+  public List<ErrorEntry> unmarshalFile() {
+    return this.errorUnmarshaller.unmarshal(this.errorFile.getPath(), "UTF-8");
+  }
+
+  @Benchmark
+  public void unmarshalFileToConsumer(Blackhole bh) {
+    this.errorUnmarshaller.unmarshal(this.errorFile.getPath(), "UTF-8", bh::consume);
+  }
+
+  @Benchmark
+  public void unmarshalFileReusing(Blackhole bh) {
+    this.errorUnmarshaller.unmarshalReusing(this.errorFile.getPath(), "UTF-8", bh::consume);
+  }
+
+  @Benchmark
+  public List<ErrorEntry> unmarshalFileParallel() {
+    return this.errorUnmarshaller.unmarshalParallel(this.errorFile.getPath(), "UTF-8");
+  }
+
+  @Benchmark
+  public List<Block> unmarshalRangeFile() {
+    return this.blockUnmarshaller.unmarshal(this.blockFile.getPath(), "UTF-8");
+  }
+
+  @PatternSet({
+    @Pattern(index = 0, regex = "(?<time>\\S+) ERROR txn=(?<txn>\\d+) (?<msg>.*)"),
+    @Pattern(index = 1, regex = "\\s+at (?<where>.*)")
+  })
+  public static class ErrorEntry {
+
+    @BindTag("time")
+    private String time;
+
+    @BindTag("txn")
+    private long txn;
+
+    @BindTag("msg")
+    private String message;
+
+    @BindTag("where")
+    private String where;
+
+    @BindTag("#")
+    private long lineNumber;
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)",
+      optional = { "item=(?<item>\\w+)", "n=(?<n>\\d+)", "tag=(?<tag>\\w+)" },
+      excluded = "ABORT",
+      end = "END")
+  public static class Block {
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("item")
+    private List<String> items;
+
+    @BindTag("n")
+    private int[] numbers;
+
+    @BindTag("tag")
+    private String tag;
+
+    @BindTag("#")
+    private int lineNumber;
+  }
+}
@@ -0,0 +1,128 @@
+package org.diy4j.jbond.config;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * benchmarks of matching a line with pattern configs.<br>
+ * <code>hit</code> lines match the regexes, <code>near</code> lines contain the required
+ * literals but do not match, and <code>miss</code> lines are rejected by the literal filter.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PatternBenchmark {
+
+  private static final List<String> TAGS = Arrays.asList("time", "txn", "msg", "id", "item");
+  private static final ToIntFunction<String> SLOT_RESOLVER = TAGS::indexOf;
+
+  private static final String HEAD_REGEX = "(?<time>\\S+) ERROR txn=(?<txn>\\d+) (?<msg>.*)";
+  private static final String NEXT_REGEX = "\\s+at (?<msg>.*)";
+
+  @Param({ "hit", "near", "miss" })
+  public String kind;
+
+  private String[] lines;
+  private LiteralFilter filter;
+  private LineWindow singleWindow;
+  private LineWindow pairWindow;
+  private PatternConfig config;
+  private ExtractPattern extractor;
+  private RangeExtractPattern rangeExtractor;
+  private String[] blockLines;
+  private long[] blockMasks;
+  private final Captures captures = new Captures();
+  private int pairIndex = 0;
+  private int blockIndex = 0;
+
+  @Setup
+  public void setUp() {
+    switch (this.kind) {
+      case "hit":
+        this.lines = new String[] { "12:00:01 ERROR txn=42 connection reset",
+            "    at org.example.Client.send(Client.java:10)" };
+        this.blockLines = new String[] { "BEGIN 7", "item=apple", "n=3", "END" };
+        break;
+      case "near":
+        this.lines = new String[] { "12:00:01 ERROR txn=none connection reset",
+            "at org.example.Client.send(Client.java:10)" };
+        this.blockLines = new String[] { "BEGIN x", "item=", "n=-", "ENDS" };
+        break;
+      default:
+        this.lines = new String[] { "12:00:01 INFO request served in 12 ms",
+            "12:00:02 DEBUG cache size 1024" };
+        this.blockLines = new String[] { "begin", "info", "debug", "finish" };
+        break;
+    }
+
+    final ExtractPattern pattern = new ExtractPattern(
+        new PatternConfig(0, HEAD_REGEX, "time", "txn", "msg"),
+        new PatternConfig(1, NEXT_REGEX, "msg"));
+    final RangeExtractPattern range = new RangeExtractPattern("BEGIN (?<id>\\d+)", null,
+        new String[] { "item=(?<item>\\w+)", "n=(?<n>\\d+)" }, new String[] { "ABORT" }, "END");
+    this.filter = LiteralFilter.create(Collections.singletonList(pattern),
+        Collections.singletonList(range));
+
+    final RegexTable table = new RegexTable(this.filter);
+    this.config = new PatternConfig(0, HEAD_REGEX, "time", "txn", "msg").link(SLOT_RESOLVER,
+        table);
+    this.extractor = pattern.link(SLOT_RESOLVER, table);
+    this.singleWindow = new LineWindow(table, 1);
+    this.pairWindow = new LineWindow(table, 2);
+    this.pairWindow.add(this.lines[1], this.filter.scan(this.lines[1]));
+
+    this.rangeExtractor = range.link(SLOT_RESOLVER, this.filter).createClone();
+    this.blockMasks = new long[this.blockLines.length];
+    for (int i = 0; i < this.blockLines.length; i++) {
+      this.blockMasks[i] = this.filter.scan(this.blockLines[i]);
+    }
+  }
+
+  @Benchmark
+  public long literalFilterScan() {
+    return this.filter.scan(this.lines[0]);
+  }
+
+  @Benchmark
+  public boolean patternConfigExtract() {
+    final String line = this.lines[0];
+    this.singleWindow.add(line, this.filter.scan(line));
+    this.captures.clear();
+    return this.config.extract(this.singleWindow, this.captures);
+  }
+
+  @Benchmark
+  public boolean extractPatternToTagValPair() {
+    final String line = this.lines[this.pairIndex];
+    this.pairIndex ^= 1;
+    this.pairWindow.add(line, this.filter.scan(line));
+    this.captures.clear();
+    return this.extractor.toTagValPair(this.pairWindow, this.captures);
+  }
+
+  @Benchmark
+  public Object rangeImportAndGetTagValPair() {
+    final int i = this.blockIndex;
+    this.blockIndex = (i + 1) % this.blockLines.length;
+    return this.rangeExtractor.importAndGetTagValPairIfTarget(this.blockLines[i],
+        this.blockMasks[i]);
+  }
+}
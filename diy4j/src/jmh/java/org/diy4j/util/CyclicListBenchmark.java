@@ -0,0 +1,62 @@
+package org.diy4j.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * benchmarks of the full cyclic list, which is used as window of lines.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CyclicListBenchmark {
+
+  @Param({ "2", "16" })
+  public int capacity;
+
+  private CyclicList<String> list;
+  private final String element = "line";
+
+  @Setup
+  public void setUp() {
+    this.list = new CyclicList<>(this.capacity);
+    for (int i = 0; i < this.capacity; i++) {
+      this.list.add(this.element);
+    }
+  }
+
+  @Benchmark
+  public boolean add() {
+    return this.list.add(this.element);
+  }
+
+  @Benchmark
+  public void get(Blackhole bh) {
+    for (int i = 0; i < this.capacity; i++) {
+      bh.consume(this.list.get(i));
+    }
+  }
+
+  @Benchmark
+  public void addAndGet(Blackhole bh) {
+    this.list.add(this.element);
+    for (int i = 0; i < this.capacity; i++) {
+      bh.consume(this.list.get(i));
+    }
+  }
+}
@@ -0,0 +1,197 @@
+package org.diy4j.jbond;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.zip.CRC32;
+
+import org.diy4j.jbond.config.Captures;
+import org.diy4j.jbond.config.RangeExtractPattern.Progress;
+
+/**
+ * snapshot of an unmarshalling run of a file, to resume the run after restart.<br>
+ * The snapshot is taken at the head of a line, and holds the byte offset, the line number, the
+ * lines in the window of pattern sets and the state of each range pattern.
+ * The file is identified by the checksum of the bytes preceding the offset.
+ * Instance is immutable.
+ */
+final class Checkpoint {
+
+  private static final int MAGIC = 0x4a42434b;
+  private static final int VERSION = 2;
+  /** number of bytes before offset to identify file. */
+  private static final int FINGERPRINT_SIZE = 4096;
+
+  final String className;
+  final long offset;
+  final long fingerprint;
+  final long lineNumber;
+  /** lines in the window, from the oldest. may contain null. */
+  final String[] windowLines;
+  /** state of each range pattern. empty if absent, and an element is null if no range is open. */
+  final Progress[] ranges;
+
+  Checkpoint(String className, long offset, long fingerprint, long lineNumber,
+      String[] windowLines, Progress[] ranges) {
+    this.className = Objects.requireNonNull(className);
+    this.offset = offset;
+    this.fingerprint = fingerprint;
+    this.lineNumber = lineNumber;
+    this.windowLines = Objects.requireNonNull(windowLines);
+    this.ranges = ranges != null ? ranges : new Progress[0];
+  }
+
+  /**
+   * checksum of the bytes preceding offset.
+   * @param channel file
+   * @param offset  offset
+   * @return checksum
+   * @throws IOException I/O error
+   */
+  static long fingerprint(FileChannel channel, long offset) throws IOException {
+    final long begin = Math.max(0, offset - FINGERPRINT_SIZE);
+    final ByteBuffer buf = ByteBuffer.allocate((int) (offset - begin));
+    while (buf.hasRemaining()) {
+      if (channel.read(buf, begin + buf.position()) < 0) {
+        break;
+      }
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(buf.array(), 0, buf.position());
+    return crc.getValue();
+  }
+
+  /**
+   * read snapshot.
+   * @param path file of snapshot
+   * @return snapshot, or null if the file is absent
+   * @throws IOException I/O error or broken file
+   */
+  static Checkpoint read(Path path) throws IOException {
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+        Files.newInputStream(path)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("not a checkpoint. path=" + path);
+      }
+      final String className = readString(in);
+      final long offset = in.readLong();
+      final long fingerprint = in.readLong();
+      final long lineNumber = in.readLong();
+      final String[] windowLines = new String[in.readInt()];
+      for (int i = 0; i < windowLines.length; i++) {
+        windowLines[i] = readString(in);
+      }
+      final Progress[] ranges = new Progress[in.readInt()];
+      for (int i = 0; i < ranges.length; i++) {
+        ranges[i] = readProgress(in);
+      }
+      return new Checkpoint(className, offset, fingerprint, lineNumber, windowLines, ranges);
+
+    } catch (final NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * write snapshot. the file is replaced atomically, so that the previous snapshot remains if
+   * the process dies while writing.
+   * @param path file of snapshot
+   * @throws IOException I/O error
+   */
+  void write(Path path) throws IOException {
+    final Path dir = path.toAbsolutePath().getParent();
+    final Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          Files.newOutputStream(tmp)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, this.className);
+        out.writeLong(this.offset);
+        out.writeLong(this.fingerprint);
+        out.writeLong(this.lineNumber);
+        out.writeInt(this.windowLines.length);
+        for (final String line : this.windowLines) {
+          writeString(out, line);
+        }
+        out.writeInt(this.ranges.length);
+        for (final Progress range : this.ranges) {
+          writeProgress(out, range);
+        }
+      }
+      Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(tmp);
+    }
+  }
+
+  /** state of a range pattern, preceded by presence. */
+  private static void writeProgress(DataOutputStream out, Progress range) throws IOException {
+    out.writeBoolean(range != null);
+    if (range == null) {
+      return;
+    }
+    out.writeInt(range.getCount());
+    final Captures captures = range.getCaptures();
+    out.writeInt(captures.size());
+    for (int i = 0; i < captures.size(); i++) {
+      out.writeInt(captures.slot(i));
+      writeString(out, captures.value(i));
+    }
+    out.writeInt(range.getMatchedRequired().size());
+    for (final String e : range.getMatchedRequired()) {
+      writeString(out, e);
+    }
+  }
+
+  private static Progress readProgress(DataInputStream in) throws IOException {
+    if (!in.readBoolean()) {
+      return null;
+    }
+    final int count = in.readInt();
+    final Captures captures = new Captures();
+    final int captureCount = in.readInt();
+    for (int i = 0; i < captureCount; i++) {
+      final int slot = in.readInt();
+      captures.add(slot, readString(in));
+    }
+    final String[] matched = new String[in.readInt()];
+    for (int i = 0; i < matched.length; i++) {
+      matched[i] = readString(in);
+    }
+    return new Progress(count, captures, Arrays.asList(matched));
+  }
+
+  /** string of any length. -1 for null. */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    final int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    final byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
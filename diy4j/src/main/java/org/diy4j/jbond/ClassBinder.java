@@ -0,0 +1,31 @@
+package org.diy4j.jbond;
+
+/**
+ * creates instance of bound class, and accesses its bound fields by slot index.
+ * slot index is given by {@link org.diy4j.jbond.config.BindConfig#slotOf(String)}.
+ */
+interface ClassBinder<T> {
+
+  T newInstance();
+
+  Object get(T target, int slot);
+
+  void set(T target, int slot, Object value);
+
+  /**
+   * set integral value without boxing.
+   * @param target instance
+   * @param slot   slot of <code>long</code>, <code>int</code>, <code>short</code> or
+   *               <code>byte</code> field. the value must be in the range of the field type.
+   * @param value  value
+   */
+  void setLong(T target, int slot, long value);
+
+  /**
+   * set floating-point value without boxing.
+   * @param target instance
+   * @param slot   slot of <code>double</code> or <code>float</code> field
+   * @param value  value
+   */
+  void setDouble(T target, int slot, double value);
+}
@@ -0,0 +1,467 @@
+package org.diy4j.jbond;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.diy4j.jbond.config.Captures;
+import org.diy4j.jbond.config.SlotBinding;
+import org.diy4j.util.NumberParser;
+
+/**
+ * bound values in columns of primitive arrays, one column per tag and one row per bound object.
+ * <br>
+ * The column type follows the field type: <code>long</code> for long, <code>int</code> for int,
+ * short, byte and boolean (1 or 0), <code>double</code> for double and float, and
+ * dictionary-encoded <code>String</code> for String and char. Wrapper types are stored as their
+ * primitive type. A value which is not bound, e.g. by an empty number, is null in the column.
+ * Collection and array fields are not supported.
+ */
+public final class ColumnarBatch {
+
+  private static final int INITIAL_CAPACITY = 256;
+
+  private final int size;
+  private final Map<String, Column> columnMap;
+
+  private ColumnarBatch(int size, Map<String, Column> columnMap) {
+    this.size = size;
+    this.columnMap = Collections.unmodifiableMap(columnMap);
+  }
+
+  /**
+   * get number of rows.
+   * @return number of bound objects
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * get tags of columns.
+   * @return sorted tags
+   */
+  public Set<String> getTags() {
+    return this.columnMap.keySet();
+  }
+
+  /**
+   * get column of tag.
+   * @param tag tag
+   * @return column
+   * @throws IllegalArgumentException if the tag is not bound
+   */
+  public Column getColumn(String tag) {
+    final Column column = this.columnMap.get(tag);
+    if (column == null) {
+      throw new IllegalArgumentException("Tag[" + tag + "] is not bound.");
+    }
+    return column;
+  }
+
+  public LongColumn getLongColumn(String tag) {
+    return getColumn(tag, LongColumn.class);
+  }
+
+  public IntColumn getIntColumn(String tag) {
+    return getColumn(tag, IntColumn.class);
+  }
+
+  public DoubleColumn getDoubleColumn(String tag) {
+    return getColumn(tag, DoubleColumn.class);
+  }
+
+  public StringColumn getStringColumn(String tag) {
+    return getColumn(tag, StringColumn.class);
+  }
+
+  private <C extends Column> C getColumn(String tag, Class<C> type) {
+    final Column column = getColumn(tag);
+    if (!type.isInstance(column)) {
+      throw new IllegalArgumentException("Tag[" + tag + "] is " + column.getClass().getSimpleName()
+          + ".");
+    }
+    return type.cast(column);
+  }
+
+  @Override
+  public String toString() {
+    return "ColumnarBatch [size=" + this.size + ", columns=" + this.columnMap + "]";
+  }
+
+  /**
+   * column of a tag. a row is null if no value was bound to it.
+   */
+  public abstract static class Column {
+
+    /** rows bound to a value. */
+    private final BitSet presentSet = new BitSet();
+    int size = 0;
+
+    Column() {
+    }
+
+    public boolean isNull(int row) {
+      checkRow(row);
+      return !this.presentSet.get(row);
+    }
+
+    /** parse region of text and store it to the row. */
+    abstract void set(int row, CharSequence source, int begin, int end);
+
+    abstract void setLong(int row, long value);
+
+    abstract void grow(int capacity);
+
+    final void markPresent(int row) {
+      this.presentSet.set(row);
+    }
+
+    final void checkRow(int row) {
+      if (row < 0 || row >= this.size) {
+        throw new IndexOutOfBoundsException("row=" + row + ", size=" + this.size);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  public static final class LongColumn extends Column {
+
+    private long[] valueArr = new long[INITIAL_CAPACITY];
+
+    LongColumn() {
+    }
+
+    public long get(int row) {
+      checkRow(row);
+      return this.valueArr[row];
+    }
+
+    /**
+     * copy values.
+     * @return values of all rows. 0 for null.
+     */
+    public long[] toArray() {
+      return Arrays.copyOf(this.valueArr, this.size);
+    }
+
+    @Override
+    void set(int row, CharSequence source, int begin, int end) {
+      final int b = NumberParser.trimBegin(source, begin, end);
+      final int e = NumberParser.trimEnd(source, b, end);
+      if (b < e) {
+        final long value = NumberParser.parseLong(source, b, e, Long.MIN_VALUE, Long.MAX_VALUE);
+        if (NumberParser.isInvalid(value, Long.MIN_VALUE, source, b, e)) {
+          throw new BindException("Fail binding to field.");
+        }
+        setLong(row, value);
+      }
+    }
+
+    @Override
+    void setLong(int row, long value) {
+      this.valueArr[row] = value;
+      markPresent(row);
+    }
+
+    @Override
+    void grow(int capacity) {
+      this.valueArr = Arrays.copyOf(this.valueArr, capacity);
+    }
+  }
+
+  public static final class IntColumn extends Column {
+
+    private final boolean booleanType;
+    /** true if empty text is bound as false, as <code>Boolean.valueOf</code> does. */
+    private final boolean emptyBound;
+    /** range of field type. */
+    private final long min;
+    private final long max;
+    private int[] valueArr = new int[INITIAL_CAPACITY];
+
+    IntColumn(Class<?> type) {
+      this.booleanType = type == Boolean.class || type == boolean.class;
+      this.emptyBound = type == Boolean.class;
+      if (type == Byte.class || type == byte.class) {
+        this.min = Byte.MIN_VALUE;
+        this.max = Byte.MAX_VALUE;
+      } else if (type == Short.class || type == short.class) {
+        this.min = Short.MIN_VALUE;
+        this.max = Short.MAX_VALUE;
+      } else {
+        this.min = Integer.MIN_VALUE;
+        this.max = Integer.MAX_VALUE;
+      }
+    }
+
+    public int get(int row) {
+      checkRow(row);
+      return this.valueArr[row];
+    }
+
+    /**
+     * copy values.
+     * @return values of all rows. 0 for null.
+     */
+    public int[] toArray() {
+      return Arrays.copyOf(this.valueArr, this.size);
+    }
+
+    @Override
+    void set(int row, CharSequence source, int begin, int end) {
+      if (this.booleanType) {
+        if (begin < end || this.emptyBound) {
+          setLong(row, NumberParser.parseBoolean(source, begin, end) ? 1 : 0);
+        }
+        return;
+      }
+      final int b = NumberParser.trimBegin(source, begin, end);
+      final int e = NumberParser.trimEnd(source, b, end);
+      if (b < e) {
+        final long value = NumberParser.parseLong(source, b, e, this.min, this.max);
+        if (value == NumberParser.INVALID_LONG) {
+          throw new BindException("Fail binding to field.");
+        }
+        setLong(row, value);
+      }
+    }
+
+    @Override
+    void setLong(int row, long value) {
+      this.valueArr[row] = (int) value;
+      markPresent(row);
+    }
+
+    @Override
+    void grow(int capacity) {
+      this.valueArr = Arrays.copyOf(this.valueArr, capacity);
+    }
+  }
+
+  public static final class DoubleColumn extends Column {
+
+    private final boolean floatType;
+    private double[] valueArr = new double[INITIAL_CAPACITY];
+
+    DoubleColumn(Class<?> type) {
+      this.floatType = type == Float.class || type == float.class;
+    }
+
+    public double get(int row) {
+      checkRow(row);
+      return this.valueArr[row];
+    }
+
+    /**
+     * copy values.
+     * @return values of all rows. 0 for null.
+     */
+    public double[] toArray() {
+      return Arrays.copyOf(this.valueArr, this.size);
+    }
+
+    @Override
+    void set(int row, CharSequence source, int begin, int end) {
+      final int b = NumberParser.trimBegin(source, begin, end);
+      final int e = NumberParser.trimEnd(source, b, end);
+      if (b == e) {
+        return;
+      }
+      final double value = this.floatType ? NumberParser.parseFloat(source, b, e)
+          : NumberParser.parseDouble(source, b, e);
+      if (NumberParser.isInvalid(value, source, b, e)) {
+        throw new BindException("Fail binding to field.");
+      }
+      this.valueArr[row] = value;
+      markPresent(row);
+    }
+
+    @Override
+    void setLong(int row, long value) {
+      this.valueArr[row] = value;
+      markPresent(row);
+    }
+
+    @Override
+    void grow(int capacity) {
+      this.valueArr = Arrays.copyOf(this.valueArr, capacity);
+    }
+  }
+
+  /**
+   * column of strings, stored as codes of a dictionary of distinct values.
+   */
+  public static final class StringColumn extends Column {
+
+    private final boolean charType;
+    private int[] codeArr = new int[INITIAL_CAPACITY];
+    private final Map<String, Integer> codeMap = new HashMap<>();
+    private String[] dictionary = new String[16];
+
+    StringColumn(Class<?> type) {
+      this.charType = type == Character.class || type == char.class;
+      Arrays.fill(this.codeArr, -1);
+    }
+
+    public String get(int row) {
+      checkRow(row);
+      final int code = this.codeArr[row];
+      return code < 0 ? null : this.dictionary[code];
+    }
+
+    /**
+     * get code of the value in dictionary.
+     * @param row row
+     * @return index of {@link #getDictionary()}, or -1 for null
+     */
+    public int getCode(int row) {
+      checkRow(row);
+      return this.codeArr[row];
+    }
+
+    /**
+     * copy codes.
+     * @return codes of all rows. -1 for null.
+     */
+    public int[] getCodes() {
+      return Arrays.copyOf(this.codeArr, this.size);
+    }
+
+    /**
+     * copy dictionary.
+     * @return distinct values in the order of appearance
+     */
+    public String[] getDictionary() {
+      return Arrays.copyOf(this.dictionary, this.codeMap.size());
+    }
+
+    @Override
+    void set(int row, CharSequence source, int begin, int end) {
+      if (this.charType) {
+        if (begin == end) {
+          return;
+        }
+        set(row, source.subSequence(begin, begin + 1).toString());
+      } else {
+        set(row, source.subSequence(begin, end).toString());
+      }
+    }
+
+    private void set(int row, String value) {
+      Integer code = this.codeMap.get(value);
+      if (code == null) {
+        code = this.codeMap.size();
+        if (code == this.dictionary.length) {
+          this.dictionary = Arrays.copyOf(this.dictionary, code * 2);
+        }
+        this.dictionary[code] = value;
+        this.codeMap.put(value, code);
+      }
+      this.codeArr[row] = code;
+      markPresent(row);
+    }
+
+    @Override
+    void setLong(int row, long value) {
+      set(row, String.valueOf(value));
+    }
+
+    @Override
+    void grow(int capacity) {
+      final int oldCapacity = this.codeArr.length;
+      this.codeArr = Arrays.copyOf(this.codeArr, capacity);
+      Arrays.fill(this.codeArr, oldCapacity, capacity, -1);
+    }
+  }
+
+  /**
+   * appends rows of bound values.
+   */
+  static final class Builder {
+
+    /** column of each slot. */
+    private final Column[] columnArr;
+    private final int countSlot;
+    private final Map<String, Column> columnMap = new TreeMap<>();
+    private int size = 0;
+    private int capacity = INITIAL_CAPACITY;
+
+    /**
+     * Constructor.
+     * @param bindingArr plan of slots
+     * @param countSlot  slot of counter. negative if absent.
+     * @throws BindConfigException if a field is collection or array
+     */
+    Builder(SlotBinding[] bindingArr, int countSlot) throws BindConfigException {
+      this.columnArr = new Column[bindingArr.length];
+      for (final SlotBinding binding : bindingArr) {
+        if (binding.getKind() != SlotBinding.Kind.SCALAR) {
+          throw new BindConfigException("Field[" + binding.getField().getName()
+              + "] of collection or array cannot be a column.");
+        }
+        final Column column = newColumn(binding.getValueType());
+        this.columnArr[binding.getSlot()] = column;
+        this.columnMap.put(binding.getTag(), column);
+      }
+      this.countSlot = countSlot;
+    }
+
+    private static Column newColumn(Class<?> type) {
+      if (type == long.class || type == Long.class) {
+        return new LongColumn();
+      } else if (type == int.class || type == Integer.class || type == short.class
+          || type == Short.class || type == byte.class || type == Byte.class
+          || type == boolean.class || type == Boolean.class) {
+        return new IntColumn(type);
+      } else if (type == double.class || type == Double.class || type == float.class
+          || type == Float.class) {
+        return new DoubleColumn(type);
+      } else {
+        return new StringColumn(type);
+      }
+    }
+
+    /**
+     * append row of captured values.
+     * @param captures      captured values
+     * @param hitBlockIndex line number of the head of match, bound to counter
+     * @throws BindException if value cannot be converted
+     */
+    void addRow(Captures captures, long hitBlockIndex) throws BindException {
+      if (this.size == this.capacity) {
+        this.capacity *= 2;
+        for (final Column column : this.columnArr) {
+          column.grow(this.capacity);
+        }
+      }
+      final int row = this.size;
+      if (this.countSlot >= 0) {
+        this.columnArr[this.countSlot].setLong(row, hitBlockIndex);
+      }
+      for (int i = 0; i < captures.size(); i++) {
+        final int slot = captures.slot(i);
+        final CharSequence source = captures.source(i);
+        if (slot >= 0 && source != null) {
+          this.columnArr[slot].set(row, source, captures.begin(i), captures.end(i));
+        }
+      }
+      this.size++;
+      for (final Column column : this.columnArr) {
+        column.size = this.size;
+      }
+    }
+
+    ColumnarBatch build() {
+      return new ColumnarBatch(this.size, this.columnMap);
+    }
+  }
+}
@@ -0,0 +1,47 @@
+package org.diy4j.jbond;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * bound objects of composite unmarshaller, grouped by class.
+ */
+public final class CompositeResult {
+
+  private final Map<Class<?>, List<Object>> listMap = new LinkedHashMap<>();
+
+  CompositeResult(Collection<Class<?>> classes) {
+    for (final Class<?> clazz : classes) {
+      this.listMap.put(clazz, new ArrayList<>());
+    }
+  }
+
+  void add(Class<?> clazz, Object value) {
+    this.listMap.get(clazz).add(value);
+  }
+
+  /**
+   * get bound objects of class.
+   * @param clazz class
+   * @return objects in the order of lines. empty if the class is not bound.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> get(Class<T> clazz) {
+    final List<Object> list = this.listMap.get(clazz);
+    return list != null ? (List<T>) Collections.unmodifiableList(list) : Collections.emptyList();
+  }
+
+  public Set<Class<?>> getBindClasses() {
+    return Collections.unmodifiableSet(this.listMap.keySet());
+  }
+
+  @Override
+  public String toString() {
+    return this.listMap.toString();
+  }
+}
@@ -0,0 +1,42 @@
+package org.diy4j.jbond;
+
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * unmarshaller of several annotated classes which reads each line once.<br>
+ * Each line is fed to the pattern sets and range pattern of all classes in turn. The result of
+ * each class is the same as its own {@link Unmarshaller}.
+ */
+public interface CompositeUnmarshaller {
+
+  /**
+   * get classes bound by this unmarshaller.
+   * @return classes in the order objects of the same line are passed
+   */
+  List<Class<?>> getBindClasses();
+
+  CompositeResult unmarshal(List<String> list);
+
+  CompositeResult unmarshal(String filePath, String charsetName);
+
+  /**
+   * pass each bound object to consumer with its class as soon as it is created.
+   * @param list     lines
+   * @param consumer callback
+   */
+  void unmarshal(List<String> list, BiConsumer<Class<?>, Object> consumer);
+
+  void unmarshal(String filePath, String charsetName, BiConsumer<Class<?>, Object> consumer);
+
+  /**
+   * unmarshaller of the same classes whose members limit the characters read by backtracking
+   * regexes for each line. see {@link Unmarshaller#withStepBudget(int)}. this unmarshaller is
+   * not changed.
+   * @param maxSteps upper limit for a line of each class. 0 for no limit.
+   * @return unmarshaller
+   * @throws IllegalArgumentException negative limit
+   */
+  CompositeUnmarshaller withStepBudget(int maxSteps);
+
+}
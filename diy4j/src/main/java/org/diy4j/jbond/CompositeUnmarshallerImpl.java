@@ -0,0 +1,143 @@
+package org.diy4j.jbond;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.diy4j.util.LineSource;
+
+final class CompositeUnmarshallerImpl implements CompositeUnmarshaller {
+
+  private final List<UnmarshallerImpl<?>> memberList;
+  private final List<Class<?>> classList;
+  /** window of line source, which is the widest of members. */
+  private final int maxScanSize;
+
+  CompositeUnmarshallerImpl(List<UnmarshallerImpl<?>> memberList) {
+
+    Objects.requireNonNull(memberList);
+    if (memberList.isEmpty()) {
+      throw new BindConfigException("absent class.");
+    }
+
+    this.memberList = new ArrayList<>(memberList);
+    final List<Class<?>> classes = new ArrayList<>();
+    int max = 0;
+    for (final UnmarshallerImpl<?> member : memberList) {
+      classes.add(member.getBindClass());
+      max = Math.max(max, member.getMaxScanSize());
+    }
+    this.classList = Collections.unmodifiableList(classes);
+    this.maxScanSize = max;
+  }
+
+  @Override
+  public List<Class<?>> getBindClasses() {
+    return this.classList;
+  }
+
+  @Override
+  public CompositeResult unmarshal(List<String> list) {
+
+    final CompositeResult result = new CompositeResult(this.classList);
+    unmarshal(list, result::add);
+    return result;
+  }
+
+  @Override
+  public CompositeResult unmarshal(String filePath, String charsetName) {
+
+    final CompositeResult result = new CompositeResult(this.classList);
+    unmarshal(filePath, charsetName, result::add);
+    return result;
+  }
+
+  @Override
+  public void unmarshal(List<String> list, BiConsumer<Class<?>, Object> consumer) {
+
+    Objects.requireNonNull(consumer);
+    if (list == null) {
+      return;
+    }
+
+    final List<Scan<?>> scanList = newScans(consumer);
+    for (final String line : list) {
+      for (final Scan<?> scan : scanList) {
+        scan.feed(line);
+      }
+    }
+    for (final Scan<?> scan : scanList) {
+      scan.finish();
+    }
+  }
+
+  @Override
+  public void unmarshal(String filePath, String charsetName,
+      BiConsumer<Class<?>, Object> consumer) {
+
+    Objects.requireNonNull(consumer);
+    if (filePath == null) {
+      return;
+    }
+
+    final List<Scan<?>> scanList = newScans(consumer);
+    try (LineSource source = UnmarshallerImpl.openLineSource(filePath, charsetName,
+        this.maxScanSize)) {
+
+      CharSequence line;
+      while ((line = source.readLine()) != null) {
+        for (final Scan<?> scan : scanList) {
+          scan.feed(line);
+        }
+      }
+      for (final Scan<?> scan : scanList) {
+        scan.finish();
+      }
+
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  @Override
+  public CompositeUnmarshaller withStepBudget(int maxSteps) {
+    final List<UnmarshallerImpl<?>> budgetedList = new ArrayList<>(this.memberList.size());
+    for (final UnmarshallerImpl<?> member : this.memberList) {
+      budgetedList.add(member.withStepBudget(maxSteps));
+    }
+    return new CompositeUnmarshallerImpl(budgetedList);
+  }
+
+  private List<Scan<?>> newScans(BiConsumer<Class<?>, Object> consumer) {
+    final List<Scan<?>> scanList = new ArrayList<>(this.memberList.size());
+    for (final UnmarshallerImpl<?> member : this.memberList) {
+      scanList.add(new Scan<>(member, consumer));
+    }
+    return scanList;
+  }
+
+  /** state of a run of a member. */
+  private static final class Scan<T> {
+
+    private final UnmarshallerImpl<T>.ScanState state;
+    private final Consumer<T> sink;
+
+    Scan(UnmarshallerImpl<T> member, BiConsumer<Class<?>, Object> consumer) {
+      this.state = member.new ScanState();
+      final Class<T> clazz = member.getBindClass();
+      this.sink = e -> consumer.accept(clazz, e);
+    }
+
+    void feed(CharSequence line) {
+      this.state.feed(line, this.sink);
+    }
+
+    void finish() {
+      this.state.finish(this.sink);
+    }
+  }
+}
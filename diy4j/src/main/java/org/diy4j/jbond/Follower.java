@@ -0,0 +1,41 @@
+package org.diy4j.jbond;
+
+/**
+ * reader of a growing file, like <code>tail -f</code>.<br>
+ * Each {@link #poll()} reads the whole lines appended since the last poll, and passes the
+ * bound objects to the consumer. The window of pattern sets, the state of
+ * <code>RangePattern</code> and the line number carry on across polls, so the objects are the
+ * same as those of unmarshalling the whole file, except for the pattern sets at the end of the
+ * file which are completed by {@link #close()}.
+ * A line without terminator is not read until it is terminated.
+ * If the file is truncated or replaced, it is read again from the head as a new file.
+ * Instance is threadsafe, but polls are serialized.
+ */
+public interface Follower<T> extends AutoCloseable {
+
+  /**
+   * read lines appended since the last poll.
+   * @return number of lines read. 0 if the file is absent.
+   * @throws BindException I/O error or bind failure
+   * @throws IllegalStateException already closed
+   */
+  int poll();
+
+  /**
+   * offset of the next byte to be read.
+   * @return offset
+   */
+  long getOffset();
+
+  /**
+   * line number of the next line to be read. the first line is 1.
+   * @return line number
+   */
+  long getLineNumber();
+
+  /**
+   * complete the pattern sets at the end of the lines read, and stop following.
+   */
+  @Override
+  void close();
+}
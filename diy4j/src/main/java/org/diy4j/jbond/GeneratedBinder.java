@@ -0,0 +1,69 @@
+package org.diy4j.jbond;
+
+/**
+ * binder generated at build time by {@link org.diy4j.jbond.processor.BinderProcessor}.<br>
+ * The generated class is named <code>{package}.{Outer}_{Inner}_JbondBinder</code> after the
+ * bound class, and accesses its fields directly. It is used instead of
+ * <code>MethodHandleBinder</code> when its slot tags, field names and field types match the
+ * config at runtime.
+ */
+public abstract class GeneratedBinder<T> implements ClassBinder<T> {
+
+  /** suffix of the name of generated class. */
+  public static final String SUFFIX = "_JbondBinder";
+
+  protected GeneratedBinder() {
+  }
+
+  public abstract Class<T> getBindClass();
+
+  /**
+   * get tags in slot order, which were sorted at build time.
+   * @return tags
+   */
+  public abstract String[] getSlotTags();
+
+  /**
+   * get names of fields in slot order, as they were at build time.
+   * @return field names
+   */
+  public abstract String[] getSlotFieldNames();
+
+  /**
+   * get erased types of fields in slot order, as they were at build time.
+   * @return field types
+   */
+  public abstract Class<?>[] getSlotFieldTypes();
+
+  @Override
+  public abstract T newInstance();
+
+  @Override
+  public abstract Object get(T target, int slot);
+
+  @Override
+  public abstract void set(T target, int slot, Object value);
+
+  @Override
+  public abstract void setLong(T target, int slot, long value);
+
+  @Override
+  public abstract void setDouble(T target, int slot, double value);
+
+  /**
+   * get name of generated binder of class.
+   * @param clazz bound class
+   * @return binary name
+   */
+  static String binderName(Class<?> clazz) {
+    final StringBuilder sb = new StringBuilder(clazz.getSimpleName());
+    for (Class<?> c = clazz.getEnclosingClass(); c != null; c = c.getEnclosingClass()) {
+      sb.insert(0, '_').insert(0, c.getSimpleName());
+    }
+    final Package pkg = clazz.getPackage();
+    if (pkg != null && !pkg.getName().isEmpty()) {
+      sb.insert(0, '.').insert(0, pkg.getName());
+    }
+    return sb.append(SUFFIX).toString();
+  }
+}
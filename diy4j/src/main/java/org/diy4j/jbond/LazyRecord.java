@@ -0,0 +1,50 @@
+package org.diy4j.jbond;
+
+import org.diy4j.jbond.config.Captures;
+
+/**
+ * state of a lazy record, read by the view class generated at runtime by <code>LazyView</code>.
+ * <br>
+ * It keeps the captured text, and binds a field to a hidden instance of the bound class only
+ * when its getter is called first. Instance is created by this library only, and is not
+ * threadsafe.
+ * @param <T> bound class
+ */
+public final class LazyRecord<T> {
+
+  private final LazyView<T, ?> view;
+  private final Captures captures;
+  private final long hitBlockIndex;
+  /** instance to which fields are bound. null until a getter is called. */
+  private T target = null;
+  private boolean[] boundArr = null;
+
+  LazyRecord(LazyView<T, ?> view, Captures captures, long hitBlockIndex) {
+    this.view = view;
+    this.captures = captures;
+    this.hitBlockIndex = hitBlockIndex;
+  }
+
+  /**
+   * get value of field, which is bound on the first call.
+   * @param slot slot of field
+   * @return value, boxed if primitive
+   * @throws BindException if the captured text cannot be converted
+   */
+  public Object get(int slot) {
+    if (this.target == null) {
+      this.target = this.view.newTarget();
+      this.boundArr = new boolean[this.view.slotCount()];
+    }
+    if (!this.boundArr[slot]) {
+      this.view.bind(this.target, slot, this.hitBlockIndex, this.captures);
+      this.boundArr[slot] = true;
+    }
+    return this.view.read(this.target, slot);
+  }
+
+  @Override
+  public String toString() {
+    return this.view.toString(this);
+  }
+}
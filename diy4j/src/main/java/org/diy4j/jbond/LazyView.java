@@ -0,0 +1,235 @@
+package org.diy4j.jbond;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.diy4j.jbond.config.Captures;
+import org.diy4j.jbond.config.SlotBinding;
+
+/**
+ * creates lazy records, which implement a view interface over the captured values.<br>
+ * The class of records is generated once per view by <code>ViewClassWriter</code>, so a getter
+ * reads its slot directly, without reflection. A record keeps the captured text, and binds a
+ * field to a hidden instance of the bound class only when its getter is called first. So the
+ * values which are never read are not converted.
+ * @param <T> bound class
+ * @param <V> view interface
+ */
+final class LazyView<T, V> {
+
+  /** suffix of the name of generated view class. */
+  private static final String SUFFIX = "_JbondView";
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class,
+      LazyRecord.class);
+
+  private final UnmarshallerImpl<T> unmarshaller;
+  private final ClassBinder<T> binder;
+  private final Class<V> viewType;
+  private final int slotCount;
+  /** names of getters and their slots, in the order of name. */
+  private final String[] nameArr;
+  private final int[] nameSlotArr;
+  /** whether a getter reads the slot. the values of the other slots are not kept. */
+  private final boolean[] readArr;
+  /** constructor of view class, which takes a record. */
+  private final MethodHandle constructor;
+
+  /**
+   * Constructor.
+   * @param unmarshaller unmarshaller which binds fields
+   * @param binder       binder of bound class
+   * @param bindingArr   plan of slots
+   * @param viewType     public interface whose getters are named after tagged fields
+   * @throws BindConfigException if a method of the interface is not a getter of tagged field,
+   *                             or the view class cannot be defined
+   */
+  LazyView(UnmarshallerImpl<T> unmarshaller, ClassBinder<T> binder, SlotBinding[] bindingArr,
+      Class<V> viewType) throws BindConfigException {
+
+    if (!viewType.isInterface() || !Modifier.isPublic(viewType.getModifiers())) {
+      throw new BindConfigException(viewType.getName() + " is not public interface.");
+    }
+    this.unmarshaller = unmarshaller;
+    this.binder = binder;
+    this.viewType = viewType;
+    this.slotCount = bindingArr.length;
+    this.readArr = new boolean[bindingArr.length];
+
+    final Map<String, SlotBinding> fieldMap = new HashMap<>();
+    for (final SlotBinding binding : bindingArr) {
+      fieldMap.put(binding.getField().getName(), binding);
+    }
+    final Method[] methodArr = viewType.getMethods();
+    Arrays.sort(methodArr, Comparator.comparing(Method::getName));
+    final List<Method> getterList = new ArrayList<>();
+    final List<Integer> getterSlotList = new ArrayList<>();
+    final List<String> nameList = new ArrayList<>();
+    final List<Integer> nameSlotList = new ArrayList<>();
+    final Set<String> signatureSet = new HashSet<>();
+    for (final Method method : methodArr) {
+      if (Modifier.isStatic(method.getModifiers())) {
+        continue;
+      }
+      if (method.isDefault()) {
+        throw new BindConfigException("Default method[" + method.getName()
+            + "] is not supported.");
+      }
+      final SlotBinding binding = fieldMap.get(propertyName(method));
+      if (binding == null || method.getParameterCount() != 0) {
+        throw new BindConfigException("Method[" + method.getName()
+            + "] is not getter of tagged field.");
+      }
+      if (!returnable(method.getReturnType(), binding.getField().getType())) {
+        throw new BindConfigException("Method[" + method.getName() + "] cannot return "
+            + binding.getField().getType().getName() + ".");
+      }
+      // a getter inherited from several interfaces is implemented once
+      if (signatureSet.add(method.getName() + ' ' + method.getReturnType().getName())) {
+        getterList.add(method);
+        getterSlotList.add(binding.getSlot());
+      }
+      if (nameList.isEmpty() || !nameList.get(nameList.size() - 1).equals(method.getName())) {
+        nameList.add(method.getName());
+        nameSlotList.add(binding.getSlot());
+      }
+      this.readArr[binding.getSlot()] = true;
+    }
+    this.nameArr = nameList.toArray(new String[nameList.size()]);
+    this.nameSlotArr = nameSlotList.stream().mapToInt(Integer::intValue).toArray();
+
+    final Method[] getterArr = getterList.toArray(new Method[getterList.size()]);
+    final int[] getterSlotArr = getterSlotList.stream().mapToInt(Integer::intValue).toArray();
+
+    final String className = viewType.getName() + SUFFIX;
+    final byte[] classFile = ViewClassWriter.write(className, viewType, getterArr,
+        getterSlotArr);
+    try {
+      final Class<?> viewClass = new ViewLoader(viewType.getClassLoader()).define(className,
+          classFile);
+      this.constructor = MethodHandles.lookup().findConstructor(viewClass,
+          MethodType.methodType(void.class, LazyRecord.class)).asType(CONSTRUCTOR_TYPE);
+    } catch (NoSuchMethodException | IllegalAccessException | LinkageError
+        | SecurityException e) {
+      throw new BindConfigException(e);
+    }
+  }
+
+  /** name of field read by getter: <code>getName</code>, <code>isName</code> or itself. */
+  private static String propertyName(Method method) {
+    final String name = method.getName();
+    final int prefix;
+    if (name.startsWith("get") && name.length() > 3) {
+      prefix = 3;
+    } else if (name.startsWith("is") && name.length() > 2
+        && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+      prefix = 2;
+    } else {
+      return name;
+    }
+    return Character.toLowerCase(name.charAt(prefix)) + name.substring(prefix + 1);
+  }
+
+  private static boolean returnable(Class<?> returnType, Class<?> fieldType) {
+    if (returnType.isPrimitive()) {
+      return returnType == fieldType;
+    }
+    // primitive value is boxed by record
+    return returnType.isAssignableFrom(MethodType.methodType(fieldType).wrap().returnType());
+  }
+
+  /**
+   * create record of captured values. only the values read by a getter are kept, and their
+   * regions are copied unless the line is a string, because lines of a line source are
+   * recycled.
+   * @param captures      captured values, valid only until this method returns
+   * @param hitBlockIndex line number of the head of match
+   * @return record
+   */
+  V newRecord(Captures captures, long hitBlockIndex) {
+    final Captures pinned = new Captures();
+    for (int i = 0; i < captures.size(); i++) {
+      final int slot = captures.slot(i);
+      if (!this.readArr[slot]) {
+        continue;
+      }
+      final CharSequence source = captures.source(i);
+      if (source == null || source instanceof String) {
+        pinned.add(slot, source, captures.begin(i), captures.end(i));
+      } else {
+        pinned.add(slot, source.subSequence(captures.begin(i), captures.end(i)).toString());
+      }
+    }
+    final LazyRecord<T> record = new LazyRecord<>(this, pinned, hitBlockIndex);
+    try {
+      return this.viewType.cast((Object) this.constructor.invokeExact(record));
+    } catch (final Throwable e) {
+      if (e instanceof Error) {
+        throw (Error) e;
+      }
+      throw new BindException(e);
+    }
+  }
+
+  int slotCount() {
+    return this.slotCount;
+  }
+
+  T newTarget() {
+    return this.binder.newInstance();
+  }
+
+  void bind(T target, int slot, long hitBlockIndex, Captures captures) {
+    this.unmarshaller.bindSlot(target, slot, hitBlockIndex, captures);
+  }
+
+  Object read(T target, int slot) {
+    return this.binder.get(target, slot);
+  }
+
+  /** string of record: simple name of view and the value of each getter. */
+  String toString(LazyRecord<T> record) {
+    final StringBuilder sb = new StringBuilder(this.viewType.getSimpleName()).append(" [");
+    for (int i = 0; i < this.nameArr.length; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(this.nameArr[i]).append('=').append(record.get(this.nameSlotArr[i]));
+    }
+    return sb.append(']').toString();
+  }
+
+  /**
+   * loader of view class. it delegates to the loader of view interface, except for
+   * <code>LazyRecord</code>, which the interface may not see.
+   */
+  private static final class ViewLoader extends ClassLoader {
+
+    ViewLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      if (name.equals(LazyRecord.class.getName())) {
+        return LazyRecord.class;
+      }
+      return super.loadClass(name, resolve);
+    }
+
+    Class<?> define(String name, byte[] classFile) {
+      return defineClass(name, classFile, 0, classFile.length);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package org.diy4j.jbond;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.Objects;
+
+/**
+ * <code>ClassBinder</code> built from method handles resolved once per class.<br>
+ * Handles are adapted to erased types, so that they are invoked without reflective lookup
+ * and access check.
+ */
+final class MethodHandleBinder<T> implements ClassBinder<T> {
+
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class,
+      Object.class);
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class,
+      Object.class);
+  private static final MethodType LONG_SETTER_TYPE = MethodType.methodType(void.class,
+      Object.class, long.class);
+  private static final MethodType DOUBLE_SETTER_TYPE = MethodType.methodType(void.class,
+      Object.class, double.class);
+
+  private final Class<T> clazz;
+  private final MethodHandle constructor;
+  private final MethodHandle[] getterArr;
+  private final MethodHandle[] setterArr;
+  /** setter of integral field taking long. null for other types. */
+  private final MethodHandle[] longSetterArr;
+  /** setter of floating-point field taking double. null for other types. */
+  private final MethodHandle[] doubleSetterArr;
+
+  private MethodHandleBinder(Class<T> clazz, MethodHandle constructor, MethodHandle[] getterArr,
+      MethodHandle[] setterArr, MethodHandle[] longSetterArr, MethodHandle[] doubleSetterArr) {
+    this.clazz = clazz;
+    this.constructor = constructor;
+    this.getterArr = getterArr;
+    this.setterArr = setterArr;
+    this.longSetterArr = longSetterArr;
+    this.doubleSetterArr = doubleSetterArr;
+  }
+
+  /**
+   * create binder.
+   * @param clazz    bound class which has constructor without argument
+   * @param fieldArr fields in slot order
+   * @return binder
+   * @throws BindConfigException if constructor or field is not accessible
+   */
+  static <T> MethodHandleBinder<T> create(Class<T> clazz, Field[] fieldArr)
+      throws BindConfigException {
+
+    Objects.requireNonNull(clazz);
+    Objects.requireNonNull(fieldArr);
+
+    final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    try {
+      final Constructor<T> ctor = clazz.getDeclaredConstructor();
+      ctor.setAccessible(true);
+      final MethodHandle constructor = lookup.unreflectConstructor(ctor)
+          .asType(CONSTRUCTOR_TYPE);
+
+      final MethodHandle[] getterArr = new MethodHandle[fieldArr.length];
+      final MethodHandle[] setterArr = new MethodHandle[fieldArr.length];
+      final MethodHandle[] longSetterArr = new MethodHandle[fieldArr.length];
+      final MethodHandle[] doubleSetterArr = new MethodHandle[fieldArr.length];
+      for (int i = 0; i < fieldArr.length; i++) {
+        final Field f = fieldArr[i];
+        f.setAccessible(true);
+        getterArr[i] = lookup.unreflectGetter(f).asType(GETTER_TYPE);
+        final MethodHandle setter = lookup.unreflectSetter(f);
+        setterArr[i] = setter.asType(SETTER_TYPE);
+        final Class<?> type = f.getType();
+        if (type == long.class || type == int.class || type == short.class
+            || type == byte.class) {
+          // narrowing is safe because the value was parsed as the field type
+          longSetterArr[i] = MethodHandles.explicitCastArguments(setter, LONG_SETTER_TYPE);
+        } else if (type == double.class || type == float.class) {
+          doubleSetterArr[i] = MethodHandles.explicitCastArguments(setter, DOUBLE_SETTER_TYPE);
+        }
+      }
+
+      return new MethodHandleBinder<>(clazz, constructor, getterArr, setterArr, longSetterArr,
+          doubleSetterArr);
+
+    } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+      throw new BindConfigException(e);
+    }
+  }
+
+  @Override
+  public T newInstance() {
+    try {
+      return this.clazz.cast((Object) this.constructor.invokeExact());
+    } catch (final Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public Object get(T target, int slot) {
+    try {
+      return (Object) this.getterArr[slot].invokeExact((Object) target);
+    } catch (final Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void set(T target, int slot, Object value) {
+    try {
+      this.setterArr[slot].invokeExact((Object) target, value);
+    } catch (final Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void setLong(T target, int slot, long value) {
+    final MethodHandle setter = this.longSetterArr[slot];
+    if (setter == null) {
+      throw new BindException("Field of slot " + slot + " is not integral.");
+    }
+    try {
+      setter.invokeExact((Object) target, value);
+    } catch (final Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  @Override
+  public void setDouble(T target, int slot, double value) {
+    final MethodHandle setter = this.doubleSetterArr[slot];
+    if (setter == null) {
+      throw new BindException("Field of slot " + slot + " is not floating-point.");
+    }
+    try {
+      setter.invokeExact((Object) target, value);
+    } catch (final Throwable e) {
+      throw rethrow(e);
+    }
+  }
+
+  private static RuntimeException rethrow(Throwable e) {
+    if (e instanceof Error) {
+      throw (Error) e;
+    }
+    if (e instanceof BindException) {
+      return (BindException) e;
+    }
+    return new BindException(e);
+  }
+}
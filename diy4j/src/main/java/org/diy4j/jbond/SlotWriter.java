@@ -0,0 +1,23 @@
+package org.diy4j.jbond;
+
+/**
+ * writes captured text to the field of a slot.
+ */
+@FunctionalInterface
+interface SlotWriter<T> {
+
+  void write(T target, String value) throws BindException;
+
+  /**
+   * write region of captured text. the text is copied to string unless the writer parses it
+   * from the region.
+   * @param target instance
+   * @param source line which contains the text
+   * @param begin  begin of region
+   * @param end    end of region, exclusive
+   * @throws BindException if the text cannot be converted
+   */
+  default void write(T target, CharSequence source, int begin, int end) throws BindException {
+    write(target, source.subSequence(begin, end).toString());
+  }
+}
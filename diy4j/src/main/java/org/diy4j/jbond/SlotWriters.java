@@ -0,0 +1,279 @@
+package org.diy4j.jbond;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.diy4j.jbond.config.SlotBinding;
+import org.diy4j.jbond.config.SlotBinding.Kind;
+import org.diy4j.jbond.config.ValueConverter;
+import org.diy4j.util.NumberParser;
+
+/**
+ * builds <code>SlotWriter</code> from the conversion plan of a slot.
+ */
+final class SlotWriters {
+
+  private SlotWriters() {
+  }
+
+  static <T> SlotWriter<T> create(SlotBinding binding, ClassBinder<T> binder) {
+
+    final int slot = binding.getSlot();
+    final ValueConverter converter = binding.getConverter();
+
+    switch (binding.getKind()) {
+      case LIST:
+        return (target, value) -> collection(binder, target, slot, true).add(
+            converter.convert(value));
+
+      case SET:
+        return (target, value) -> collection(binder, target, slot, false).add(
+            converter.convert(value));
+
+      case ARRAY:
+        final Class<?> componentType = binding.getValueType();
+        return (target, value) -> {
+          final Object convertedValue = converter.convert(value);
+          if (convertedValue == null && componentType.isPrimitive()) {
+            return;
+          }
+          final Object oldArr = binder.get(target, slot);
+          final int length = oldArr == null ? 0 : Array.getLength(oldArr);
+          final Object newArr = Array.newInstance(componentType, length + 1);
+          if (oldArr != null) {
+            System.arraycopy(oldArr, 0, newArr, 0, length);
+          }
+          Array.set(newArr, length, convertedValue);
+          binder.set(target, slot, newArr);
+        };
+
+      default:
+        final Class<?> valueType = binding.getValueType();
+        final NumberType numberType = NumberType.of(valueType);
+        if (numberType != null) {
+          return new NumberWriter<>(binder, slot, numberType, valueType.isPrimitive());
+        }
+        if (valueType == char.class || valueType == Character.class) {
+          return new RegionWriter<T>() {
+            @Override
+            public void write(T target, CharSequence source, int begin, int end) {
+              if (begin < end) {
+                binder.set(target, slot, Character.valueOf(source.charAt(begin)));
+              }
+            }
+          };
+        }
+        if (valueType == boolean.class || valueType == Boolean.class) {
+          // empty text is bound to Boolean as false, as Boolean.valueOf does
+          final boolean emptyBound = valueType == Boolean.class;
+          return new RegionWriter<T>() {
+            @Override
+            public void write(T target, CharSequence source, int begin, int end) {
+              if (begin < end || emptyBound) {
+                binder.set(target, slot,
+                    Boolean.valueOf(NumberParser.parseBoolean(source, begin, end)));
+              }
+            }
+          };
+        }
+        return (target, value) -> {
+          final Object convertedValue = converter.convert(value);
+          if (convertedValue != null) {
+            binder.set(target, slot, convertedValue);
+          }
+        };
+    }
+  }
+
+  /**
+   * build resetter which sets bound fields to their values in a newly created instance, to
+   * reuse instance. so reused instance is bound to the same values as a new one.<br>
+   * collections of reused instance are cleared and kept if the new instance has one, and
+   * are dropped otherwise.
+   * @param bindingArr plan of slots
+   * @param binder     binder
+   * @param pristine   newly created instance, which is never bound
+   * @return resetter
+   */
+  static <T> Consumer<T> resetter(SlotBinding[] bindingArr, ClassBinder<T> binder, T pristine) {
+
+    final List<Consumer<T>> resetterList = new ArrayList<>(bindingArr.length);
+    for (final SlotBinding binding : bindingArr) {
+      final int slot = binding.getSlot();
+      final Class<?> type = binding.getField().getType();
+      final Object initial = binder.get(pristine, slot);
+      if (binding.getKind() == Kind.LIST || binding.getKind() == Kind.SET) {
+        if (initial == null) {
+          resetterList.add(target -> binder.set(target, slot, null));
+          continue;
+        }
+        final Collection<?> initialMember = (Collection<?>) initial;
+        final boolean list = binding.getKind() == Kind.LIST;
+        resetterList.add(target -> {
+          final Collection<Object> member = collection(binder, target, slot, list);
+          member.clear();
+          member.addAll(initialMember);
+        });
+      } else if (type == double.class || type == float.class) {
+        final double value = ((Number) initial).doubleValue();
+        resetterList.add(target -> binder.setDouble(target, slot, value));
+      } else if (type.isPrimitive() && NumberType.of(type) != null) {
+        final long value = ((Number) initial).longValue();
+        resetterList.add(target -> binder.setLong(target, slot, value));
+      } else if (type.isArray() && initial != null) {
+        // array of bound values is replaced, and not shared with reused instance
+        resetterList.add(target -> binder.set(target, slot, copyOf(initial)));
+      } else {
+        resetterList.add(target -> binder.set(target, slot, initial));
+      }
+    }
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    final Consumer<T>[] resetterArr = resetterList.toArray(new Consumer[resetterList.size()]);
+    return target -> {
+      for (final Consumer<T> resetter : resetterArr) {
+        resetter.accept(target);
+      }
+    };
+  }
+
+  private static Object copyOf(Object array) {
+    final int length = Array.getLength(array);
+    final Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+    System.arraycopy(array, 0, copy, 0, length);
+    return copy;
+  }
+
+  /**
+   * writer which parses captured text from region without creating string.
+   */
+  private abstract static class RegionWriter<T> implements SlotWriter<T> {
+
+    @Override
+    public void write(T target, String value) throws BindException {
+      write(target, value, 0, value.length());
+    }
+
+    @Override
+    public abstract void write(T target, CharSequence source, int begin, int end)
+        throws BindException;
+  }
+
+  /**
+   * writer of number field. primitive field is set without boxing. surrounding whitespace is
+   * ignored, and empty text is not bound.
+   */
+  private static final class NumberWriter<T> extends RegionWriter<T> {
+
+    private final ClassBinder<T> binder;
+    private final int slot;
+    private final NumberType type;
+    private final boolean primitive;
+
+    NumberWriter(ClassBinder<T> binder, int slot, NumberType type, boolean primitive) {
+      this.binder = binder;
+      this.slot = slot;
+      this.type = type;
+      this.primitive = primitive;
+    }
+
+    @Override
+    public void write(T target, CharSequence source, int begin, int end)
+        throws BindException {
+      final int b = NumberParser.trimBegin(source, begin, end);
+      final int e = NumberParser.trimEnd(source, b, end);
+      if (b == e) {
+        return;
+      }
+      if (this.type == NumberType.FLOAT || this.type == NumberType.DOUBLE) {
+        final double value = this.type == NumberType.FLOAT ? NumberParser.parseFloat(source, b, e)
+            : NumberParser.parseDouble(source, b, e);
+        if (NumberParser.isInvalid(value, source, b, e)) {
+          throw new BindException("Fail binding to field.");
+        }
+        if (this.primitive) {
+          this.binder.setDouble(target, this.slot, value);
+        } else {
+          this.binder.set(target, this.slot, this.type == NumberType.FLOAT
+              ? Float.valueOf((float) value) : Double.valueOf(value));
+        }
+      } else {
+        final long value = NumberParser.parseLong(source, b, e, this.type.min, this.type.max);
+        if (NumberParser.isInvalid(value, this.type.min, source, b, e)) {
+          throw new BindException("Fail binding to field.");
+        }
+        if (this.primitive) {
+          this.binder.setLong(target, this.slot, value);
+        } else {
+          this.binder.set(target, this.slot, this.type.box(value));
+        }
+      }
+    }
+  }
+
+  /**
+   * number type of field, primitive or wrapper.
+   */
+  private enum NumberType {
+    BYTE(Byte.MIN_VALUE, Byte.MAX_VALUE),
+    SHORT(Short.MIN_VALUE, Short.MAX_VALUE),
+    INT(Integer.MIN_VALUE, Integer.MAX_VALUE),
+    LONG(Long.MIN_VALUE, Long.MAX_VALUE),
+    FLOAT(0, 0),
+    DOUBLE(0, 0);
+
+    /** range of integral type. */
+    final long min;
+    final long max;
+
+    NumberType(long min, long max) {
+      this.min = min;
+      this.max = max;
+    }
+
+    /** type of class. null if not number. */
+    static NumberType of(Class<?> type) {
+      if (type == long.class || type == Long.class) {
+        return LONG;
+      } else if (type == int.class || type == Integer.class) {
+        return INT;
+      } else if (type == short.class || type == Short.class) {
+        return SHORT;
+      } else if (type == byte.class || type == Byte.class) {
+        return BYTE;
+      } else if (type == double.class || type == Double.class) {
+        return DOUBLE;
+      } else if (type == float.class || type == Float.class) {
+        return FLOAT;
+      }
+      return null;
+    }
+
+    Object box(long value) {
+      switch (this) {
+        case BYTE:
+          return Byte.valueOf((byte) value);
+        case SHORT:
+          return Short.valueOf((short) value);
+        case INT:
+          return Integer.valueOf((int) value);
+        default:
+          return Long.valueOf(value);
+      }
+    }
+  }
+
+  private static <T> Collection<Object> collection(ClassBinder<T> binder, T target, int slot,
+      boolean list) {
+    @SuppressWarnings("unchecked")
+    Collection<Object> member = (Collection<Object>) binder.get(target, slot);
+    if (member == null) {
+      member = list ? new ArrayList<>() : new LinkedHashSet<>();
+      binder.set(target, slot, member);
+    }
+    return member;
+  }
+}
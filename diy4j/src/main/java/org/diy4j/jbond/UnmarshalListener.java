@@ -0,0 +1,83 @@
+package org.diy4j.jbond;
+
+/**
+ * receiver of events of unmarshalling runs.<br>
+ * A listener is registered per unmarshaller by {@link Unmarshaller#withListener}, or globally by
+ * {@link Unmarshallers#setListener}. Nothing is measured when no listener is registered.
+ * Counts are accumulated by each run and reported in batches, so that the callbacks are not on
+ * the path of each line. Timings are reported for each line and bound object.
+ * Runs on several threads call the listener concurrently.
+ * @see UnmarshalMetrics
+ */
+public interface UnmarshalListener {
+
+  /**
+   * lines fed to the unmarshaller.
+   * @param bindClass bound class
+   * @param count     number of lines since the last report
+   */
+  default void onLinesRead(Class<?> bindClass, long count) {
+  }
+
+  /**
+   * objects created by a pattern set.
+   * @param bindClass bound class
+   * @param index     index of pattern set in declared order
+   * @param count     number of objects since the last report
+   */
+  default void onPatternSetMatched(Class<?> bindClass, int index, long count) {
+  }
+
+  /**
+   * ranges of <code>RangePattern</code>.
+   * a range which reaches the end without the required lines is neither completed nor excluded.
+   * @param bindClass bound class
+   * @param opened    number of start lines since the last report
+   * @param completed number of ranges whose object is created
+   * @param excluded  number of ranges discarded by excluded pattern
+   */
+  default void onRanges(Class<?> bindClass, long opened, long completed, long excluded) {
+  }
+
+  /**
+   * ranges of <code>RangePattern</code> which reached a limit. they are also counted as opened.
+   * @param bindClass bound class
+   * @param count     number of ranges since the last report
+   */
+  default void onRangesLimited(Class<?> bindClass, long count) {
+  }
+
+  /**
+   * lines given up by the step budget of backtracking regexes. the line is treated as not
+   * matching the regexes over budget. see {@link Unmarshaller#withStepBudget(int)}.
+   * @param bindClass bound class
+   * @param count     number of lines since the last report
+   */
+  default void onBudgetExceeded(Class<?> bindClass, long count) {
+  }
+
+  /**
+   * captured value could not be bound. the exception is thrown to the caller after this.
+   * @param bindClass  bound class
+   * @param lineNumber line number of the object
+   * @param e          cause
+   */
+  default void onBindFailure(Class<?> bindClass, long lineNumber, BindException e) {
+  }
+
+  /**
+   * time spent on matching a line with the patterns.
+   * @param bindClass bound class
+   * @param nanos     elapsed time
+   */
+  default void onRegexTime(Class<?> bindClass, long nanos) {
+  }
+
+  /**
+   * time spent on creating an object and binding captured values.
+   * @param bindClass bound class
+   * @param nanos     elapsed time
+   */
+  default void onBindTime(Class<?> bindClass, long nanos) {
+  }
+}
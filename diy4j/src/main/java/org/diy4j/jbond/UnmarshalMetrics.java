@@ -0,0 +1,239 @@
+package org.diy4j.jbond;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * listener which accumulates counters and timing histograms.<br>
+ * Counters are striped by <code>LongAdder</code>, so that runs on several threads do not contend.
+ * Values of all bound classes are summed, except matches of pattern sets which are kept per
+ * class. Register an instance per unmarshaller to measure a class separately.
+ */
+public final class UnmarshalMetrics implements UnmarshalListener {
+
+  private final LongAdder linesRead = new LongAdder();
+  private final ConcurrentMap<Class<?>, ConcurrentMap<Integer, LongAdder>> matchedMap =
+      new ConcurrentHashMap<>();
+  private final LongAdder rangesOpened = new LongAdder();
+  private final LongAdder rangesCompleted = new LongAdder();
+  private final LongAdder rangesExcluded = new LongAdder();
+  private final LongAdder rangesLimited = new LongAdder();
+  private final LongAdder budgetExceeded = new LongAdder();
+  private final LongAdder bindFailures = new LongAdder();
+  private final Histogram regexTime = new Histogram();
+  private final Histogram bindTime = new Histogram();
+
+  @Override
+  public void onLinesRead(Class<?> bindClass, long count) {
+    this.linesRead.add(count);
+  }
+
+  @Override
+  public void onPatternSetMatched(Class<?> bindClass, int index, long count) {
+    this.matchedMap.computeIfAbsent(bindClass, k -> new ConcurrentHashMap<>())
+        .computeIfAbsent(index, k -> new LongAdder())
+        .add(count);
+  }
+
+  @Override
+  public void onRanges(Class<?> bindClass, long opened, long completed, long excluded) {
+    this.rangesOpened.add(opened);
+    this.rangesCompleted.add(completed);
+    this.rangesExcluded.add(excluded);
+  }
+
+  @Override
+  public void onRangesLimited(Class<?> bindClass, long count) {
+    this.rangesLimited.add(count);
+  }
+
+  @Override
+  public void onBudgetExceeded(Class<?> bindClass, long count) {
+    this.budgetExceeded.add(count);
+  }
+
+  @Override
+  public void onBindFailure(Class<?> bindClass, long lineNumber, BindException e) {
+    this.bindFailures.increment();
+  }
+
+  @Override
+  public void onRegexTime(Class<?> bindClass, long nanos) {
+    this.regexTime.record(nanos);
+  }
+
+  @Override
+  public void onBindTime(Class<?> bindClass, long nanos) {
+    this.bindTime.record(nanos);
+  }
+
+  public long getLinesRead() {
+    return this.linesRead.sum();
+  }
+
+  /**
+   * objects created by a pattern set.
+   * @param bindClass bound class
+   * @param index     index of pattern set in declared order
+   * @return count
+   */
+  public long getPatternSetMatched(Class<?> bindClass, int index) {
+    final Map<Integer, LongAdder> map = this.matchedMap.get(bindClass);
+    final LongAdder adder = map != null ? map.get(index) : null;
+    return adder != null ? adder.sum() : 0L;
+  }
+
+  public long getRangesOpened() {
+    return this.rangesOpened.sum();
+  }
+
+  public long getRangesCompleted() {
+    return this.rangesCompleted.sum();
+  }
+
+  public long getRangesExcluded() {
+    return this.rangesExcluded.sum();
+  }
+
+  public long getRangesLimited() {
+    return this.rangesLimited.sum();
+  }
+
+  public long getBudgetExceeded() {
+    return this.budgetExceeded.sum();
+  }
+
+  public long getBindFailures() {
+    return this.bindFailures.sum();
+  }
+
+  /** time spent on matching each line, in nanoseconds. */
+  public Histogram getRegexTime() {
+    return this.regexTime;
+  }
+
+  /** time spent on creating each object, in nanoseconds. */
+  public Histogram getBindTime() {
+    return this.bindTime;
+  }
+
+  /**
+   * clear all values. values recorded concurrently may be lost.
+   */
+  public void reset() {
+    this.linesRead.reset();
+    this.matchedMap.clear();
+    this.rangesOpened.reset();
+    this.rangesCompleted.reset();
+    this.rangesExcluded.reset();
+    this.rangesLimited.reset();
+    this.budgetExceeded.reset();
+    this.bindFailures.reset();
+    this.regexTime.reset();
+    this.bindTime.reset();
+  }
+
+  @Override
+  public String toString() {
+    final Map<String, Map<Integer, Long>> matched = new TreeMap<>();
+    this.matchedMap.forEach((clazz, map) -> {
+      final Map<Integer, Long> counts = new TreeMap<>();
+      map.forEach((index, adder) -> counts.put(index, adder.sum()));
+      matched.put(clazz.getName(), counts);
+    });
+    return "UnmarshalMetrics [linesRead=" + getLinesRead() + ", patternSetMatched=" + matched
+        + ", rangesOpened=" + getRangesOpened() + ", rangesCompleted=" + getRangesCompleted()
+        + ", rangesExcluded=" + getRangesExcluded() + ", rangesLimited=" + getRangesLimited()
+        + ", budgetExceeded=" + getBudgetExceeded() + ", bindFailures=" + getBindFailures()
+        + ", regexTime=" + this.regexTime + ", bindTime=" + this.bindTime + "]";
+  }
+
+  /**
+   * histogram of non-negative values in buckets of powers of two.<br>
+   * Bucket <code>i</code> holds values in <code>[2^(i-1), 2^i)</code>, and bucket 0 holds 0.
+   */
+  public static final class Histogram {
+
+    static final int BUCKET_COUNT = Long.SIZE;
+
+    private final LongAdder[] bucketArr = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sum = new LongAdder();
+
+    Histogram() {
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        this.bucketArr[i] = new LongAdder();
+      }
+    }
+
+    void record(long value) {
+      final long v = Math.max(value, 0L);
+      this.bucketArr[Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(v))]
+          .increment();
+      this.sum.add(v);
+    }
+
+    void reset() {
+      for (final LongAdder e : this.bucketArr) {
+        e.reset();
+      }
+      this.sum.reset();
+    }
+
+    public long getCount() {
+      long count = 0L;
+      for (final LongAdder e : this.bucketArr) {
+        count += e.sum();
+      }
+      return count;
+    }
+
+    public long getSum() {
+      return this.sum.sum();
+    }
+
+    /**
+     * count of values in bucket.
+     * @param bucket index of bucket
+     * @return count
+     */
+    public long getBucketCount(int bucket) {
+      return this.bucketArr[bucket].sum();
+    }
+
+    /**
+     * upper bound of values at percentile.
+     * @param percentile 0 to 100
+     * @return exclusive upper bound of the bucket containing the value. 0 if empty.
+     */
+    public long getPercentile(double percentile) {
+      final long[] counts = new long[BUCKET_COUNT];
+      long total = 0L;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        counts[i] = this.bucketArr[i].sum();
+        total += counts[i];
+      }
+      if (total == 0L) {
+        return 0L;
+      }
+      final long rank = Math.max(1L, (long) Math.ceil(total * percentile / 100.0));
+      long seen = 0L;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        seen += counts[i];
+        if (seen >= rank) {
+          return i == BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << i;
+        }
+      }
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+      final long count = getCount();
+      return "[count=" + count + ", mean=" + (count == 0L ? 0L : getSum() / count)
+          + ", p50<" + getPercentile(50) + ", p99<" + getPercentile(99) + "]";
+    }
+  }
+}
@@ -1,6 +1,14 @@
 package org.diy4j.jbond;
 
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.diy4j.util.CloseableIterator;
 
 public interface Unmarshaller<T> {
 
@@ -10,4 +18,185 @@ public interface Unmarshaller<T> {
 
   List<T> unmarshal(String filePath, String charsetName);
 
+  /**
+   * pass each bound object to consumer as soon as it is created.
+   * @param list     lines
+   * @param consumer callback
+   */
+  void unmarshal(List<String> list, Consumer<? super T> consumer);
+
+  void unmarshal(String filePath, Consumer<? super T> consumer);
+
+  void unmarshal(String filePath, String charsetName, Consumer<? super T> consumer);
+
+  /**
+   * pass bound objects to consumer, reusing one instance of the bound class for the whole run.
+   * <br>
+   * Before each object is bound, its tagged fields are reset to their values in a newly created
+   * instance, so the object has the same values as one bound by {@link #unmarshal(List)}.
+   * Collections of the new instance are cleared, refilled and kept. Untagged fields are not
+   * reset.
+   * The instance is valid only until the consumer returns, and must not be retained.
+   * Primitive fields are set without boxing, so binding allocates nothing for them.
+   * @param list     lines
+   * @param consumer callback
+   */
+  void unmarshalReusing(List<String> list, Consumer<? super T> consumer);
+
+  void unmarshalReusing(String filePath, String charsetName, Consumer<? super T> consumer);
+
+  /**
+   * append captured values to columns of primitive arrays, without creating objects.
+   * see {@link ColumnarBatch} for the type of each column.
+   * @param list lines
+   * @return columns with one row per match
+   * @throws BindConfigException if a tagged field is collection or array
+   */
+  ColumnarBatch unmarshalColumnar(List<String> list);
+
+  ColumnarBatch unmarshalColumnar(String filePath, String charsetName);
+
+  /**
+   * pass lazy records, which bind a field only when it is read.<br>
+   * Each record is an instance of a class implementing <code>viewType</code>, which is generated
+   * once per view type, and keeps the captured text of the fields read by the view. A getter
+   * named after a tagged field, as <code>getName()</code>, <code>isName()</code> or
+   * <code>name()</code>, converts the values of the field on its first call, in the same way as
+   * {@link #unmarshal(List, Consumer)}. So values which are never read are not converted, and
+   * conversion errors are thrown by the getter. Records are not threadsafe.
+   * @param list     lines
+   * @param viewType public interface of getters
+   * @param consumer callback
+   * @throws BindConfigException if a method of the interface is not a getter of tagged field
+   */
+  <V> void unmarshalLazy(List<String> list, Class<V> viewType, Consumer<? super V> consumer);
+
+  <V> void unmarshalLazy(String filePath, String charsetName, Class<V> viewType,
+      Consumer<? super V> consumer);
+
+  /**
+   * read file lazily. the file is closed at the end of iteration or by <code>close()</code>.
+   * @param filePath    file
+   * @param charsetName charset
+   * @return iterator of bound objects
+   */
+  CloseableIterator<T> iterator(String filePath, String charsetName);
+
+  CloseableIterator<T> iterator(String filePath);
+
+  /**
+   * read file lazily. the file is closed when the stream is closed.
+   * @param filePath    file
+   * @param charsetName charset
+   * @return stream of bound objects
+   */
+  Stream<T> stream(String filePath, String charsetName);
+
+  Stream<T> stream(String filePath);
+
+  /**
+   * split file into chunks at line boundaries and unmarshal them in parallel on the common
+   * fork-join pool. the result is in the same order as {@link #unmarshal(String, String)}.<br>
+   * A class with <code>RangePattern</code>, or a charset whose line terminators cannot be found
+   * on bytes, is unmarshalled sequentially.
+   * @param filePath    file
+   * @param charsetName charset
+   * @return bound objects
+   */
+  List<T> unmarshalParallel(String filePath, String charsetName);
+
+  List<T> unmarshalParallel(String filePath, String charsetName, ForkJoinPool pool);
+
+  /**
+   * unmarshal files in parallel on the pool. the parallelism of the pool limits the number of
+   * files read at once.<br>
+   * Each file is unmarshalled independently as by {@link #unmarshalParallel(String, String,
+   * ForkJoinPool)}: its range pattern and counter start from the head of the file. Larger files
+   * are scheduled first, and a large file is split into chunks which idle threads steal.
+   * @param paths       files
+   * @param charsetName charset
+   * @param pool        pool
+   * @return bound objects of each file, in the order of paths
+   */
+  Map<Path, List<T>> unmarshalFiles(Collection<Path> paths, String charsetName,
+      ForkJoinPool pool);
+
+  /**
+   * unmarshal files under directory in parallel. see
+   * {@link #unmarshalFiles(Collection, String, ForkJoinPool)}.
+   * @param dir         directory
+   * @param glob        glob of path relative to dir, e.g. <code>*.log</code>, or
+   *                    <code>**&#47;*.log</code> for subdirectories. null for all files
+   *                    directly in dir.
+   * @param charsetName charset
+   * @param pool        pool
+   * @return bound objects of each file, in the order of path
+   */
+  Map<Path, List<T>> unmarshalFiles(Path dir, String glob, String charsetName,
+      ForkJoinPool pool);
+
+  /**
+   * unmarshal files in parallel, and merge bound objects in the order of paths.
+   * @param paths       files
+   * @param charsetName charset
+   * @param pool        pool
+   * @return bound objects
+   */
+  List<T> unmarshalMerged(Collection<Path> paths, String charsetName, ForkJoinPool pool);
+
+  List<T> unmarshalMerged(Path dir, String glob, String charsetName, ForkJoinPool pool);
+
+  /**
+   * unmarshal file, saving checkpoints to resume after restart.<br>
+   * A checkpoint is saved at the head of a line at intervals. If the checkpoint file exists,
+   * the run resumes from it exactly: the objects passed to the consumer before the checkpoint
+   * was saved are not passed again, and the objects after it are passed in the same order with
+   * the same line numbers, together with the ranges which were open at the checkpoint.<br>
+   * Objects are passed at least once: those passed after the last checkpoint are passed again
+   * by the resumed run, since the consumer is not told when a checkpoint is saved. A consumer
+   * which must not see duplicates has to find them by itself, e.g. by the line number bound by
+   * tag "#".
+   * The checkpoint file is deleted when the whole file is read.
+   * A checkpoint of another class or another file is rejected.
+   * @param filePath       file
+   * @param charsetName    charset. must be one whose line terminators are found on bytes, e.g.
+   *                       UTF-8 or ISO-8859-1.
+   * @param checkpointPath file of checkpoint
+   * @param intervalMillis minimum interval of checkpoints
+   * @param consumer       callback of bound objects
+   */
+  void unmarshalResumable(String filePath, String charsetName, String checkpointPath,
+      long intervalMillis, Consumer<? super T> consumer);
+
+  /**
+   * follow file growing like <code>tail -f</code>. nothing is read until
+   * {@link Follower#poll()} is called. lines already in the file are read by the first poll.
+   * @param filePath    file
+   * @param charsetName charset. must be one whose line terminators are found on bytes, e.g.
+   *                    UTF-8 or ISO-8859-1.
+   * @param consumer    callback of bound objects
+   * @return follower
+   */
+  Follower<T> follow(String filePath, String charsetName, Consumer<? super T> consumer);
+
+  /**
+   * unmarshaller of the same config which reports to listener instead of the global one.
+   * this unmarshaller is not changed.
+   * @param listener listener. null to report to the global one.
+   * @return unmarshaller
+   */
+  Unmarshaller<T> withListener(UnmarshalListener listener);
+
+  /**
+   * unmarshaller of the same config which limits the characters read by backtracking regexes
+   * for each line. the budget is shared by all regexes evaluated on the line, and a line over
+   * it is treated as not matching the rest of them, and reported to
+   * {@link UnmarshalListener#onBudgetExceeded}. linear time regexes are not limited, as they
+   * read each character a bounded number of times. this unmarshaller is not changed.
+   * @param maxSteps upper limit for a line. 0 for no limit.
+   * @return unmarshaller
+   * @throws IllegalArgumentException negative limit
+   */
+  Unmarshaller<T> withStepBudget(int maxSteps);
+
 }
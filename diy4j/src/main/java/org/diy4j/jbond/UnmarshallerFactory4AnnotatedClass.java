@@ -1,11 +1,14 @@
 package org.diy4j.jbond;
 
 import java.lang.annotation.Annotation;
-import java.lang.ref.SoftReference;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 
 import org.diy4j.jbond.annotation.BindTag;
@@ -20,6 +23,7 @@ import org.diy4j.jbond.config.PatternCollectionLoader;
 import org.diy4j.jbond.config.PatternLoader;
 import org.diy4j.jbond.config.PatternSetLoader;
 import org.diy4j.jbond.config.RangeExtractPattern;
+import org.diy4j.jbond.config.RangeLimits;
 
 final class UnmarshallerFactory4AnnotatedClass {
 
@@ -42,7 +46,7 @@ final class UnmarshallerFactory4AnnotatedClass {
     return ME;
   }
 
-  public <T> Unmarshaller<T> getUnmarshaller(Class<T> clazz) {
+  public <T> UnmarshallerImpl<T> getUnmarshaller(Class<T> clazz) {
 
     Objects.requireNonNull(clazz);
 
@@ -56,7 +60,6 @@ final class UnmarshallerFactory4AnnotatedClass {
 
     // class section annotation
     final Annotation[] topLevelAnnoArray = clazz.getDeclaredAnnotations();
-    RangeExtractPattern rangeExtractPattern = null;
     for (final Annotation anno : topLevelAnnoArray) {
       if (this.loaderMap.containsKey(anno.annotationType())) {
         final AnnotationLoader tmpLoader = this.loaderMap.get(anno.annotationType());
@@ -66,12 +69,11 @@ final class UnmarshallerFactory4AnnotatedClass {
           }
         }
       }
-      if (RangePattern.class.equals(anno.annotationType())) {
-        final RangePattern rp = (RangePattern) anno;
-        rangeExtractPattern = new RangeExtractPattern(rp.start(), rp.required(), rp.optional(),
-            rp.excluded(), rp.end());
-      }
-      config.registerExtractConfig(rangeExtractPattern);
+    }
+    // repeated annotations are wrapped in container, and read in declaration order
+    for (final RangePattern rp : clazz.getDeclaredAnnotationsByType(RangePattern.class)) {
+      config.registerExtractConfig(new RangeExtractPattern(rp.start(), rp.required(),
+          rp.optional(), rp.excluded(), rp.end(), RangeLimits.of(rp)));
     }
 
     // field section annotation
@@ -85,48 +87,120 @@ final class UnmarshallerFactory4AnnotatedClass {
       }
     }
 
-    obj = new UnmarshallerImpl<>(config);
-    cache.putIfAbsent(clazz, obj);
+    ClassBinder<T> binder = findGeneratedBinder(clazz, config.getSlotTags(),
+        config.getSlotFields());
+    if (binder == null) {
+      binder = MethodHandleBinder.create(clazz, config.getSlotFields());
+    }
+    obj = new UnmarshallerImpl<>(config, binder);
 
-    return obj;
+    // a racing thread may have built another. return the one in cache.
+    return cache.putIfAbsent(clazz, obj);
   }
 
-  private static class Cache {
-
-    private static final Map<Class<?>, SoftReference<UnmarshallerImpl<?>>> cache = new HashMap<>();
-
-    public <E> void putIfAbsent(Class<E> clazz, UnmarshallerImpl<E> value) {
-      if (clazz == null || value == null) {
-        return;
+  /**
+   * find binder generated by annotation processor.
+   * @param clazz      bound class
+   * @param slotTags   tags in slot order
+   * @param slotFields fields in slot order
+   * @return binder. null if absent or generated from another version of the class.
+   */
+  static <T> GeneratedBinder<T> findGeneratedBinder(Class<T> clazz, String[] slotTags,
+      Field[] slotFields) {
+
+    final ClassLoader loader = clazz.getClassLoader();
+    if (loader == null || clazz.isAnonymousClass() || clazz.isLocalClass()) {
+      return null;
+    }
+    final Class<?> binderClass;
+    try {
+      binderClass = Class.forName(GeneratedBinder.binderName(clazz), true, loader);
+    } catch (final ClassNotFoundException | LinkageError e) {
+      return null;
+    }
+    if (!GeneratedBinder.class.isAssignableFrom(binderClass)) {
+      return null;
+    }
+    try {
+      @SuppressWarnings("unchecked")
+      final GeneratedBinder<T> binder = (GeneratedBinder<T>) binderClass.getConstructor()
+          .newInstance();
+      if (binder.getBindClass() != clazz || !Arrays.equals(binder.getSlotTags(), slotTags)
+          || !matchesFields(binder, slotFields)) {
+        LOG.warning("Generated binder is stale. Rebuild to regenerate it. Key class=" + clazz);
+        return null;
       }
+      return binder;
+    } catch (final ReflectiveOperationException | RuntimeException e) {
+      LOG.warning("Generated binder is not usable. Key class=" + clazz + " cause=" + e);
+      return null;
+    }
+  }
 
-      synchronized (clazz) {
-        if (cache.containsKey(clazz)) {
-          final SoftReference<UnmarshallerImpl<?>> oldRef = cache.get(clazz);
-          final UnmarshallerImpl<?> oldValue = oldRef.get();
-          if (oldValue != null) {
-            return;
-          }
-        }
-        cache.put(clazz, new SoftReference<UnmarshallerImpl<?>>(value));
+  /**
+   * check whether fields accessed by binder are still the same. the binder resolves them on
+   * first access, so a renamed or retyped field would fail only in the middle of binding.
+   */
+  private static boolean matchesFields(GeneratedBinder<?> binder, Field[] slotFields) {
+    final String[] nameArr = binder.getSlotFieldNames();
+    final Class<?>[] typeArr = binder.getSlotFieldTypes();
+    if (nameArr.length != slotFields.length || typeArr.length != slotFields.length) {
+      return false;
+    }
+    for (int i = 0; i < slotFields.length; i++) {
+      final int modifiers = slotFields[i].getModifiers();
+      if (!nameArr[i].equals(slotFields[i].getName()) || typeArr[i] != slotFields[i].getType()
+          || Modifier.isPrivate(modifiers) || Modifier.isFinal(modifiers)
+          || Modifier.isStatic(modifiers)) {
+        return false;
       }
+    }
+    return true;
+  }
+
+  /**
+   * remove cached unmarshaller of class. the unmarshaller is built again by the next call.
+   * @param clazz class
+   * @return true if removed
+   */
+  public boolean evict(Class<?> clazz) {
+    return cache.remove(clazz);
+  }
+
+  public void evictAll() {
+    cache.clear();
+  }
+
+  /**
+   * registry of unmarshallers, held strongly until evicted. lookup takes no lock.
+   */
+  private static class Cache {
 
+    private final ConcurrentMap<Class<?>, UnmarshallerImpl<?>> map = new ConcurrentHashMap<>();
+
+    /**
+     * put value unless another thread has built one.
+     * @return value in cache
+     */
+    public <E> UnmarshallerImpl<E> putIfAbsent(Class<E> clazz, UnmarshallerImpl<E> value) {
+      @SuppressWarnings("unchecked")
+      final UnmarshallerImpl<E> oldValue = (UnmarshallerImpl<E>) this.map.putIfAbsent(clazz,
+          value);
+      return oldValue != null ? oldValue : value;
     }
 
     public <E> UnmarshallerImpl<E> get(Class<E> clazz) {
-      if (clazz == null) {
-        return null;
-      }
+      @SuppressWarnings("unchecked")
+      final UnmarshallerImpl<E> value = (UnmarshallerImpl<E>) this.map.get(clazz);
+      return value;
+    }
 
-      synchronized (clazz) {
-        final SoftReference<UnmarshallerImpl<?>> oldRef = cache.get(clazz);
-        if (oldRef == null) {
-          return null;
-        }
-        @SuppressWarnings("unchecked")
-        final UnmarshallerImpl<E> oldValue = (UnmarshallerImpl<E>) oldRef.get();
-        return oldValue;
-      }
+    public boolean remove(Class<?> clazz) {
+      return this.map.remove(clazz) != null;
+    }
+
+    public void clear() {
+      this.map.clear();
     }
   }
 }
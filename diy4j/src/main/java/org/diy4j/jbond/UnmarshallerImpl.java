@@ -1,55 +1,127 @@
 package org.diy4j.jbond;
 
-import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.diy4j.jbond.config.BindConfig;
 import org.diy4j.jbond.config.BindConfig.Tag;
+import org.diy4j.jbond.config.Captures;
 import org.diy4j.jbond.config.ExtractPattern;
+import org.diy4j.jbond.config.LineWindow;
+import org.diy4j.jbond.config.LiteralFilter;
 import org.diy4j.jbond.config.RangeExtractPattern;
 import org.diy4j.jbond.config.RangeExtractPattern.ExtractInfo;
-import org.diy4j.util.CyclicList;
-import org.diy4j.util.TextFileSequencialTracer;
+import org.diy4j.jbond.config.RangeGroup;
+import org.diy4j.jbond.config.RegexTable;
+import org.diy4j.jbond.config.SlotBinding;
+import org.diy4j.util.ByteLineSource;
+import org.diy4j.util.CloseableIterator;
+import org.diy4j.util.DecompressingInputStream;
+import org.diy4j.util.DecompressingInputStream.Format;
+import org.diy4j.util.LineChunker;
+import org.diy4j.util.LineSource;
+import org.diy4j.util.MappedLineSource;
+import org.diy4j.util.ReaderLineSource;
+import org.diy4j.util.regex.StepBudget;
 
 final class UnmarshallerImpl<T> implements Unmarshaller<T> {
 
-
-  private final Map<String, Field> taggedFieldMap;
-  private final Field countField;
+  /** lower limit of chunk size for parallel unmarshalling. */
+  private static final long MIN_CHUNK_SIZE = 1L << 20;
+  /** upper limit of chunk size for parallel unmarshalling. chunk is mapped on memory. */
+  private static final long MAX_CHUNK_SIZE = 1L << 26;
+  /** number of chunks per thread, to balance the load. */
+  private static final int CHUNKS_PER_THREAD = 4;
+  /** size of region read between checkpoints. */
+  private static final long CHECKPOINT_CHUNK_SIZE = 1L << 23;
+  /** number of lines between reports of counts to listener. */
+  private static final int REPORT_INTERVAL = 4096;
+  /** listener which ignores everything, to keep runs from the registered listener. */
+  private static final UnmarshalListener SILENT = new UnmarshalListener() {
+  };
+  /** lines to run unmarshaller through window and range paths, after the literals. */
+  private static final List<String> WARMUP_LINES = Collections.unmodifiableList(
+      Arrays.asList("", " ", "0", "a"));
+
+  private final Class<T> bindClass;
+  private final ClassBinder<T> binder;
+  /** writer of each slot, resolved from the declared type of field. */
+  private final SlotWriter<T>[] writerArr;
+  /** plan of each slot, which decides the type of column. */
+  private final SlotBinding[] bindingArr;
+  /** slot of counter field. negative if absent. */
+  private final int countSlot;
+  /** true if counter field is long, which is set without conversion. */
+  private final boolean longCounter;
   private final ExtractPattern[] extractorArr;
-  private final RangeExtractPattern templateRangeExtractor;
-  private final Class<T> clazz;
+  /** distinct regexes of pattern sets. */
+  private final RegexTable regexTable;
+  private final RangeGroup templateRangeGroup;
+  /** prefilter of lines. null if no regex has required literal. */
+  private final LiteralFilter literalFilter;
   private final int maxScanSize;
+  /** listener of this unmarshaller. null to report to the global listener. */
+  private final UnmarshalListener listener;
+  /** upper limit of characters read by backtracking regexes for a line. 0 for no limit. */
+  private final int stepBudget;
+  /** views of lazy records, built once per view type. */
+  private final ConcurrentMap<Class<?>, LazyView<T, ?>> viewMap = new ConcurrentHashMap<>();
 
-  public UnmarshallerImpl(BindConfig<T> config) throws BindConfigException {
+  public UnmarshallerImpl(BindConfig<T> config, ClassBinder<T> binder)
+      throws BindConfigException {
 
     Objects.requireNonNull(config);
+    Objects.requireNonNull(binder);
 
     final Class<T> clazz = config.getBindClass();
     final Map<String, Field> taggedFieldMap = config.getTaggedFieldMap();
     final List<ExtractPattern> extractorList = config.getExtractorList();
-    final RangeExtractPattern rangeExtractPattern = config.getRangeExtractor();
+    final List<RangeExtractPattern> rangeExtractorList = config.getRangeExtractorList();
 
     Objects.requireNonNull(clazz);
     Objects.requireNonNull(taggedFieldMap);
 
     if (extractorList == null) {
-      Objects.requireNonNull(rangeExtractPattern);
+      Objects.requireNonNull(rangeExtractorList);
     }
-    if (rangeExtractPattern == null) {
+    if (rangeExtractorList == null) {
       Objects.requireNonNull(extractorList);
       if (extractorList.isEmpty()) {
         throw new BindConfigException("absent instance.");
@@ -71,89 +143,133 @@ final class UnmarshallerImpl<T> implements Unmarshaller<T> {
     }
     this.maxScanSize = maxLineCount;
 
-    this.clazz = clazz;
+    // resolve slot of captured values and required literals once.
+    this.literalFilter = LiteralFilter.create(extractorList, rangeExtractorList);
+    this.regexTable = new RegexTable(this.literalFilter);
     if (extractorList != null && !extractorList.isEmpty()) {
-      this.extractorArr = extractorList.toArray(new ExtractPattern[extractorList.size()]);
+      this.extractorArr = new ExtractPattern[extractorList.size()];
+      for (int i = 0; i < this.extractorArr.length; i++) {
+        this.extractorArr[i] = extractorList.get(i).link(config::slotOf, this.regexTable);
+      }
     } else {
       this.extractorArr = null;
     }
-    this.templateRangeExtractor = rangeExtractPattern;
-    this.taggedFieldMap = new HashMap<>(taggedFieldMap);
-    if (taggedFieldMap.containsKey(Tag.COUNTER)) {
-      this.countField = taggedFieldMap.get(Tag.COUNTER);
+    if (rangeExtractorList != null) {
+      this.templateRangeGroup = new RangeGroup(rangeExtractorList).link(config::slotOf,
+          this.literalFilter);
     } else {
-      this.countField = null;
+      this.templateRangeGroup = null;
+    }
+    this.binder = binder;
+    final SlotBinding[] bindingArr = config.getSlotBindings();
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    final SlotWriter<T>[] writerArr = new SlotWriter[bindingArr.length];
+    for (int i = 0; i < bindingArr.length; i++) {
+      writerArr[i] = SlotWriters.create(bindingArr[i], binder);
     }
+    this.writerArr = writerArr;
+    this.bindingArr = bindingArr;
+    this.countSlot = config.slotOf(Tag.COUNTER);
+    this.longCounter = this.countSlot >= 0
+        && bindingArr[this.countSlot].getField().getType() == long.class;
+    this.bindClass = clazz;
+    this.listener = null;
+    this.stepBudget = 0;
 
   }
 
-  private List<T> unmarshalImpl(Iterable<String> iterable) {
+  private UnmarshallerImpl(UnmarshallerImpl<T> base, UnmarshalListener listener,
+      int stepBudget) {
+    this.bindClass = base.bindClass;
+    this.binder = base.binder;
+    this.writerArr = base.writerArr;
+    this.bindingArr = base.bindingArr;
+    this.countSlot = base.countSlot;
+    this.longCounter = base.longCounter;
+    this.extractorArr = base.extractorArr;
+    this.regexTable = base.regexTable;
+    this.templateRangeGroup = base.templateRangeGroup;
+    this.literalFilter = base.literalFilter;
+    this.maxScanSize = base.maxScanSize;
+    this.listener = listener;
+    this.stepBudget = stepBudget;
+  }
 
-    if (iterable == null) {
-      return Collections.emptyList();
-    }
+  Class<T> getBindClass() {
+    return this.bindClass;
+  }
 
-    final List<T> result = new ArrayList<>();
+  /** number of lines of the widest pattern set. */
+  int getMaxScanSize() {
+    return this.maxScanSize;
+  }
 
-    final CyclicList<String> buffer;
-    if (this.extractorArr != null) {
-      buffer = new CyclicList<>(this.maxScanSize);
-      for (int i = 0; i < this.maxScanSize; i++) {
-        buffer.add(null);
-      }
-    } else {
-      buffer = null;
+  @Override
+  public Unmarshaller<T> withListener(UnmarshalListener newListener) {
+    return new UnmarshallerImpl<>(this, newListener, this.stepBudget);
+  }
+
+  @Override
+  public UnmarshallerImpl<T> withStepBudget(int maxSteps) {
+    if (maxSteps < 0) {
+      throw new IllegalArgumentException("Step budget must not be negative.");
     }
+    return new UnmarshallerImpl<>(this, this.listener, maxSteps);
+  }
 
-    final RangeExtractPattern rangeExtractor;
-    if (this.templateRangeExtractor != null) {
-      // create new local instance to maintain threadsafe.
-      rangeExtractor = this.templateRangeExtractor.createClone();
-    } else {
-      rangeExtractor = null;
+  /**
+   * feed dummy lines without binding captured values, nor reporting to any listener, so that
+   * the paths of matching are loaded and compiled. values of dummy lines are never converted.
+   * <br>
+   * Each literal required by the regexes is fed as a line, so that the literal filter passes
+   * the lines to the regexes, and patterns made of literals match.
+   * @return number of matches
+   */
+  long warmUp() {
+    final List<String> lines = new ArrayList<>();
+    if (this.literalFilter != null) {
+      lines.addAll(Arrays.asList(this.literalFilter.getLiterals()));
     }
+    lines.addAll(WARMUP_LINES);
+    // twice, to run window and range paths across the last and the first lines
+    lines.addAll(new ArrayList<>(lines));
+
+    final long[] matchCount = new long[1];
+    final UnmarshallerImpl<T> silent = new UnmarshallerImpl<>(this, SILENT, this.stepBudget);
+    silent.unmarshalImpl(lines, silent.new ScanState().toCaptureSink((captures, line) -> {
+      matchCount[0]++;
+    }), e -> {
+    });
+    return matchCount[0];
+  }
 
-    try {
-      long blockCount = 1;
+  private void unmarshalImpl(Iterable<? extends CharSequence> iterable,
+      Consumer<? super T> sink) {
 
-      for (final String line : iterable) {
-        if (buffer != null) {
-          buffer.add(line);
+    unmarshalImpl(iterable, new ScanState(), sink);
+  }
 
-          for (final ExtractPattern extractor : this.extractorArr) {
-            final T entity = newIfTarget(extractor, buffer, blockCount);
-            if (entity != null) {
-              result.add(entity);
-            }
-          }
-        }
-        if (rangeExtractor != null) {
-          final T entity = newIfTarget(rangeExtractor, line, blockCount);
-          if (entity != null) {
-            result.add(entity);
-          }
-        }
-        blockCount++;
-      }
+  private void unmarshalImpl(Iterable<? extends CharSequence> iterable, ScanState state,
+      Consumer<? super T> sink) {
 
-      if (buffer != null) {
-        while (buffer.size() > 0) {
-          buffer.shift();
+    if (iterable == null) {
+      return;
+    }
 
-          for (final ExtractPattern extractor : this.extractorArr) {
-            final T entity = newIfTarget(extractor, buffer, blockCount);
-            if (entity != null) {
-              result.add(entity);
-            }
-          }
-          blockCount++;
-        }
-      }
-    } catch (IllegalAccessException | InstantiationException e) {
-      throw new BindException(e);
+    for (final CharSequence line : iterable) {
+      state.feed(line, sink);
     }
+    state.finish(sink);
+  }
 
-    return result;
+  private void unmarshalImpl(LineSource source, ScanState state, Consumer<? super T> sink)
+      throws IOException {
+
+    CharSequence line;
+    while ((line = source.readLine()) != null) {
+      state.feed(line, sink);
+    }
+    state.finish(sink);
   }
 
   @Override
@@ -163,7 +279,8 @@ final class UnmarshallerImpl<T> implements Unmarshaller<T> {
       return Collections.emptyList();
     }
 
-    final List<T> result = unmarshalImpl(list);
+    final List<T> result = new ArrayList<>();
+    unmarshalImpl(list, result::add);
     return result;
   }
 
@@ -185,17 +302,336 @@ final class UnmarshallerImpl<T> implements Unmarshaller<T> {
       return Collections.emptyList();
     }
 
-    String charset = charsetName;
-    if (charset == null) {
-      charset = Charset.defaultCharset().toString();
+    final List<T> result = new ArrayList<>();
+    unmarshal(filePath, charsetName, result::add);
+
+    return result;
+  }
+
+  @Override
+  public void unmarshal(List<String> list, Consumer<? super T> consumer) {
+
+    Objects.requireNonNull(consumer);
+    if (list == null) {
+      return;
+    }
+
+    unmarshalImpl(list, consumer);
+  }
+
+  @Override
+  public void unmarshal(String filePath, Consumer<? super T> consumer) {
+
+    unmarshal(filePath, null, consumer);
+  }
+
+  @Override
+  public void unmarshal(String filePath, String charsetName, Consumer<? super T> consumer) {
+
+    Objects.requireNonNull(consumer);
+    if (filePath == null) {
+      return;
+    }
+
+    try (LineSource source = openLineSource(filePath, charsetName)) {
+
+      unmarshalImpl(source, new ScanState(), consumer);
+
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  @Override
+  public void unmarshalReusing(List<String> list, Consumer<? super T> consumer) {
+
+    Objects.requireNonNull(consumer);
+    unmarshalImpl(list, new ScanState().reuseInstance(), consumer);
+  }
+
+  @Override
+  public void unmarshalReusing(String filePath, String charsetName,
+      Consumer<? super T> consumer) {
+
+    Objects.requireNonNull(consumer);
+    if (filePath == null) {
+      return;
+    }
+
+    try (LineSource source = openLineSource(filePath, charsetName)) {
+
+      unmarshalImpl(source, new ScanState().reuseInstance(), consumer);
+
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  @Override
+  public ColumnarBatch unmarshalColumnar(List<String> list) {
+
+    final ColumnarBatch.Builder builder = newColumnarBuilder();
+    if (list != null) {
+      unmarshalImpl(list, new ScanState().toCaptureSink(builder::addRow), e -> {
+      });
+    }
+    return builder.build();
+  }
+
+  @Override
+  public ColumnarBatch unmarshalColumnar(String filePath, String charsetName) {
+
+    final ColumnarBatch.Builder builder = newColumnarBuilder();
+    if (filePath == null) {
+      return builder.build();
+    }
+
+    try (LineSource source = openLineSource(filePath, charsetName)) {
+
+      unmarshalImpl(source, new ScanState().toCaptureSink(builder::addRow), e -> {
+      });
+
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+    return builder.build();
+  }
+
+  @Override
+  public <V> void unmarshalLazy(List<String> list, Class<V> viewType,
+      Consumer<? super V> consumer) {
+
+    Objects.requireNonNull(consumer);
+    final LazyView<T, V> view = view(viewType);
+    if (list != null) {
+      unmarshalImpl(list, new ScanState().toCaptureSink(
+          (captures, hitBlockIndex) -> consumer.accept(view.newRecord(captures, hitBlockIndex))),
+          e -> {
+          });
+    }
+  }
+
+  @Override
+  public <V> void unmarshalLazy(String filePath, String charsetName, Class<V> viewType,
+      Consumer<? super V> consumer) {
+
+    Objects.requireNonNull(consumer);
+    final LazyView<T, V> view = view(viewType);
+    if (filePath == null) {
+      return;
+    }
+
+    try (LineSource source = openLineSource(filePath, charsetName)) {
+
+      unmarshalImpl(source, new ScanState().toCaptureSink(
+          (captures, hitBlockIndex) -> consumer.accept(view.newRecord(captures, hitBlockIndex))),
+          e -> {
+          });
+
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  /**
+   * get view of lazy records, which is built on the first call for the type.
+   * @param viewType interface of getters
+   * @return view
+   * @throws BindConfigException if a method of the interface is not a getter of tagged field
+   */
+  @SuppressWarnings("unchecked")
+  private <V> LazyView<T, V> view(Class<V> viewType) throws BindConfigException {
+    return (LazyView<T, V>) this.viewMap.computeIfAbsent(viewType,
+        type -> new LazyView<>(this, this.binder, this.bindingArr, type));
+  }
+
+  private ColumnarBatch.Builder newColumnarBuilder() {
+    return new ColumnarBatch.Builder(this.bindingArr, this.countSlot);
+  }
+
+  @Override
+  public CloseableIterator<T> iterator(String filePath) {
+
+    return iterator(filePath, null);
+  }
+
+  @Override
+  public CloseableIterator<T> iterator(String filePath, String charsetName) {
+
+    Objects.requireNonNull(filePath);
+
+    try {
+      return new LazyIterator(openLineSource(filePath, charsetName));
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  @Override
+  public Stream<T> stream(String filePath) {
+
+    return stream(filePath, null);
+  }
+
+  @Override
+  public Stream<T> stream(String filePath, String charsetName) {
+
+    final CloseableIterator<T> itr = iterator(filePath, charsetName);
+    final Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(itr,
+        Spliterator.ORDERED | Spliterator.NONNULL);
+
+    return StreamSupport.stream(spliterator, false).onClose(itr::close);
+  }
+
+  @Override
+  public void unmarshalResumable(String filePath, String charsetName, String checkpointPath,
+      long intervalMillis, Consumer<? super T> consumer) {
+
+    unmarshalResumable(filePath, charsetName, checkpointPath, intervalMillis, consumer,
+        CHECKPOINT_CHUNK_SIZE);
+  }
+
+  /**
+   * {@link #unmarshalResumable(String, String, String, long, Consumer)} of which checkpoints
+   * may be saved every regionSize bytes.
+   */
+  void unmarshalResumable(String filePath, String charsetName, String checkpointPath,
+      long intervalMillis, Consumer<? super T> consumer, long regionSize) {
+
+    Objects.requireNonNull(filePath);
+    Objects.requireNonNull(checkpointPath);
+    Objects.requireNonNull(consumer);
+
+    final Charset charset = toCharset(charsetName);
+    if (!LineChunker.isSupported(charset)) {
+      throw new BindException("unsupported charset to save checkpoint. charset=" + charset);
+    }
+    if (isCompressed(filePath)) {
+      throw new BindException("compressed file cannot be resumed. path=" + filePath);
+    }
+    final Path checkpointFile = Paths.get(checkpointPath);
+    final long intervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, intervalMillis));
+
+    try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+      final long size = channel.size();
+      final Checkpoint saved = Checkpoint.read(checkpointFile);
+      final ScanState state;
+      long offset;
+      if (saved == null) {
+        state = new ScanState();
+        offset = 0;
+      } else {
+        if (!this.bindClass.getName().equals(saved.className)
+            || saved.windowLines.length != this.maxScanSize
+            || saved.ranges.length != (this.templateRangeGroup != null
+                ? this.templateRangeGroup.size() : 0)
+            || saved.offset > size
+            || saved.fingerprint != Checkpoint.fingerprint(channel, saved.offset)) {
+          throw new BindException("checkpoint of another run. path=" + checkpointPath);
+        }
+        state = new ScanState(saved);
+        offset = saved.offset;
+      }
+
+      // read region by region to know the offset of line head
+      long lastSaved = System.nanoTime();
+      while (offset < size) {
+        final long end = LineChunker.nextLineHead(channel, offset + regionSize);
+        try (LineSource source = newLineSource(channel, offset, end, charset)) {
+          CharSequence line;
+          while ((line = source.readLine()) != null) {
+            state.feed(line, consumer);
+          }
+        }
+        offset = end;
+        if (offset < size && System.nanoTime() - lastSaved >= intervalNanos) {
+          state.snapshot(offset, Checkpoint.fingerprint(channel, offset)).write(checkpointFile);
+          lastSaved = System.nanoTime();
+        }
+      }
+      state.finish(consumer);
+      Files.deleteIfExists(checkpointFile);
+
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  @Override
+  public Follower<T> follow(String filePath, String charsetName, Consumer<? super T> consumer) {
+
+    Objects.requireNonNull(filePath);
+    Objects.requireNonNull(consumer);
+
+    final Charset charset = toCharset(charsetName);
+    if (!LineChunker.isSupported(charset)) {
+      throw new BindException("unsupported charset to follow file. charset=" + charset);
+    }
+    if (isCompressed(filePath)) {
+      throw new BindException("compressed file cannot be followed. path=" + filePath);
+    }
+    return new FollowerImpl(Paths.get(filePath), charset, consumer);
+  }
+
+  @Override
+  public List<T> unmarshalParallel(String filePath, String charsetName) {
+
+    return unmarshalParallel(filePath, charsetName, ForkJoinPool.commonPool());
+  }
+
+  @Override
+  public List<T> unmarshalParallel(String filePath, String charsetName, ForkJoinPool pool) {
+
+    Objects.requireNonNull(pool);
+    if (filePath == null) {
+      return Collections.emptyList();
+    }
+
+    final Charset charset = toCharset(charsetName);
+    if (this.templateRangeGroup != null || !LineChunker.isSupported(charset)
+        || isCompressed(filePath)) {
+      // state of range extractor spans whole file, so the file cannot be split.
+      // compressed file is decompressed in parallel instead.
+      return unmarshal(filePath, charset.name());
     }
 
-    try (BufferedReader reader = new BufferedReader(
-        new InputStreamReader(new FileInputStream(filePath), charset))) {
-      final TextFileSequencialTracer fileContentTracer = new TextFileSequencialTracer(reader);
+    try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+      final long chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE,
+          channel.size() / ((long) pool.getParallelism() * CHUNKS_PER_THREAD) + 1));
+      final long[] bounds = LineChunker.split(channel, chunkSize);
+      final int chunkCount = bounds.length - 1;
+      if (chunkCount <= 1) {
+        return unmarshal(filePath, charset.name());
+      }
+
+      // line number of the head of each chunk
+      final List<ForkJoinTask<Long>> countTaskList = new ArrayList<>(chunkCount);
+      for (int i = 0; i < chunkCount; i++) {
+        final long begin = bounds[i];
+        final long end = bounds[i + 1];
+        countTaskList.add(pool.submit(() -> LineChunker.countLines(channel, begin, end)));
+      }
+      final long[] firstLines = new long[chunkCount];
+      long lineNumber = 1;
+      for (int i = 0; i < chunkCount; i++) {
+        firstLines[i] = lineNumber;
+        lineNumber += countTaskList.get(i).join();
+      }
 
-      final List<T> result = unmarshalImpl(fileContentTracer);
+      final List<ForkJoinTask<List<T>>> scanTaskList = new ArrayList<>(chunkCount);
+      for (int i = 0; i < chunkCount; i++) {
+        final long begin = bounds[i];
+        final long end = bounds[i + 1];
+        final long firstLine = firstLines[i];
+        final boolean last = i == chunkCount - 1;
+        scanTaskList.add(pool.submit(
+            () -> unmarshalChunk(channel, charset, begin, end, firstLine, last)));
+      }
 
+      final List<T> result = new ArrayList<>();
+      for (final ForkJoinTask<List<T>> task : scanTaskList) {
+        result.addAll(task.join());
+      }
       return result;
 
     } catch (final IOException e) {
@@ -203,164 +639,760 @@ final class UnmarshallerImpl<T> implements Unmarshaller<T> {
     }
   }
 
-  private T newIfTarget(ExtractPattern extractor, CyclicList<String> buffer, long blockCount)
-      throws IllegalAccessException, InstantiationException {
+  @Override
+  public Map<Path, List<T>> unmarshalFiles(Collection<Path> paths, String charsetName,
+      ForkJoinPool pool) {
+
+    Objects.requireNonNull(pool);
+    if (paths == null) {
+      return Collections.emptyMap();
+    }
 
-    if (extractor == null || buffer == null) {
-      return null;
+    final List<Path> pathList = new ArrayList<>(new LinkedHashSet<>(paths));
+    final Map<Path, Long> sizeMap = new HashMap<>();
+    for (final Path path : pathList) {
+      try {
+        sizeMap.put(path, Files.isRegularFile(path) ? Files.size(path) : 0L);
+      } catch (final IOException e) {
+        throw new BindException(e);
+      }
     }
 
-    final List<String[]> tagValPairList = extractor.toTagValPair(buffer);
+    // the largest first, so that small files fill the tail of the run
+    final List<Path> scheduleList = new ArrayList<>(pathList);
+    scheduleList.sort(Comparator.comparing(sizeMap::get, Comparator.reverseOrder()));
+    final Map<Path, ForkJoinTask<List<T>>> taskMap = new HashMap<>();
+    for (final Path path : scheduleList) {
+      taskMap.put(path, pool.submit(() -> unmarshalParallel(path.toString(), charsetName, pool)));
+    }
 
-    final T result;
-    if (tagValPairList != null) {
-      final long hitBlockIndex = blockCount - extractor.getEndIndex() + extractor.getBeginIndex();
-      result = createInstance(hitBlockIndex, tagValPairList);
+    final Map<Path, List<T>> result = new LinkedHashMap<>();
+    try {
+      for (final Path path : pathList) {
+        result.put(path, taskMap.get(path).join());
+      }
+    } catch (final RuntimeException | Error e) {
+      for (final ForkJoinTask<List<T>> task : taskMap.values()) {
+        task.cancel(false);
+      }
+      throw e;
+    }
+    return result;
+  }
+
+  @Override
+  public Map<Path, List<T>> unmarshalFiles(Path dir, String glob, String charsetName,
+      ForkJoinPool pool) {
+
+    return unmarshalFiles(listFiles(dir, glob), charsetName, pool);
+  }
+
+  @Override
+  public List<T> unmarshalMerged(Collection<Path> paths, String charsetName, ForkJoinPool pool) {
+
+    final List<T> result = new ArrayList<>();
+    for (final List<T> list : unmarshalFiles(paths, charsetName, pool).values()) {
+      result.addAll(list);
+    }
+    return result;
+  }
+
+  @Override
+  public List<T> unmarshalMerged(Path dir, String glob, String charsetName, ForkJoinPool pool) {
 
+    return unmarshalMerged(listFiles(dir, glob), charsetName, pool);
+  }
+
+  /**
+   * regular files under dir whose relative path matches glob, sorted by path.
+   */
+  private static List<Path> listFiles(Path dir, String glob) {
+
+    Objects.requireNonNull(dir);
+    final PathMatcher matcher = dir.getFileSystem().getPathMatcher(
+        "glob:" + (glob == null ? "*" : glob));
+    try (Stream<Path> stream = Files.walk(dir, glob == null ? 1 : Integer.MAX_VALUE)) {
+      return stream.filter(Files::isRegularFile)
+          .filter(e -> matcher.matches(dir.relativize(e)))
+          .sorted()
+          .collect(Collectors.toList());
+    } catch (final IOException e) {
+      throw new BindException(e);
+    } catch (final UncheckedIOException e) {
+      throw new BindException(e.getCause());
+    }
+  }
+
+  /**
+   * unmarshal lines in [begin, end).<br>
+   * The window is filled with the <code>maxScanSize - 1</code> lines preceding the chunk, so that
+   * pattern set crossing the boundary is found by exactly one chunk.
+   */
+  private List<T> unmarshalChunk(FileChannel channel, Charset charset, long begin, long end,
+      long firstLine, boolean last) throws IOException {
+
+    final List<T> result = new ArrayList<>();
+    final Consumer<T> sink = result::add;
+    final ScanState state = new ScanState(firstLine);
+
+    final long overlapBegin = LineChunker.rewind(channel, begin, this.maxScanSize - 1);
+    if (overlapBegin < begin) {
+      try (LineSource source = newLineSource(channel, overlapBegin, begin, charset)) {
+        CharSequence line;
+        while ((line = source.readLine()) != null) {
+          state.prime(line);
+        }
+      }
+    }
+
+    try (LineSource source = newLineSource(channel, begin, end, charset)) {
+      CharSequence line;
+      while ((line = source.readLine()) != null) {
+        state.feed(line, sink);
+      }
+    }
+    if (last) {
+      state.finish(sink);
     } else {
-      result = null;
+      state.report();
     }
 
     return result;
   }
 
-  private T newIfTarget(RangeExtractPattern extractor, String target, long blockCount)
-      throws IllegalAccessException, InstantiationException {
+  /**
+   * open file as source of line views. the window keeps <code>maxScanSize</code> views.
+   * gzip and zip files are decompressed by background threads. lines of ASCII-compatible charset
+   * are split and matched on bytes.
+   */
+  private LineSource openLineSource(String filePath, String charsetName) throws IOException {
+
+    return openLineSource(filePath, charsetName, this.maxScanSize);
+  }
 
-    if (extractor == null) {
-      return null;
+  /**
+   * open file as source of line views.
+   * @param filePath    file
+   * @param charsetName charset. null for default.
+   * @param windowSize  number of the last views kept valid
+   * @return source
+   * @throws IOException failed to open
+   */
+  static LineSource openLineSource(String filePath, String charsetName, int windowSize)
+      throws IOException {
+
+    final Charset charset = toCharset(charsetName);
+    final Path path = Paths.get(filePath);
+    if (Files.isRegularFile(path)) {
+      final Format format = DecompressingInputStream.detect(path);
+      if (format != null) {
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        return new ReaderLineSource(new InputStreamReader(
+            DecompressingInputStream.open(path, format, pool, pool.getParallelism()), charset));
+      }
+      if (ByteLineSource.isSupported(charset)) {
+        return new ByteLineSource(path, charset, windowSize);
+      }
+      return new MappedLineSource(path, charset, windowSize);
     }
 
-    final ExtractInfo extractInfo = extractor.importAndGetTagValPairIfTarget(target);
+    return new ReaderLineSource(new InputStreamReader(new FileInputStream(filePath), charset));
+  }
+
+  /**
+   * open region of file as source of line views. lines of ASCII-compatible charset are split
+   * and matched on bytes.
+   */
+  private LineSource newLineSource(FileChannel channel, long begin, long end, Charset charset)
+      throws IOException {
+
+    if (ByteLineSource.isSupported(charset)) {
+      return new ByteLineSource(channel, begin, end, charset, this.maxScanSize);
+    }
+    return new MappedLineSource(channel, begin, end, charset, this.maxScanSize);
+  }
+
+  private static boolean isCompressed(String filePath) {
+    final Path path = Paths.get(filePath);
+    try {
+      return Files.isRegularFile(path) && DecompressingInputStream.detect(path) != null;
+    } catch (final IOException e) {
+      throw new BindException(e);
+    }
+  }
+
+  private static Charset toCharset(String charsetName) {
+
+    if (charsetName == null) {
+      return Charset.defaultCharset();
+    }
+    try {
+      return Charset.forName(charsetName);
+    } catch (final IllegalArgumentException e) {
+      throw new BindException(e);
+    }
+  }
+
+  /**
+   * create instance, or reset the reused one, and bind captured values.
+   * @param reused   instance to reuse. null to create new one.
+   * @param resetter resetter of reused instance
+   */
+  private T createInstance(long hitBlockIndex, Captures captures, T reused,
+      Consumer<T> resetter) throws BindException {
 
     final T result;
-    if (extractInfo != null && extractInfo.getTagValPairList() != null) {
-      final long hitBlockIndex = blockCount - extractInfo.getWidth() + 1;
-      result = createInstance(hitBlockIndex, extractInfo.getTagValPairList());
+    if (reused != null) {
+      resetter.accept(reused);
+      result = reused;
     } else {
-      result = null;
+      result = this.binder.newInstance();
+    }
+
+    if (this.countSlot >= 0) {
+      writeCounter(result, hitBlockIndex);
+    }
+
+    for (int i = 0; i < captures.size(); i++) {
+      final int slot = captures.slot(i);
+      final CharSequence source = captures.source(i);
+      if (slot >= 0 && source != null) {
+        // bind from region of the line
+        this.writerArr[slot].write(result, source, captures.begin(i), captures.end(i));
+      }
     }
 
     return result;
   }
 
-  private T createInstance(long hitBlockIndex, List<String[]> tagValPairList)
-      throws BindException, IllegalAccessException, InstantiationException {
+  /**
+   * bind captured values of one slot. used by lazy record, which binds a field on first read.
+   * @param target        instance
+   * @param slot          slot
+   * @param hitBlockIndex line number of the head of match, bound to counter
+   * @param captures      captured values
+   */
+  void bindSlot(T target, int slot, long hitBlockIndex, Captures captures)
+      throws BindException {
+
+    if (slot == this.countSlot) {
+      writeCounter(target, hitBlockIndex);
+      return;
+    }
+    for (int i = 0; i < captures.size(); i++) {
+      final CharSequence source = captures.source(i);
+      if (captures.slot(i) == slot && source != null) {
+        this.writerArr[slot].write(target, source, captures.begin(i), captures.end(i));
+      }
+    }
+  }
+
+  private void writeCounter(T target, long hitBlockIndex) {
+    if (this.longCounter) {
+      this.binder.setLong(target, this.countSlot, hitBlockIndex);
+    } else {
+      this.writerArr[this.countSlot].write(target, String.valueOf(hitBlockIndex));
+    }
+  }
+
+  /**
+   * state of one unmarshalling run.<br>
+   * lines are fed one by one, and each bound object is passed to the sink as soon as it is
+   * created. If a listener is registered, counts are reported every
+   * <code>REPORT_INTERVAL</code> lines and at the end, and time of each line and object is
+   * reported.
+   */
+  final class ScanState {
+
+    /** window of lines, sharing the result of each regex among pattern sets. */
+    private final LineWindow buffer;
+    private final RangeGroup rangeGroup;
+    /** result of each range pattern for the line being fed. */
+    private final ExtractInfo[] rangeResults;
+    /** store of captured values reused for each window. */
+    private final Captures captures = new Captures();
+    private long blockCount;
+    /** instance passed for every bound object. null to create new one for each. */
+    private T reused = null;
+    /** resets reused instance to the values of a new one. null if instance is not reused. */
+    private Consumer<T> resetter = null;
+    /** receives captured values instead of bound objects. null if absent. */
+    private ObjLongConsumer<Captures> captureSink = null;
+
+    /** listener of this run. null if nothing is measured. */
+    private final UnmarshalListener listener;
+    /** counts not reported yet. */
+    private long unreportedLines = 0;
+    private final long[] unreportedMatchArr;
+    private long reportedOpened = 0;
+    private long reportedCompleted = 0;
+    private long reportedExcluded = 0;
+    private long reportedLimited = 0;
+    private long unreportedExceeded = 0;
+    /**
+     * step budget of each line in the window and the line being fed, used in turn. null for
+     * no limit.
+     */
+    private final StepBudget[] budgetArr;
+    private int budgetIndex = 0;
+    /** time spent on binding while the current line is fed. */
+    private long lineBindNanos = 0;
+
+    ScanState() {
+      this(1);
+    }
+
+    /**
+     * Constructor to resume a run.
+     * @param saved snapshot of the run
+     */
+    ScanState(Checkpoint saved) {
+      this(saved.lineNumber);
+      for (final String line : saved.windowLines) {
+        prime(line);
+      }
+      if (this.rangeGroup != null) {
+        this.rangeGroup.restore(saved.ranges);
+      }
+    }
 
-    final T result = this.clazz.newInstance();
+    /**
+     * Constructor.
+     * @param firstBlockCount line number of the first line to be fed
+     */
+    ScanState(long firstBlockCount) {
+      this.blockCount = firstBlockCount;
+      if (UnmarshallerImpl.this.extractorArr != null) {
+        this.buffer = new LineWindow(UnmarshallerImpl.this.regexTable,
+            UnmarshallerImpl.this.maxScanSize);
+        for (int i = 0; i < UnmarshallerImpl.this.maxScanSize; i++) {
+          this.buffer.add(null, 0L);
+        }
+      } else {
+        this.buffer = null;
+      }
+
+      if (UnmarshallerImpl.this.templateRangeGroup != null) {
+        // create new local instance to maintain threadsafe.
+        this.rangeGroup = UnmarshallerImpl.this.templateRangeGroup.createClone();
+        this.rangeResults = new ExtractInfo[this.rangeGroup.size()];
+      } else {
+        this.rangeGroup = null;
+        this.rangeResults = null;
+      }
 
-    if (this.countField != null) {
-      if (long.class.equals(this.countField.getType())) {
-        this.countField.setLong(result, hitBlockIndex);
+      this.listener = UnmarshallerImpl.this.listener != null ? UnmarshallerImpl.this.listener
+          : Unmarshallers.getListener();
+      final int maxSteps = UnmarshallerImpl.this.stepBudget;
+      if (maxSteps > 0) {
+        // a budget is reset only after its line has left the window
+        this.budgetArr = new StepBudget[UnmarshallerImpl.this.maxScanSize + 1];
+        for (int i = 0; i < this.budgetArr.length; i++) {
+          this.budgetArr[i] = new StepBudget(maxSteps);
+        }
       } else {
-        bind(result, this.countField, String.valueOf(hitBlockIndex));
+        this.budgetArr = null;
       }
+      this.unreportedMatchArr = this.listener != null && this.buffer != null
+          ? new long[UnmarshallerImpl.this.extractorArr.length] : null;
+    }
+
+    /**
+     * pass one instance for all bound objects of this run.
+     * @return this
+     */
+    ScanState reuseInstance() {
+      final ClassBinder<T> binder = UnmarshallerImpl.this.binder;
+      this.reused = binder.newInstance();
+      this.resetter = SlotWriters.resetter(UnmarshallerImpl.this.bindingArr, binder,
+          binder.newInstance());
+      return this;
+    }
+
+    /**
+     * pass captured values to a sink instead of binding objects. an empty instance is passed to
+     * the sink of objects for each match instead.
+     * @param sink receives captured values and line number of the head of match. the values
+     *             are valid only until it returns.
+     * @return this
+     */
+    ScanState toCaptureSink(ObjLongConsumer<Captures> sink) {
+      this.reused = UnmarshallerImpl.this.binder.newInstance();
+      this.captureSink = sink;
+      return this;
     }
 
-    for (final String[] entry : tagValPairList) {
-      if (entry.length < 1) {
-        continue;
+    /**
+     * put line preceding the first line into the window without scanning.
+     * @param line line
+     */
+    void prime(CharSequence line) {
+      if (this.buffer != null) {
+        final LiteralFilter filter = UnmarshallerImpl.this.literalFilter;
+        this.buffer.add(line, filter != null ? filter.scan(line) : LiteralFilter.ALL,
+            nextBudget());
       }
-      final String tag = entry[0];
-      final String val = entry[1];
+    }
 
-      final Field f = this.taggedFieldMap.get(tag);
+    /**
+     * take budget for a new line. the line which used it before is counted if it was over
+     * budget.
+     * @return budget, or null for no limit
+     */
+    private StepBudget nextBudget() {
+      if (this.budgetArr == null) {
+        return null;
+      }
+      final StepBudget budget = this.budgetArr[this.budgetIndex];
+      this.budgetIndex = this.budgetIndex + 1 == this.budgetArr.length ? 0
+          : this.budgetIndex + 1;
+      countExceeded(budget);
+      return budget;
+    }
 
-      // bind
-      bind(result, f, val);
+    /** count line over budget, and reset the budget. */
+    private void countExceeded(StepBudget budget) {
+      if (budget.isExceeded()) {
+        this.unreportedExceeded++;
+      }
+      budget.reset();
     }
 
-    return result;
-  }
+    void feed(CharSequence line, Consumer<? super T> sink) {
+      final long begin;
+      if (this.listener != null) {
+        begin = System.nanoTime();
+        this.lineBindNanos = 0;
+      } else {
+        begin = 0L;
+      }
 
-  private boolean bind(T entity, Field f, String value)
-      throws BindException, IllegalAccessException {
+      final LiteralFilter filter = UnmarshallerImpl.this.literalFilter;
+      final long lineMask = filter != null ? filter.scan(line) : LiteralFilter.ALL;
+      // shared by pattern sets and range patterns
+      final StepBudget budget = nextBudget();
+      if (this.buffer != null) {
+        this.buffer.add(line, lineMask, budget);
+        scanWindow(sink);
+      }
+      if (this.rangeGroup != null) {
+        scanRanges(line, lineMask, budget, sink);
+      }
+      this.blockCount++;
 
-    if (entity == null || f == null || value == null) {
-      return false;
+      if (this.listener != null) {
+        this.listener.onRegexTime(UnmarshallerImpl.this.bindClass,
+            System.nanoTime() - begin - this.lineBindNanos);
+        if (++this.unreportedLines == REPORT_INTERVAL) {
+          report();
+        }
+      }
+    }
+
+    /**
+     * scan the lines remaining in the window after the last line, and report counts.
+     * @param sink receiver of bound objects
+     */
+    void finish(Consumer<? super T> sink) {
+      if (this.buffer != null) {
+        while (this.buffer.size() > 0) {
+          this.buffer.shift();
+          scanWindow(sink);
+          this.blockCount++;
+        }
+      }
+      if (this.budgetArr != null) {
+        for (final StepBudget budget : this.budgetArr) {
+          countExceeded(budget);
+        }
+      }
+      report();
     }
 
-    final Class<?> fClass = f.getType();
+    /**
+     * snapshot of this run at the head of a line.
+     * @param offset      byte offset of the line
+     * @param fingerprint checksum of the bytes preceding the line
+     * @return snapshot
+     */
+    Checkpoint snapshot(long offset, long fingerprint) {
+      final String[] windowLines = new String[this.buffer != null ? this.buffer.size() : 0];
+      for (int i = 0; i < windowLines.length; i++) {
+        final CharSequence line = this.buffer.get(i);
+        windowLines[i] = line != null ? line.toString() : null;
+      }
+      return new Checkpoint(UnmarshallerImpl.this.bindClass.getName(), offset, fingerprint,
+          this.blockCount, windowLines,
+          this.rangeGroup != null ? this.rangeGroup.getProgress() : null);
+    }
 
-    try {
-      if (fClass == List.class) {
-
-        final ParameterizedType listType = (ParameterizedType) f.getGenericType();
-        final Class<?> elementType = (Class<?>) listType.getActualTypeArguments()[0];
-        final Method method = fClass.getDeclaredMethod("add", Object.class);
-        List<?> listMember = (List<?>) f.get(entity);
-        if (listMember == null) {
-          listMember = new ArrayList<>();
-          f.set(entity, listMember);
+    /**
+     * report counts not reported yet to listener.
+     */
+    void report() {
+      if (this.listener == null) {
+        return;
+      }
+      final Class<T> clazz = UnmarshallerImpl.this.bindClass;
+      if (this.unreportedLines > 0) {
+        this.listener.onLinesRead(clazz, this.unreportedLines);
+        this.unreportedLines = 0;
+      }
+      if (this.unreportedExceeded > 0) {
+        this.listener.onBudgetExceeded(clazz, this.unreportedExceeded);
+        this.unreportedExceeded = 0;
+      }
+      if (this.unreportedMatchArr != null) {
+        for (int i = 0; i < this.unreportedMatchArr.length; i++) {
+          if (this.unreportedMatchArr[i] > 0) {
+            this.listener.onPatternSetMatched(clazz, i, this.unreportedMatchArr[i]);
+            this.unreportedMatchArr[i] = 0;
+          }
+        }
+      }
+      if (this.rangeGroup != null) {
+        final long opened = this.rangeGroup.getOpenedCount();
+        final long completed = this.rangeGroup.getCompletedCount();
+        final long excluded = this.rangeGroup.getExcludedCount();
+        if (opened > this.reportedOpened || completed > this.reportedCompleted
+            || excluded > this.reportedExcluded) {
+          this.listener.onRanges(clazz, opened - this.reportedOpened,
+              completed - this.reportedCompleted, excluded - this.reportedExcluded);
+          this.reportedOpened = opened;
+          this.reportedCompleted = completed;
+          this.reportedExcluded = excluded;
+        }
+        final long limited = this.rangeGroup.getLimitedCount();
+        if (limited > this.reportedLimited) {
+          this.listener.onRangesLimited(clazz, limited - this.reportedLimited);
+          this.reportedLimited = limited;
         }
-        final Object convertedValue = parse(elementType, value);
-        method.invoke(listMember, convertedValue);
+      }
+    }
 
-      } else {
-        final Object convertedValue = parse(fClass, value);
-        if (convertedValue != null) {
-          f.set(entity, convertedValue);
+    private void scanWindow(Consumer<? super T> sink) {
+      final ExtractPattern[] extractors = UnmarshallerImpl.this.extractorArr;
+      for (int i = 0; i < extractors.length; i++) {
+        final T entity = newIfTarget(extractors[i]);
+        if (entity != null) {
+          if (this.unreportedMatchArr != null) {
+            this.unreportedMatchArr[i]++;
+          }
+          sink.accept(entity);
         }
       }
-    } catch (final NumberFormatException e1) {
-      throw new BindException("Fail binding to field.");
-    } catch (NoSuchMethodException | SecurityException | InvocationTargetException e2) {
-      throw new BindException(e2);
     }
 
-    return true;
-  }
+    private T newIfTarget(ExtractPattern extractor) {
+
+      if (extractor == null) {
+        return null;
+      }
 
-  private Object parse(Class<?> fclass, String value) throws NumberFormatException {
+      this.captures.clear();
+
+      final T result;
+      if (extractor.toTagValPair(this.buffer, this.captures)) {
+        final long hitBlockIndex = this.blockCount - extractor.getEndIndex()
+            + extractor.getBeginIndex();
+        result = instantiate(hitBlockIndex, this.captures);
+
+      } else {
+        result = null;
+      }
 
-    if (fclass == null || value == null) {
-      throw new IllegalArgumentException();
+      return result;
     }
 
-    final Object result;
+    /**
+     * feed line to all range patterns at once, and bind the ranges ending at the line in the
+     * order of declaration.
+     */
+    private void scanRanges(CharSequence line, long lineMask, StepBudget budget,
+        Consumer<? super T> sink) {
+      final ExtractInfo[] results = this.rangeResults;
+      this.rangeGroup.importAndGetTagValPairIfTarget(line, lineMask, budget, results);
+      for (int i = 0; i < results.length; i++) {
+        final ExtractInfo extractInfo = results[i];
+        if (extractInfo != null && extractInfo.getCaptures() != null) {
+          final long hitBlockIndex = this.blockCount - extractInfo.getWidth() + 1;
+          final T entity = instantiate(hitBlockIndex, extractInfo.getCaptures());
+          if (entity != null) {
+            sink.accept(entity);
+          }
+        }
+      }
+    }
 
-    if (fclass == String.class) {
-      result = value;
+    private T instantiate(long hitBlockIndex, Captures values) throws BindException {
+      if (this.listener == null) {
+        return bind(hitBlockIndex, values);
+      }
 
-    } else if (fclass == Character.class || (!value.isEmpty() && fclass == char.class)) {
-      result = Character.valueOf(value.charAt(0));
+      final Class<T> clazz = UnmarshallerImpl.this.bindClass;
+      final long begin = System.nanoTime();
+      try {
+        return bind(hitBlockIndex, values);
+      } catch (final BindException e) {
+        report();
+        this.listener.onBindFailure(clazz, hitBlockIndex, e);
+        throw e;
+      } finally {
+        final long elapsed = System.nanoTime() - begin;
+        this.lineBindNanos += elapsed;
+        this.listener.onBindTime(clazz, elapsed);
+      }
+    }
 
-    } else if (fclass == Boolean.class || (!value.isEmpty() && fclass == boolean.class)) {
-      result = Boolean.valueOf(value);
+    private T bind(long hitBlockIndex, Captures values) throws BindException {
+      if (this.captureSink != null) {
+        this.captureSink.accept(values, hitBlockIndex);
+        return this.reused;
+      }
+      return createInstance(hitBlockIndex, values, this.reused, this.resetter);
+    }
+  }
 
-    } else {
-      final String trimValue = value.trim();
-      if (!trimValue.isEmpty()) {
+  private final class LazyIterator implements CloseableIterator<T> {
+
+    private final LineSource source;
+    private final ScanState state = new ScanState();
+    private final ArrayDeque<T> pending = new ArrayDeque<>();
+    private final Consumer<T> sink = this.pending::add;
+    private boolean eof = false;
+
+    LazyIterator(LineSource source) {
+      this.source = source;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (this.pending.isEmpty() && !this.eof) {
+        final CharSequence line;
         try {
-          if (fclass == Byte.class || fclass == byte.class) {
-            result = Byte.valueOf(trimValue);
+          line = this.source.readLine();
+        } catch (final IOException e) {
+          close();
+          throw new BindException(e);
+        }
+        if (line != null) {
+          this.state.feed(line, this.sink);
+        } else {
+          this.state.finish(this.sink);
+          closeReader();
+        }
+      }
+      return !this.pending.isEmpty();
+    }
 
-          } else if (fclass == Short.class || fclass == short.class) {
-            result = Short.valueOf(trimValue);
+    @Override
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return this.pending.poll();
+    }
 
-          } else if (fclass == Integer.class || fclass == int.class) {
-            result = Integer.valueOf(trimValue);
+    @Override
+    public void close() {
+      this.pending.clear();
+      if (!this.eof) {
+        this.state.report();
+      }
+      closeReader();
+    }
 
-          } else if (fclass == Long.class || fclass == long.class) {
-            result = Long.valueOf(trimValue);
+    private void closeReader() {
+      if (this.eof) {
+        return;
+      }
+      this.eof = true;
+      try {
+        this.source.close();
+      } catch (final IOException e) {
+        throw new BindException(e);
+      }
+    }
+  }
 
-          } else if (fclass == Float.class || fclass == float.class) {
-            result = Float.valueOf(trimValue);
+  private final class FollowerImpl implements Follower<T> {
+
+    private final Path path;
+    private final Charset charset;
+    private final Consumer<? super T> sink;
+    private ScanState state = new ScanState();
+    /** offset of the head of the next line. */
+    private long offset = 0;
+    /** identity of the file read last. null if unknown. */
+    private Object fileKey = null;
+    private boolean closed = false;
+
+    FollowerImpl(Path path, Charset charset, Consumer<? super T> sink) {
+      this.path = path;
+      this.charset = charset;
+      this.sink = sink;
+    }
 
-          } else if (fclass == Double.class || fclass == double.class) {
-            result = Double.valueOf(trimValue);
+    @Override
+    public synchronized int poll() {
+      if (this.closed) {
+        throw new IllegalStateException("closed");
+      }
+
+      try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+        final Object key = Files.readAttributes(this.path, BasicFileAttributes.class).fileKey();
+        final long size = channel.size();
+        if (size < this.offset || (key != null && this.fileKey != null
+            && !key.equals(this.fileKey))) {
+          // truncated or rotated. the lines read so far are complete.
+          this.state.finish(this.sink);
+          this.state = new ScanState();
+          this.offset = 0;
+        }
+        this.fileKey = key;
 
-          } else {
-            throw new BindException("Unsupported Type. " + fclass.getName());
+        final long end = LineChunker.lastLineEnd(channel, this.offset, size);
+        if (end <= this.offset) {
+          return 0;
+        }
+        // views of the previous poll stay valid in the window, because a closed source never
+        // overwrites its buffer.
+        int count = 0;
+        try (LineSource source = newLineSource(channel, this.offset, end, this.charset)) {
+          CharSequence line;
+          while ((line = source.readLine()) != null) {
+            this.state.feed(line, this.sink);
+            count++;
           }
-        } catch (final SecurityException e) {
-          throw new BindException(e);
         }
-      } else {
-        result = null;
+        this.offset = end;
+        this.state.report();
+        return count;
+
+      } catch (final NoSuchFileException e) {
+        return 0;
+      } catch (final IOException e) {
+        throw new BindException(e);
       }
     }
 
-    return result;
+    @Override
+    public synchronized long getOffset() {
+      return this.offset;
+    }
+
+    @Override
+    public synchronized long getLineNumber() {
+      return this.state.blockCount;
+    }
+
+    @Override
+    public synchronized void close() {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      this.state.finish(this.sink);
+    }
   }
 }
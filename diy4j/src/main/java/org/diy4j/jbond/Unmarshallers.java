@@ -1,9 +1,24 @@
 package org.diy4j.jbond;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 
+import org.diy4j.jbond.annotation.Pattern;
+import org.diy4j.jbond.annotation.PatternCollection;
+import org.diy4j.jbond.annotation.PatternSet;
+import org.diy4j.jbond.annotation.RangePattern;
+import org.diy4j.jbond.annotation.RangePatterns;
+import org.diy4j.util.PackageScanner;
+
 public final class Unmarshallers {
 
+  /** listener of unmarshallers without their own listener. null if absent. */
+  private static volatile UnmarshalListener listener = null;
+
   private Unmarshallers() {
   }
 
@@ -22,4 +37,100 @@ public final class Unmarshallers {
     return u;
   }
 
+  /**
+   * get unmarshaller of several annotated classes which reads each line once.
+   * @param classes config. duplicates are ignored.
+   * @return unmarshaller
+   */
+  public static CompositeUnmarshaller getCompositeUnmarshaller(Class<?>... classes) {
+
+    Objects.requireNonNull(classes);
+
+    final List<UnmarshallerImpl<?>> memberList = new ArrayList<>();
+    for (final Class<?> clazz : new LinkedHashSet<>(Arrays.asList(classes))) {
+      memberList.add(UnmarshallerFactory4AnnotatedClass.getInstance()
+          .getUnmarshaller(Objects.requireNonNull(clazz)));
+    }
+
+    return new CompositeUnmarshallerImpl(memberList);
+  }
+
+  /**
+   * build unmarshallers of classes and run their matching on a few lines, so that the first use
+   * does not pay for reflection, regex compilation and class loading. the lines are made of the
+   * literals required by the regexes, and are neither bound nor reported to listener.
+   * @param classes config
+   * @return unmarshallers in the order of classes
+   * @throws BindConfigException config of a class is invalid
+   */
+  public static List<Unmarshaller<?>> prewarm(Class<?>... classes) {
+
+    Objects.requireNonNull(classes);
+
+    final List<Unmarshaller<?>> result = new ArrayList<>(classes.length);
+    for (final Class<?> clazz : classes) {
+      final UnmarshallerImpl<?> u = UnmarshallerFactory4AnnotatedClass.getInstance()
+          .getUnmarshaller(Objects.requireNonNull(clazz));
+      u.warmUp();
+      result.add(u);
+    }
+    return result;
+  }
+
+  /**
+   * prewarm unmarshallers of the classes with pattern annotations in package and its
+   * subpackages. see {@link #prewarm(Class...)}.
+   * @param packageName package
+   * @param loader      class loader to find classes. null for the loader of the current thread.
+   * @return unmarshallers in the order of class name
+   */
+  public static List<Unmarshaller<?>> prewarm(String packageName, ClassLoader loader) {
+
+    Objects.requireNonNull(packageName);
+
+    final List<Class<?>> classes;
+    try {
+      classes = PackageScanner.findClasses(packageName,
+          loader != null ? loader : Thread.currentThread().getContextClassLoader());
+    } catch (final IOException e) {
+      throw new BindConfigException(e);
+    }
+    final List<Class<?>> targetList = new ArrayList<>();
+    for (final Class<?> clazz : classes) {
+      if (clazz.isAnnotationPresent(PatternSet.class) || clazz.isAnnotationPresent(Pattern.class)
+          || clazz.isAnnotationPresent(PatternCollection.class)
+          || clazz.isAnnotationPresent(RangePattern.class)
+          || clazz.isAnnotationPresent(RangePatterns.class)) {
+        targetList.add(clazz);
+      }
+    }
+    return prewarm(targetList.toArray(new Class<?>[targetList.size()]));
+  }
+
+  /**
+   * discard cached unmarshaller of class, e.g. before its class loader is unloaded.
+   * unmarshallers already returned are still usable.
+   * @param clazz config
+   * @return true if cached
+   */
+  public static boolean evict(Class<?> clazz) {
+    return UnmarshallerFactory4AnnotatedClass.getInstance().evict(clazz);
+  }
+
+  public static void evictAll() {
+    UnmarshallerFactory4AnnotatedClass.getInstance().evictAll();
+  }
+
+  /**
+   * register listener of all unmarshallers. an unmarshaller with its own listener does not report
+   * to this. runs already started are not affected.
+   * @param newListener listener. null to unregister.
+   */
+  public static void setListener(UnmarshalListener newListener) {
+    listener = newListener;
+  }
+
+  public static UnmarshalListener getListener() {
+    return listener;
+  }
 }
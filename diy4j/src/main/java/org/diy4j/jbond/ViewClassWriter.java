@@ -0,0 +1,306 @@
+package org.diy4j.jbond;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * writes class file of view class, which implements a view interface over a
+ * {@link LazyRecord}.<br>
+ * The class has a constructor which takes the record, and each getter reads the slot of its
+ * field with <code>LazyRecord.get(int)</code>, unboxing primitive value. <code>toString</code>
+ * is delegated to the record. The code has no branch, so no stack map is written.
+ */
+final class ViewClassWriter {
+
+  private static final int MAGIC = 0xCAFEBABE;
+  /** class file version of Java 8. */
+  private static final int MAJOR_VERSION = 52;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+
+  private static final int TAG_UTF8 = 1;
+  private static final int TAG_INTEGER = 3;
+  private static final int TAG_CLASS = 7;
+  private static final int TAG_FIELDREF = 9;
+  private static final int TAG_METHODREF = 10;
+  private static final int TAG_NAME_AND_TYPE = 12;
+
+  private static final int ICONST_0 = 0x03;
+  private static final int BIPUSH = 0x10;
+  private static final int SIPUSH = 0x11;
+  private static final int LDC_W = 0x13;
+  private static final int ALOAD_0 = 0x2a;
+  private static final int ALOAD_1 = 0x2b;
+  private static final int IRETURN = 0xac;
+  private static final int LRETURN = 0xad;
+  private static final int FRETURN = 0xae;
+  private static final int DRETURN = 0xaf;
+  private static final int ARETURN = 0xb0;
+  private static final int RETURN = 0xb1;
+  private static final int GETFIELD = 0xb4;
+  private static final int PUTFIELD = 0xb5;
+  private static final int INVOKEVIRTUAL = 0xb6;
+  private static final int INVOKESPECIAL = 0xb7;
+  private static final int CHECKCAST = 0xc0;
+
+  private static final String OBJECT = "java/lang/Object";
+  private static final String RECORD = LazyRecord.class.getName().replace('.', '/');
+  private static final String RECORD_DESC = "L" + RECORD + ";";
+  private static final String RECORD_FIELD = "record";
+
+  private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+  private final DataOutputStream pool = new DataOutputStream(this.poolBytes);
+  /** index of each constant written to pool. */
+  private final Map<String, Integer> indexMap = new HashMap<>();
+  private int poolCount = 1;
+
+  private ViewClassWriter() {
+  }
+
+  /**
+   * write class file.
+   * @param className binary name of view class
+   * @param viewType  public interface
+   * @param getterArr getters of the interface, without duplicate signature
+   * @param slotArr   slot read by each getter
+   * @return class file
+   */
+  static byte[] write(String className, Class<?> viewType, Method[] getterArr, int[] slotArr) {
+    try {
+      return new ViewClassWriter().writeClass(className.replace('.', '/'), viewType, getterArr,
+          slotArr);
+    } catch (final IOException e) {
+      // not thrown by byte array stream
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private byte[] writeClass(String name, Class<?> viewType, Method[] getterArr, int[] slotArr)
+      throws IOException {
+
+    final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+    final DataOutputStream methods = new DataOutputStream(methodBytes);
+    final int recordField = memberRef(TAG_FIELDREF, name, RECORD_FIELD, RECORD_DESC);
+
+    final ByteArrayOutputStream initBytes = new ByteArrayOutputStream();
+    final DataOutputStream init = new DataOutputStream(initBytes);
+    init.writeByte(ALOAD_0);
+    init.writeByte(INVOKESPECIAL);
+    init.writeShort(memberRef(TAG_METHODREF, OBJECT, "<init>", "()V"));
+    init.writeByte(ALOAD_0);
+    init.writeByte(ALOAD_1);
+    init.writeByte(PUTFIELD);
+    init.writeShort(recordField);
+    init.writeByte(RETURN);
+    writeMethod(methods, ACC_PUBLIC, "<init>", "(" + RECORD_DESC + ")V", 2, 2, initBytes);
+
+    final int recordGet = memberRef(TAG_METHODREF, RECORD, "get", "(I)Ljava/lang/Object;");
+    for (int i = 0; i < getterArr.length; i++) {
+      final Class<?> returnType = getterArr[i].getReturnType();
+      final ByteArrayOutputStream getterBytes = new ByteArrayOutputStream();
+      final DataOutputStream getter = new DataOutputStream(getterBytes);
+      getter.writeByte(ALOAD_0);
+      getter.writeByte(GETFIELD);
+      getter.writeShort(recordField);
+      pushInt(getter, slotArr[i]);
+      getter.writeByte(INVOKEVIRTUAL);
+      getter.writeShort(recordGet);
+      if (returnType.isPrimitive()) {
+        final Class<?> wrapperType = wrapperOf(returnType);
+        getter.writeByte(CHECKCAST);
+        getter.writeShort(classRef(internalName(wrapperType)));
+        getter.writeByte(INVOKEVIRTUAL);
+        getter.writeShort(memberRef(TAG_METHODREF, internalName(wrapperType),
+            returnType.getName() + "Value", "()" + descriptor(returnType)));
+        getter.writeByte(returnOpcode(returnType));
+      } else {
+        if (returnType != Object.class) {
+          getter.writeByte(CHECKCAST);
+          getter.writeShort(classRef(internalName(returnType)));
+        }
+        getter.writeByte(ARETURN);
+      }
+      writeMethod(methods, ACC_PUBLIC | ACC_FINAL, getterArr[i].getName(),
+          "()" + descriptor(returnType), 2, 1, getterBytes);
+    }
+
+    final ByteArrayOutputStream toStringBytes = new ByteArrayOutputStream();
+    final DataOutputStream toString = new DataOutputStream(toStringBytes);
+    toString.writeByte(ALOAD_0);
+    toString.writeByte(GETFIELD);
+    toString.writeShort(recordField);
+    toString.writeByte(INVOKEVIRTUAL);
+    toString.writeShort(memberRef(TAG_METHODREF, RECORD, "toString", "()Ljava/lang/String;"));
+    toString.writeByte(ARETURN);
+    writeMethod(methods, ACC_PUBLIC, "toString", "()Ljava/lang/String;", 1, 1, toStringBytes);
+
+    final int thisClass = classRef(name);
+    final int superClass = classRef(OBJECT);
+    final int viewClass = classRef(internalName(viewType));
+    final int fieldName = utf8(RECORD_FIELD);
+    final int fieldDesc = utf8(RECORD_DESC);
+
+    final ByteArrayOutputStream classBytes = new ByteArrayOutputStream();
+    final DataOutputStream out = new DataOutputStream(classBytes);
+    out.writeInt(MAGIC);
+    out.writeShort(0);
+    out.writeShort(MAJOR_VERSION);
+    out.writeShort(this.poolCount);
+    this.poolBytes.writeTo(out);
+    out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+    out.writeShort(thisClass);
+    out.writeShort(superClass);
+    out.writeShort(1);
+    out.writeShort(viewClass);
+    // field of record
+    out.writeShort(1);
+    out.writeShort(ACC_PRIVATE | ACC_FINAL);
+    out.writeShort(fieldName);
+    out.writeShort(fieldDesc);
+    out.writeShort(0);
+    // constructor, getters and toString
+    out.writeShort(getterArr.length + 2);
+    methodBytes.writeTo(out);
+    out.writeShort(0);
+    return classBytes.toByteArray();
+  }
+
+  private void writeMethod(DataOutputStream out, int access, String name, String desc,
+      int maxStack, int maxLocals, ByteArrayOutputStream code) throws IOException {
+    final int codeLength = code.size();
+    out.writeShort(access);
+    out.writeShort(utf8(name));
+    out.writeShort(utf8(desc));
+    out.writeShort(1);
+    out.writeShort(utf8("Code"));
+    // max_stack, max_locals, code_length, code, exception_table_length, attributes_count
+    out.writeInt(2 + 2 + 4 + codeLength + 2 + 2);
+    out.writeShort(maxStack);
+    out.writeShort(maxLocals);
+    out.writeInt(codeLength);
+    code.writeTo(out);
+    out.writeShort(0);
+    out.writeShort(0);
+  }
+
+  private void pushInt(DataOutputStream code, int value) throws IOException {
+    if (value <= 5) {
+      code.writeByte(ICONST_0 + value);
+    } else if (value <= Byte.MAX_VALUE) {
+      code.writeByte(BIPUSH);
+      code.writeByte(value);
+    } else if (value <= Short.MAX_VALUE) {
+      code.writeByte(SIPUSH);
+      code.writeShort(value);
+    } else {
+      code.writeByte(LDC_W);
+      code.writeShort(constant("I" + value, TAG_INTEGER, value, 0));
+    }
+  }
+
+  private int utf8(String value) throws IOException {
+    final String key = "U" + value;
+    final Integer index = this.indexMap.get(key);
+    if (index != null) {
+      return index;
+    }
+    this.pool.writeByte(TAG_UTF8);
+    this.pool.writeUTF(value);
+    this.indexMap.put(key, this.poolCount);
+    return this.poolCount++;
+  }
+
+  private int classRef(String internalName) throws IOException {
+    return constant("C" + internalName, TAG_CLASS, utf8(internalName), -1);
+  }
+
+  private int memberRef(int tag, String owner, String name, String desc) throws IOException {
+    final int classIndex = classRef(owner);
+    final int nameAndType = constant("N" + name + ' ' + desc, TAG_NAME_AND_TYPE, utf8(name),
+        utf8(desc));
+    return constant(tag + owner + ' ' + name + ' ' + desc, tag, classIndex, nameAndType);
+  }
+
+  /**
+   * add constant to pool unless it exists.
+   * @param key    key of constant
+   * @param tag    tag
+   * @param first  integer, or first index of reference
+   * @param second second index of reference. negative if the constant has one index
+   * @return index of constant
+   */
+  private int constant(String key, int tag, int first, int second) throws IOException {
+    final Integer index = this.indexMap.get(key);
+    if (index != null) {
+      return index;
+    }
+    this.pool.writeByte(tag);
+    if (tag == TAG_INTEGER) {
+      this.pool.writeInt(first);
+    } else {
+      this.pool.writeShort(first);
+      if (second >= 0) {
+        this.pool.writeShort(second);
+      }
+    }
+    this.indexMap.put(key, this.poolCount);
+    return this.poolCount++;
+  }
+
+  private static String internalName(Class<?> type) {
+    return type.getName().replace('.', '/');
+  }
+
+  private static String descriptor(Class<?> type) {
+    if (type.isArray()) {
+      return internalName(type);
+    }
+    if (!type.isPrimitive()) {
+      return "L" + internalName(type) + ";";
+    }
+    if (type == boolean.class) {
+      return "Z";
+    } else if (type == long.class) {
+      return "J";
+    }
+    return String.valueOf(Character.toUpperCase(type.getName().charAt(0)));
+  }
+
+  private static Class<?> wrapperOf(Class<?> type) {
+    if (type == boolean.class) {
+      return Boolean.class;
+    } else if (type == char.class) {
+      return Character.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == float.class) {
+      return Float.class;
+    }
+    return Double.class;
+  }
+
+  private static int returnOpcode(Class<?> type) {
+    if (type == long.class) {
+      return LRETURN;
+    } else if (type == float.class) {
+      return FRETURN;
+    } else if (type == double.class) {
+      return DRETURN;
+    }
+    return IRETURN;
+  }
+}
@@ -0,0 +1,15 @@
+package org.diy4j.jbond.annotation;
+
+/**
+ * what to do with an open range of {@link RangePattern} which reaches a limit.
+ * the values of the line reaching the limit are not added to the range. a start line whose own
+ * values exceed the limit is handled as the range of the line, and nothing is bound for it.
+ */
+public enum LimitPolicy {
+  /** drop the range, and skip lines until its end or excluded line. */
+  DISCARD,
+  /** bind the values captured so far, and look for the next start from the line reaching it. */
+  EMIT_PARTIAL,
+  /** drop the range, and look for the next start from the line reaching it. */
+  RESTART
+}
@@ -1,12 +1,14 @@
 package org.diy4j.jbond.annotation;
 
 import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.TYPE)
+@Repeatable(RangePatterns.class)
 public @interface RangePattern {
   String start();
 
@@ -17,4 +19,15 @@ public @interface RangePattern {
   String[] excluded() default {};
 
   String end();
+
+  /** upper limit of lines in an open range, including start line. 0 for no limit. */
+  int maxLines() default 0;
+
+  /** upper limit of values captured in an open range. 0 for no limit. */
+  int maxCaptures() default 0;
+
+  /** upper limit of total length of values captured in an open range. 0 for no limit. */
+  int maxCapturedChars() default 0;
+
+  LimitPolicy onLimit() default LimitPolicy.DISCARD;
 }
@@ -0,0 +1,16 @@
+package org.diy4j.jbond.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * container of repeated {@link RangePattern}. all ranges are read in one pass over lines, and
+ * the objects bound from the ranges ending at the same line are passed in declaration order.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RangePatterns {
+  RangePattern[] value();
+}
@@ -2,6 +2,7 @@ package org.diy4j.jbond.config;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,7 +17,7 @@ public class BindConfig<T> {
 
   private Map<String, Field> taggedFieldMap;
   private List<ExtractPattern> extractorList;
-  private RangeExtractPattern rangeExtractor;
+  private List<RangeExtractPattern> rangeExtractorList;
   private List<String> violationMsgList;
 
   public BindConfig(Class<T> clazz) {
@@ -46,7 +47,12 @@ public class BindConfig<T> {
     if (config == null) {
       return;
     }
-    this.rangeExtractor = config;
+    if (this.rangeExtractorList == null) {
+      this.rangeExtractorList = new ArrayList<>();
+    }
+    if (!this.rangeExtractorList.contains(config)) {
+      this.rangeExtractorList.add(config);
+    }
     if (config.containsTag(Tag.COUNTER)) {
       if (this.violationMsgList == null) {
         this.violationMsgList = new ArrayList<>();
@@ -91,8 +97,13 @@ public class BindConfig<T> {
           }
         }
       }
-      if (!found && this.rangeExtractor != null) {
-        found |= this.rangeExtractor.containsTag(tag);
+      if (!found && this.rangeExtractorList != null) {
+        for (final RangeExtractPattern ex : this.rangeExtractorList) {
+          found |= ex.containsTag(tag);
+          if (found) {
+            break;
+          }
+        }
       }
       if (!found) {
         if (!tag.equals(Tag.COUNTER)) {
@@ -129,12 +140,67 @@ public class BindConfig<T> {
     return this.taggedFieldMap;
   }
 
+  /**
+   * get tags bound to field, in slot order.
+   * slot index of a tag is its index in this array.
+   * @return sorted tags
+   */
+  public String[] getSlotTags() {
+    if (this.taggedFieldMap == null) {
+      return new String[0];
+    }
+    final String[] tagArr = this.taggedFieldMap.keySet()
+        .toArray(new String[this.taggedFieldMap.size()]);
+    Arrays.sort(tagArr);
+    return tagArr;
+  }
+
+  /**
+   * get fields in slot order.
+   * @return fields
+   */
+  public Field[] getSlotFields() {
+    final String[] tagArr = getSlotTags();
+    final Field[] fieldArr = new Field[tagArr.length];
+    for (int i = 0; i < tagArr.length; i++) {
+      fieldArr[i] = this.taggedFieldMap.get(tagArr[i]);
+    }
+    return fieldArr;
+  }
+
+  /**
+   * get conversion plan of bound fields in slot order.
+   * @return plan of each slot
+   * @throws BindConfigException if type of field is not supported
+   */
+  public SlotBinding[] getSlotBindings() throws BindConfigException {
+    final String[] tagArr = getSlotTags();
+    final SlotBinding[] bindingArr = new SlotBinding[tagArr.length];
+    for (int i = 0; i < tagArr.length; i++) {
+      bindingArr[i] = SlotBinding.of(i, tagArr[i], this.taggedFieldMap.get(tagArr[i]));
+    }
+    return bindingArr;
+  }
+
+  /**
+   * get slot index of tag.
+   * @param tag tag
+   * @return slot index, or -1 if tag is not bound to field
+   */
+  public int slotOf(String tag) {
+    if (tag == null || this.taggedFieldMap == null || !this.taggedFieldMap.containsKey(tag)) {
+      return -1;
+    }
+    return Arrays.binarySearch(getSlotTags(), tag);
+  }
+
   public List<ExtractPattern> getExtractorList() {
     return this.extractorList;
   }
 
-  public RangeExtractPattern getRangeExtractor() {
-    return this.rangeExtractor;
+  /** range patterns in the order of registration. null if absent. */
+  public List<RangeExtractPattern> getRangeExtractorList() {
+    return this.rangeExtractorList;
   }
 
   public static interface Tag {
@@ -0,0 +1,120 @@
+package org.diy4j.jbond.config;
+
+import java.util.Arrays;
+
+/**
+ * values captured by named groups, paired with the slot index of the field bound to the tag.<br>
+ * A value is kept as a region of the matched line, and the string is created only when
+ * requested by <code>value</code>, so that numbers are parsed from the line directly. The region
+ * is valid while the line is in the window.
+ * Instance is reused by clearing, so it is not threadsafe.
+ */
+public final class Captures {
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  private int[] slotArr = new int[INITIAL_CAPACITY];
+  private CharSequence[] sourceArr = new CharSequence[INITIAL_CAPACITY];
+  private int[] beginArr = new int[INITIAL_CAPACITY];
+  private int[] endArr = new int[INITIAL_CAPACITY];
+  /** string of region, created lazily. */
+  private String[] valueArr = new String[INITIAL_CAPACITY];
+  private int size = 0;
+
+  public void add(int slot, String value) {
+    add(slot, value, 0, value == null ? 0 : value.length());
+    this.valueArr[this.size - 1] = value;
+  }
+
+  /**
+   * add region of captured text.
+   * @param slot   slot of field
+   * @param source matched line
+   * @param begin  begin of region
+   * @param end    end of region, exclusive
+   */
+  public void add(int slot, CharSequence source, int begin, int end) {
+    if (this.size == this.slotArr.length) {
+      final int capacity = this.size * 2;
+      this.slotArr = Arrays.copyOf(this.slotArr, capacity);
+      this.sourceArr = Arrays.copyOf(this.sourceArr, capacity);
+      this.beginArr = Arrays.copyOf(this.beginArr, capacity);
+      this.endArr = Arrays.copyOf(this.endArr, capacity);
+      this.valueArr = Arrays.copyOf(this.valueArr, capacity);
+    }
+    this.slotArr[this.size] = slot;
+    this.sourceArr[this.size] = source;
+    this.beginArr[this.size] = begin;
+    this.endArr[this.size] = end;
+    this.valueArr[this.size] = null;
+    this.size++;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  public int slot(int index) {
+    checkIndex(index);
+    return this.slotArr[index];
+  }
+
+  public String value(int index) {
+    checkIndex(index);
+    String value = this.valueArr[index];
+    if (value == null && this.sourceArr[index] != null) {
+      value = this.sourceArr[index].subSequence(this.beginArr[index], this.endArr[index])
+          .toString();
+      this.valueArr[index] = value;
+    }
+    return value;
+  }
+
+  /** line which contains the value. */
+  public CharSequence source(int index) {
+    checkIndex(index);
+    return this.sourceArr[index];
+  }
+
+  public int begin(int index) {
+    checkIndex(index);
+    return this.beginArr[index];
+  }
+
+  public int end(int index) {
+    checkIndex(index);
+    return this.endArr[index];
+  }
+
+  public void clear() {
+    truncate(0);
+  }
+
+  /**
+   * discard values captured after <code>newSize</code>.
+   * @param newSize size to keep
+   */
+  void truncate(int newSize) {
+    Arrays.fill(this.sourceArr, newSize, this.size, null);
+    Arrays.fill(this.valueArr, newSize, this.size, null);
+    this.size = newSize;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= this.size) {
+      throw new IndexOutOfBoundsException("index=" + index + ", size=" + this.size);
+    }
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("Captures [");
+    for (int i = 0; i < this.size; i++) {
+      if (i > 0) {
+        sb.append(", ");
+      }
+      sb.append(this.slotArr[i]).append('=').append(value(i));
+    }
+    return sb.append(']').toString();
+  }
+}
@@ -1,8 +1,9 @@
 package org.diy4j.jbond.config;
 
-import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.ToIntFunction;
 
 public class ExtractPattern {
 
@@ -54,31 +55,80 @@ public class ExtractPattern {
     return false;
   }
 
-  public List<String[]> toTagValPair(List<String> buffer) {
+  /**
+   * create pattern whose captured values are bound to slot.
+   * @param slotResolver returns slot index of tag, or negative value if tag is not bound
+   * @param table        table to register regexes
+   * @return linked pattern
+   */
+  public ExtractPattern link(ToIntFunction<String> slotResolver, RegexTable table) {
+    final PatternConfig[] linkedArr = new PatternConfig[this.patternConfigArr.length];
+    for (int i = 0; i < linkedArr.length; i++) {
+      if (this.patternConfigArr[i] != null) {
+        linkedArr[i] = this.patternConfigArr[i].link(slotResolver, table);
+      }
+    }
+    return new ExtractPattern(linkedArr);
+  }
+
+  void collectLiterals(Collection<String> dest) {
+    for (final PatternConfig cfg : this.patternConfigArr) {
+      if (cfg != null) {
+        cfg.collectLiterals(dest);
+      }
+    }
+  }
+
+
+  /**
+   * match all patterns with the window, and add captured values to <code>captures</code>.
+   * @param buffer   window of lines
+   * @param captures store of captured values. unchanged if not matched.
+   * @return true if all patterns matched
+   */
+  public boolean toTagValPair(List<? extends CharSequence> buffer, Captures captures) {
 
     if (buffer == null || this.patternConfigArr == null || this.patternConfigArr.length == 0) {
-      return null;
+      return false;
     }
 
-    List<String[]> tagValPairList = null;
+    final int mark = captures.size();
 
     // And Matching
     for (final PatternConfig cfg : this.patternConfigArr) {
-      // get captured value
-      final String[][] tagValPair = cfg.extract(buffer);
-      if (tagValPair != null) {
-        if (tagValPairList == null) {
-          tagValPairList = new ArrayList<>(2);
-        }
-        for (final String[] entry : tagValPair) {
-          tagValPairList.add(entry);
-        }
-      } else {
-        return null;
+      if (!cfg.extract(buffer, captures)) {
+        captures.truncate(mark);
+        return false;
       }
     }
 
-    return tagValPairList;
+    return true;
+  }
+
+  /**
+   * match all patterns with the window, sharing the result of each regex and line among
+   * pattern sets.
+   * @param window   window of lines
+   * @param captures store of captured values. unchanged if not matched.
+   * @return true if all patterns matched
+   */
+  public boolean toTagValPair(LineWindow window, Captures captures) {
+
+    if (window == null || this.patternConfigArr == null || this.patternConfigArr.length == 0) {
+      return false;
+    }
+
+    final int mark = captures.size();
+
+    // And Matching
+    for (final PatternConfig cfg : this.patternConfigArr) {
+      if (!cfg.extract(window, captures)) {
+        captures.truncate(mark);
+        return false;
+      }
+    }
+
+    return true;
   }
 
   @Override
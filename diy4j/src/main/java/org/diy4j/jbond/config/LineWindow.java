@@ -0,0 +1,159 @@
+package org.diy4j.jbond.config;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.diy4j.util.regex.StepBudget;
+
+/**
+ * window of lines scanned by pattern sets, with memo of matching results.<br>
+ * Each line is matched at most once against each distinct regex of {@link RegexTable},
+ * however many pattern sets and positions in the window refer to the regex.
+ * The window has fixed capacity, and the oldest line is discarded when a line is added to the
+ * full window. Instance is not threadsafe.
+ */
+public final class LineWindow {
+
+  private final RegexTable table;
+  private final int capacity;
+  /** words of memo per line. */
+  private final int wordCount;
+
+  private final CharSequence[] lineArr;
+  /** mask of literals found in each line. */
+  private final long[] lineMaskArr;
+  /** step budget of each line. an element is null for no limit. */
+  private final StepBudget[] budgetArr;
+  /** bits of regexes already matched with each line. */
+  private final long[] knownArr;
+  /** bits of regexes matching each line. */
+  private final long[] matchedArr;
+
+  /** physical index of the oldest line. */
+  private int head = 0;
+  private int size = 0;
+
+  /**
+   * Constructor.
+   * @param table    regexes referred by pattern sets
+   * @param capacity number of lines
+   */
+  public LineWindow(RegexTable table, int capacity) {
+    Objects.requireNonNull(table);
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity=" + capacity);
+    }
+    this.table = table;
+    this.capacity = capacity;
+    this.wordCount = (table.size() + Long.SIZE - 1) / Long.SIZE;
+    this.lineArr = new CharSequence[capacity];
+    this.lineMaskArr = new long[capacity];
+    this.budgetArr = new StepBudget[capacity];
+    this.knownArr = new long[capacity * this.wordCount];
+    this.matchedArr = new long[capacity * this.wordCount];
+  }
+
+  /**
+   * add line as the newest. the oldest line is discarded if the window is full.
+   * @param line     line. may be null.
+   * @param lineMask mask of literals found in the line. see {@link LiteralFilter#scan}.
+   */
+  public void add(CharSequence line, long lineMask) {
+    add(line, lineMask, null);
+  }
+
+  /**
+   * add line as the newest, with budget of backtracking regexes evaluated on it.
+   * @param line     line. may be null.
+   * @param lineMask mask of literals found in the line. see {@link LiteralFilter#scan}.
+   * @param budget   budget of the line, which must not be reset while the line is in the
+   *                 window. null for no limit.
+   */
+  public void add(CharSequence line, long lineMask, StepBudget budget) {
+    if (this.size == this.capacity) {
+      shift();
+    }
+    final int slot = physical(this.size);
+    this.lineArr[slot] = line;
+    this.lineMaskArr[slot] = lineMask;
+    this.budgetArr[slot] = budget;
+    Arrays.fill(this.knownArr, slot * this.wordCount, (slot + 1) * this.wordCount, 0L);
+    this.size++;
+  }
+
+  /**
+   * discard the oldest line.
+   */
+  public void shift() {
+    if (this.size == 0) {
+      return;
+    }
+    this.lineArr[this.head] = null;
+    this.budgetArr[this.head] = null;
+    this.head = this.head + 1 == this.capacity ? 0 : this.head + 1;
+    this.size--;
+  }
+
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * line at index.
+   * @param index 0 is the oldest line
+   * @return line, or null if absent
+   */
+  public CharSequence get(int index) {
+    if (index < 0 || index >= this.size) {
+      return null;
+    }
+    return this.lineArr[physical(index)];
+  }
+
+  /**
+   * budget of line at index.
+   * @param index 0 is the oldest line
+   * @return budget, or null if absent
+   */
+  StepBudget budget(int index) {
+    if (index < 0 || index >= this.size) {
+      return null;
+    }
+    return this.budgetArr[physical(index)];
+  }
+
+  /**
+   * check whether the line at index matches regex.
+   * @param index   0 is the oldest line
+   * @param regexId id of regex in the table
+   * @return true if matched
+   */
+  boolean matches(int index, int regexId) {
+    if (index < 0 || index >= this.size) {
+      return false;
+    }
+    final int slot = physical(index);
+    final int word = slot * this.wordCount + (regexId >>> 6);
+    final long bit = 1L << regexId;
+    if ((this.knownArr[word] & bit) != 0) {
+      return (this.matchedArr[word] & bit) != 0;
+    }
+
+    final CharSequence line = this.lineArr[slot];
+    final boolean result = line != null
+        && LiteralFilter.mayMatch(this.table.literalMask(regexId), this.lineMaskArr[slot])
+        && this.table.pattern(regexId).matcher(line, this.budgetArr[slot]).matches();
+    this.knownArr[word] |= bit;
+    if (result) {
+      this.matchedArr[word] |= bit;
+    } else {
+      this.matchedArr[word] &= ~bit;
+    }
+    return result;
+  }
+
+  private int physical(int index) {
+    final int slot = this.head + index;
+    return slot < this.capacity ? slot : slot - this.capacity;
+  }
+}
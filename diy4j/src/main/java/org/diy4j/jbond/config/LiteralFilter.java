@@ -0,0 +1,124 @@
+package org.diy4j.jbond.config;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.diy4j.util.AhoCorasick;
+
+/**
+ * prefilter to skip regex evaluation of lines which cannot match.<br>
+ * Literals required by the regexes of a bound class are found by one pass of an
+ * Aho-Corasick automaton. The result of a line is a mask of found literals, and
+ * each regex is evaluated only if the mask contains one of its literals.
+ * A regex without required literal is always evaluated.
+ * Instance is immutable and threadsafe.
+ */
+public final class LiteralFilter {
+
+  /** mask of regex which is always evaluated. */
+  static final long UNFILTERED = 0L;
+  /** mask of line on which every regex is evaluated. */
+  public static final long ALL = -1L;
+
+  private final AhoCorasick automaton;
+  private final Map<String, Integer> idMap;
+  private final String[] literals;
+
+  private LiteralFilter(String[] literals) {
+    this.literals = literals;
+    this.automaton = new AhoCorasick(literals);
+    this.idMap = new HashMap<>();
+    for (int i = 0; i < literals.length; i++) {
+      this.idMap.put(literals[i], i);
+    }
+  }
+
+  /**
+   * create filter of the regexes used by a bound class.
+   * @param extractorList      pattern sets. may be null.
+   * @param rangeExtractorList range patterns. may be null.
+   * @return filter, or null if no regex has required literal
+   */
+  public static LiteralFilter create(List<ExtractPattern> extractorList,
+      List<RangeExtractPattern> rangeExtractorList) {
+    final Set<String> literalSet = new LinkedHashSet<>();
+    if (extractorList != null) {
+      for (final ExtractPattern ex : extractorList) {
+        if (ex != null) {
+          ex.collectLiterals(literalSet);
+        }
+      }
+    }
+    if (rangeExtractorList != null) {
+      for (final RangeExtractPattern ex : rangeExtractorList) {
+        ex.collectLiterals(literalSet);
+      }
+    }
+    if (literalSet.isEmpty()) {
+      return null;
+    }
+
+    // literals over the limit are not filtered. regexes requiring them are always evaluated.
+    final String[] literals = literalSet.stream()
+        .limit(AhoCorasick.MAX_WORDS)
+        .toArray(String[]::new);
+    return new LiteralFilter(literals);
+  }
+
+  /**
+   * find literals in line.
+   * @param line line. may be null.
+   * @return mask of found literals
+   */
+  public long scan(CharSequence line) {
+    if (line == null) {
+      return 0L;
+    }
+    return this.automaton.scan(line);
+  }
+
+  /**
+   * get literals found by the filter.
+   * @return literals in the order of the regexes requiring them
+   */
+  public String[] getLiterals() {
+    return this.literals.clone();
+  }
+
+  /**
+   * mask of regex requiring one of the literals.
+   * @param literals alternatives of required literal. may be null.
+   * @return mask, or {@link #UNFILTERED}
+   */
+  long maskOf(String[] literals) {
+    if (literals == null) {
+      return UNFILTERED;
+    }
+    long mask = 0L;
+    for (final String e : literals) {
+      final Integer id = this.idMap.get(e);
+      if (id == null) {
+        return UNFILTERED;
+      }
+      mask |= 1L << id;
+    }
+    return mask;
+  }
+
+  static long maskOf(LiteralFilter filter, String[] literals) {
+    return filter == null ? UNFILTERED : filter.maskOf(literals);
+  }
+
+  /**
+   * check whether regex may match line.
+   * @param regexMask mask of regex
+   * @param lineMask  mask of line
+   * @return false if the regex never matches
+   */
+  static boolean mayMatch(long regexMask, long lineMask) {
+    return regexMask == UNFILTERED || (regexMask & lineMask) != 0;
+  }
+}
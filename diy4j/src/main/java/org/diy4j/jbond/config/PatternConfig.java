@@ -1,20 +1,29 @@
 package org.diy4j.jbond.config;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.ToIntFunction;
 
 import org.diy4j.jbond.BindConfigException;
+import org.diy4j.util.regex.CompiledRegex;
+import org.diy4j.util.regex.RegexEngines;
+import org.diy4j.util.regex.RegexMatcher;
 
 public class PatternConfig {
 
   private final int index;
-  private final java.util.regex.Pattern pattern;
+  private final CompiledRegex pattern;
   private final String[] tagArr;
+  /** slot index of each tag. null if not linked. */
+  private final int[] slotArr;
+  /** alternatives of literal required by pattern. null if absent. */
+  private final String[] literalArr;
+  /** id of regex in the table linked with. negative if not linked. */
+  private final int regexId;
 
   public PatternConfig(int index, String pattern, String... tagArr) {
     if (index < 0) {
@@ -23,7 +32,7 @@ public class PatternConfig {
     Objects.requireNonNull(pattern);
 
     this.index = index;
-    this.pattern = Pattern.compile(pattern);
+    this.pattern = RegexEngines.getDefault().compile(pattern);
     final Set<String> tagSet = new HashSet<>();
     for (final String e : tagArr) {
       tagSet.add(e);
@@ -32,6 +41,18 @@ public class PatternConfig {
     if (this.tagArr.length != 0) {
       Arrays.sort(this.tagArr);
     }
+    this.slotArr = null;
+    this.literalArr = RegexLiterals.required(pattern);
+    this.regexId = -1;
+  }
+
+  private PatternConfig(PatternConfig base, int[] slotArr, int regexId) {
+    this.index = base.index;
+    this.pattern = base.pattern;
+    this.tagArr = base.tagArr;
+    this.slotArr = slotArr;
+    this.literalArr = base.literalArr;
+    this.regexId = regexId;
   }
 
   protected boolean contains(String tag) {
@@ -49,38 +70,115 @@ public class PatternConfig {
     return this.index;
   }
 
-  public String[][] extract(List<String> buff) {
+  /**
+   * create config whose captured values are bound to slot.
+   * @param slotResolver returns slot index of tag, or negative value if tag is not bound
+   * @param table        table to register regex
+   * @return linked config
+   */
+  public PatternConfig link(ToIntFunction<String> slotResolver, RegexTable table) {
+    final int[] slots = new int[this.tagArr.length];
+    for (int i = 0; i < this.tagArr.length; i++) {
+      slots[i] = slotResolver.applyAsInt(this.tagArr[i]);
+    }
+    return new PatternConfig(this, slots, table.register(this.pattern, this.literalArr));
+  }
+
+  void collectLiterals(Collection<String> dest) {
+    if (this.literalArr != null) {
+      for (final String e : this.literalArr) {
+        dest.add(e);
+      }
+    }
+  }
+
+
+  /**
+   * match line at index, and add captured values to <code>captures</code>.
+   * values of tags not bound to slot are not captured.
+   * @param buff     window of lines
+   * @param captures store of captured values
+   * @return true if matched
+   */
+  public boolean extract(List<? extends CharSequence> buff, Captures captures) {
     if (buff == null) {
-      return null;
+      return false;
     }
 
     if ((this.index + 1) > buff.size()) {
-      return null;
+      return false;
     }
 
-    final String target = buff.get(this.index);
+    final CharSequence target = buff.get(this.index);
     if (target == null) {
-      return null;
+      return false;
     }
-    final Matcher m = this.pattern.matcher(target);
+    final RegexMatcher m = this.pattern.matcher(target);
     if (m.matches()) {
-      String[][] result = new String[this.tagArr.length][];
-      int matchIndex = -1;
-      for (final String tag : this.tagArr) {
-        final String text = m.group(tag);
-        if (tag != null && text != null) {
-          matchIndex++;
-          final String[] pair = { tag, text };
-          result[matchIndex] = pair;
+      collect(m, target, captures);
+      return true;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * match line at index using the memo of window, and add captured values to
+   * <code>captures</code>. the line is matched again only if a value is captured.
+   * @param window   window of lines
+   * @param captures store of captured values
+   * @return true if matched
+   */
+  boolean extract(LineWindow window, Captures captures) {
+    if (this.regexId < 0) {
+      final CharSequence target = window.get(this.index);
+      if (target == null) {
+        return false;
+      }
+      final RegexMatcher m = this.pattern.matcher(target, window.budget(this.index));
+      if (m.matches()) {
+        collect(m, target, captures);
+        return true;
+      }
+      return false;
+    }
+    if (!window.matches(this.index, this.regexId)) {
+      return false;
+    }
+    if (hasBoundTag()) {
+      // matched within budget already, so matched again without budget
+      final CharSequence target = window.get(this.index);
+      final RegexMatcher m = this.pattern.matcher(target);
+      if (m.matches()) {
+        collect(m, target, captures);
+      }
+    }
+    return true;
+  }
+
+  private boolean hasBoundTag() {
+    if (this.slotArr != null) {
+      for (final int slot : this.slotArr) {
+        if (slot >= 0) {
+          return true;
         }
       }
-      final int matchArrSize = matchIndex + 1;
-      if (matchArrSize < result.length) {
-        result = Arrays.copyOf(result, matchArrSize);
+    }
+    return false;
+  }
+
+  /** add regions of captured values, which are parsed from the line without copy. */
+  private void collect(RegexMatcher m, CharSequence target, Captures captures) {
+    if (this.slotArr != null) {
+      for (int i = 0; i < this.tagArr.length; i++) {
+        final int slot = this.slotArr[i];
+        if (slot >= 0) {
+          final int begin = m.start(this.tagArr[i]);
+          if (begin >= 0) {
+            captures.add(slot, target, begin, m.end(this.tagArr[i]));
+          }
+        }
       }
-      return result;
-    } else {
-      return null;
     }
   }
 
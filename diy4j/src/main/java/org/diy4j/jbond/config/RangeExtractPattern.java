@@ -2,42 +2,77 @@ package org.diy4j.jbond.config;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.function.ToIntFunction;
+
+import org.diy4j.util.regex.CompiledRegex;
+import org.diy4j.util.regex.RegexEngine;
+import org.diy4j.util.regex.RegexEngines;
+import org.diy4j.util.regex.RegexMatcher;
+import org.diy4j.util.regex.StepBudget;
 
 public final class RangeExtractPattern {
 
-  private final Pattern startRegex;
+  private final CompiledRegex startRegex;
   private final String[] startTagArr;
-  private final Pattern[] requiredRegex;
+  private final CompiledRegex[] requiredRegex;
   private final String[] requiredTagArr;
-  private final Pattern[] optionalRegex;
+  private final CompiledRegex[] optionalRegex;
   private final String[] optionalTagArr;
-  private final Pattern endRegex;
+  private final CompiledRegex endRegex;
   private final String[] endTagArr;
-  private final Pattern[] excludeRegex;
+  private final CompiledRegex[] excludeRegex;
   /** count of required regex pattern. */
   private final int requiredRegexCount;
-
-  private List<String[]> tagValPairList = null;
+  /** slot index of each tag. null if not linked. */
+  private final int[] startSlotArr;
+  private final int[] requiredSlotArr;
+  private final int[] optionalSlotArr;
+  private final int[] endSlotArr;
+  /** mask of required literal of each regex in the filter linked with. null if not linked. */
+  private final long[] startMaskArr;
+  private final long[] requiredMaskArr;
+  private final long[] optionalMaskArr;
+  private final long[] endMaskArr;
+  private final long[] excludeMaskArr;
+  private final RangeLimits limits;
+
+  private Captures captures = null;
+  /** total length of captured values of the open range. */
+  private long capturedChars = 0;
   private HashSet<String> matchedRequiredRegex = null;
   private State matchingState = State.NO_MATCH;
   /** count of accepted elements. */
   private int count = 0;
-
-  private RangeExtractPattern(Pattern startRegex,
-      Pattern[] required,
-      Pattern[] optional,
-      Pattern[] exclude,
-      Pattern end,
+  /** number of ranges opened, completed and excluded by this instance. */
+  private long openedCount = 0;
+  private long completedCount = 0;
+  private long excludedCount = 0;
+  private long limitedCount = 0;
+  /** step budget of the line being fed. null for no limit. */
+  private StepBudget budget = null;
+
+  private RangeExtractPattern(CompiledRegex startRegex,
+      CompiledRegex[] required,
+      CompiledRegex[] optional,
+      CompiledRegex[] exclude,
+      CompiledRegex end,
       String[] startTagArr,
       String[] requiredTagArr,
       String[] optionalTagArr,
       String[] endTagArr,
-      int requiredRegexCount) {
+      int requiredRegexCount,
+      int[] startSlotArr,
+      int[] requiredSlotArr,
+      int[] optionalSlotArr,
+      int[] endSlotArr,
+      LiteralFilter filter,
+      RangeLimits limits) {
     this.startRegex = startRegex;
     this.requiredRegex = required;
     this.optionalRegex = optional;
@@ -48,6 +83,47 @@ public final class RangeExtractPattern {
     this.optionalTagArr = optionalTagArr;
     this.endTagArr = endTagArr;
     this.requiredRegexCount = requiredRegexCount;
+    this.startSlotArr = startSlotArr;
+    this.requiredSlotArr = requiredSlotArr;
+    this.optionalSlotArr = optionalSlotArr;
+    this.endSlotArr = endSlotArr;
+    this.limits = limits;
+    if (filter != null) {
+      this.startMaskArr = toMaskArr(filter, startRegex);
+      this.requiredMaskArr = toMaskArr(filter, required);
+      this.optionalMaskArr = toMaskArr(filter, optional);
+      this.endMaskArr = toMaskArr(filter, end);
+      this.excludeMaskArr = toMaskArr(filter, exclude);
+    } else {
+      this.startMaskArr = null;
+      this.requiredMaskArr = null;
+      this.optionalMaskArr = null;
+      this.endMaskArr = null;
+      this.excludeMaskArr = null;
+    }
+  }
+
+  private RangeExtractPattern(RangeExtractPattern base) {
+    this.startRegex = base.startRegex;
+    this.requiredRegex = base.requiredRegex;
+    this.optionalRegex = base.optionalRegex;
+    this.excludeRegex = base.excludeRegex;
+    this.endRegex = base.endRegex;
+    this.startTagArr = base.startTagArr;
+    this.requiredTagArr = base.requiredTagArr;
+    this.optionalTagArr = base.optionalTagArr;
+    this.endTagArr = base.endTagArr;
+    this.requiredRegexCount = base.requiredRegexCount;
+    this.startSlotArr = base.startSlotArr;
+    this.requiredSlotArr = base.requiredSlotArr;
+    this.optionalSlotArr = base.optionalSlotArr;
+    this.endSlotArr = base.endSlotArr;
+    this.startMaskArr = base.startMaskArr;
+    this.requiredMaskArr = base.requiredMaskArr;
+    this.optionalMaskArr = base.optionalMaskArr;
+    this.endMaskArr = base.endMaskArr;
+    this.excludeMaskArr = base.excludeMaskArr;
+    this.limits = base.limits;
   }
 
   public RangeExtractPattern(String start,
@@ -55,51 +131,66 @@ public final class RangeExtractPattern {
       String[] optional,
       String[] exclude,
       String end) {
+    this(start, required, optional, exclude, end, RangeLimits.NONE);
+  }
+
+  /**
+   * Constructor.
+   * @param limits limits of an open range
+   */
+  public RangeExtractPattern(String start,
+      String[] required,
+      String[] optional,
+      String[] exclude,
+      String end,
+      RangeLimits limits) {
 
     Objects.requireNonNull(start);
     Objects.requireNonNull(end);
+    this.limits = Objects.requireNonNull(limits);
 
     // ---------------------------------------------------------------------
     // create pattern instance.
     // ---------------------------------------------------------------------
-    this.startRegex = Pattern.compile(start);
-    this.endRegex = Pattern.compile(end);
+    final RegexEngine engine = RegexEngines.getDefault();
+    this.startRegex = engine.compile(start);
+    this.endRegex = engine.compile(end);
     // instance for required pattern
-    List<Pattern> tmpPatternList = new ArrayList<>();
+    List<CompiledRegex> tmpPatternList = new ArrayList<>();
     HashSet<String> requiredRegexText = new HashSet<>();
     if (required != null) {
       for (final String pattern : required) {
         if (pattern != null) {
-          tmpPatternList.add(Pattern.compile(pattern));
+          tmpPatternList.add(engine.compile(pattern));
           requiredRegexText.add(pattern.toString());
         }
       }
     }
     this.requiredRegexCount = requiredRegexText.size();
     requiredRegexText = null;
-    this.requiredRegex = tmpPatternList.toArray(new Pattern[tmpPatternList.size()]);
+    this.requiredRegex = tmpPatternList.toArray(new CompiledRegex[tmpPatternList.size()]);
     tmpPatternList.clear();
 
     // instance for optional pattern
     if (optional != null) {
       for (final String pattern : optional) {
         if (pattern != null) {
-          tmpPatternList.add(Pattern.compile(pattern));
+          tmpPatternList.add(engine.compile(pattern));
         }
       }
     }
-    this.optionalRegex = tmpPatternList.toArray(new Pattern[tmpPatternList.size()]);
+    this.optionalRegex = tmpPatternList.toArray(new CompiledRegex[tmpPatternList.size()]);
     tmpPatternList.clear();
 
     // instance for excluding pattern
     if (exclude != null) {
       for (final String pattern : exclude) {
         if (pattern != null) {
-          tmpPatternList.add(Pattern.compile(pattern));
+          tmpPatternList.add(engine.compile(pattern));
         }
       }
     }
-    this.excludeRegex = tmpPatternList.toArray(new Pattern[tmpPatternList.size()]);
+    this.excludeRegex = tmpPatternList.toArray(new CompiledRegex[tmpPatternList.size()]);
     tmpPatternList = null;
 
     // ---------------------------------------------------------------------
@@ -154,6 +245,16 @@ public final class RangeExtractPattern {
     // tags in end pattern
     this.endTagArr = ConfigUtils.extractLabel4Capture(end);
     Arrays.sort(this.endTagArr);
+
+    this.startSlotArr = null;
+    this.requiredSlotArr = null;
+    this.optionalSlotArr = null;
+    this.endSlotArr = null;
+    this.startMaskArr = null;
+    this.requiredMaskArr = null;
+    this.optionalMaskArr = null;
+    this.endMaskArr = null;
+    this.excludeMaskArr = null;
   }
 
   public boolean containsTag(String tag) {
@@ -170,83 +271,273 @@ public final class RangeExtractPattern {
     }
   }
 
-  public ExtractInfo importAndGetTagValPairIfTarget(String element) {
+  public ExtractInfo importAndGetTagValPairIfTarget(CharSequence element) {
+    return importAndGetTagValPairIfTarget(element, LiteralFilter.ALL);
+  }
 
-    final ExtractInfo result;
-    Matcher m = null;
+  /**
+   * feed element whose literals are found by the filter linked with.
+   * regexes whose required literal is absent are not evaluated.
+   * @param element  line
+   * @param lineMask mask of literals found in the line
+   * @return extracted values if the element is the end of range, otherwise null
+   */
+  public ExtractInfo importAndGetTagValPairIfTarget(CharSequence element, long lineMask) {
+    return importAndGetTagValPairIfTarget(element, lineMask, null, null);
+  }
+
+  /**
+   * feed element, taking the result of start regex from the dispatcher.
+   * @param starts     dispatcher of start regex shared with other patterns. null to match by
+   *                   itself.
+   * @param lineBudget step budget of the element shared with other patterns. null for no limit.
+   */
+  ExtractInfo importAndGetTagValPairIfTarget(CharSequence element, long lineMask,
+      StartDispatcher starts, StepBudget lineBudget) {
+
+    this.budget = lineBudget;
+
+    RegexMatcher m = null;
     boolean firstMatch = false;
 
+    if (this.matchingState == State.SKIPPING) {
+      // rest of a range dropped by limit, until its end or excluded line
+      if (!isExclusionPattern(element, lineMask) && !(mayMatch(this.endMaskArr, 0, lineMask)
+          && this.endRegex.matcher(element, this.budget).matches())) {
+        return null;
+      }
+      // the line may be also new start edge
+      this.matchingState = State.NO_MATCH;
+    }
+
     if (this.matchingState == State.NO_MATCH) {
       // check whether the element is start element or not. if the element is start element, collect tags.
-      m = this.startRegex.matcher(element);
-      if (m.matches()) {
-        this.tagValPairList = new ArrayList<>();
-        extractAndCollect(m, element, this.startTagArr, this.tagValPairList);
-        this.matchingState = State.START_FOUND;
-        firstMatch = true;
-      } else {
+      m = matchStart(element, lineMask, starts);
+      if (m == null) {
         return null;
       }
+      open(m);
+      firstMatch = true;
     }
 
-    if (isExclusionPattern(element)) {
+    if (isExclusionPattern(element, lineMask)) {
       resetState();
+      this.excludedCount++;
       return null;
     }
 
+    // values of start line are also checked with limits
+    final int sizeBefore = firstMatch ? 0 : this.captures.size();
+    final long charsBefore = firstMatch ? 0 : this.capturedChars;
     this.count++;
 
-    collectIfRequiredMatch(element);
+    collectIfRequiredMatch(element, lineMask);
 
-    collectIfOptionalMatch(element);
+    collectIfOptionalMatch(element, lineMask);
 
-    if (firstMatch) {
-      result = null;
+    boolean endFound = false;
+    if (!firstMatch) {
+      m = mayMatch(this.endMaskArr, 0, lineMask) ? this.endRegex.matcher(element, this.budget)
+          : null;
+      if (m != null && m.matches()) {
+        extractAndCollect(this.endRegex, m, this.endTagArr, this.endSlotArr, this.captures);
+        endFound = true;
+      }
+    }
 
+    if (this.limits.exceeds(this.count, this.captures.size(), this.capturedChars)) {
+      // the values of the line are not added to the range. start line remains its head.
+      this.captures.truncate(sizeBefore);
+      this.capturedChars = charsBefore;
+      final int width = this.count;
+      if (firstMatch) {
+        // the start line alone exceeds the limit. nothing is bound for it.
+        onLimit(width, endFound);
+        return null;
+      }
+      this.count--;
+      final ExtractInfo result = onLimit(width, endFound);
+      if (this.matchingState == State.NO_MATCH) {
+        // the line reaching the limit may be new start edge
+        openIfStart(element, lineMask, starts);
+      }
+      return result;
+    }
+
+    if (!endFound) {
+      return null;
+    }
+
+    final ExtractInfo result;
+    if (this.requiredRegexCount == 0 || (this.matchedRequiredRegex != null
+        && this.matchedRequiredRegex.size() >= this.requiredRegexCount)) {
+      result = new ExtractInfo(this.count, this.captures);
+      this.completedCount++;
     } else {
+      result = null;
+    }
 
-      m = this.endRegex.matcher(element);
-      if (m.matches()) {
-        extractAndCollect(m, element, this.endTagArr, this.tagValPairList);
-        if (this.requiredRegexCount == 0 || (this.matchedRequiredRegex != null
-            && this.matchedRequiredRegex.size() >= this.requiredRegexCount)) {
-          result = new ExtractInfo(this.count, this.tagValPairList);
-        } else {
-          result = null;
-        }
+    resetState();
 
-        resetState();
+    // in case end edge is also new start edge, check whether or not the element is start edge.
+    openIfStart(element, lineMask, starts);
 
-        // in case end edge is also new start edge, check whether or not the element is start edge.
-        m = this.startRegex.matcher(element);
-        if (m.matches()) {
-          this.tagValPairList = new ArrayList<>();
-          extractAndCollect(m, element, this.startTagArr, this.tagValPairList);
-          this.matchingState = State.START_FOUND;
-          this.count++;
+    return result;
+  }
+
+  public long getOpenedCount() {
+    return this.openedCount;
+  }
 
-          collectIfRequiredMatch(element);
+  public long getCompletedCount() {
+    return this.completedCount;
+  }
 
-          collectIfOptionalMatch(element);
+  public long getExcludedCount() {
+    return this.excludedCount;
+  }
+
+  /** number of ranges which reached a limit. */
+  public long getLimitedCount() {
+    return this.limitedCount;
+  }
+
+  /**
+   * handle the open range reaching a limit.
+   * @param width lines from the start edge to the line
+   * @param ended true if the line is the end edge of the range
+   * @return values captured so far if they are bound, otherwise null
+   */
+  private ExtractInfo onLimit(int width, boolean ended) {
+    this.limitedCount++;
+    switch (this.limits.getPolicy()) {
+      case EMIT_PARTIAL:
+        final ExtractInfo result = new ExtractInfo(width, this.captures);
+        resetState();
+        return result;
+
+      case RESTART:
+        resetState();
+        return null;
+
+      default:
+        resetState();
+        if (!ended) {
+          this.matchingState = State.SKIPPING;
         }
+        return null;
+    }
+  }
+
+  /** open new range at start edge matched by the matcher. */
+  private void open(RegexMatcher m) {
+    this.captures = new Captures();
+    extractAndCollect(this.startRegex, m, this.startTagArr, this.startSlotArr, this.captures);
+    this.matchingState = State.START_FOUND;
+    this.openedCount++;
+  }
 
-      } else {
-        result = null;
+  /**
+   * open new range if the element, which is the end edge of another range, is start edge.
+   * the element is not checked with excluded patterns.
+   */
+  private void openIfStart(CharSequence element, long lineMask, StartDispatcher starts) {
+    final RegexMatcher m = matchStart(element, lineMask, starts);
+    if (m != null) {
+      open(m);
+      this.count++;
+
+      collectIfRequiredMatch(element, lineMask);
+
+      collectIfOptionalMatch(element, lineMask);
+
+      if (this.limits.exceeds(this.count, this.captures.size(), this.capturedChars)) {
+        // the line has already ended another range, so no partial values are bound for it
+        this.captures.truncate(0);
+        this.capturedChars = 0;
+        onLimit(this.count, false);
       }
     }
+  }
 
-    return result;
+  private RegexMatcher matchStart(CharSequence element, long lineMask,
+      StartDispatcher starts) {
+    return starts != null ? starts.matchStart(this, element, lineMask)
+        : matchStart(element, lineMask);
+  }
+
+  /**
+   * match start regex with element.
+   * @return matcher which matched, or null if the element is not start edge
+   */
+  RegexMatcher matchStart(CharSequence element, long lineMask) {
+    if (!mayMatch(this.startMaskArr, 0, lineMask)) {
+      return null;
+    }
+    final RegexMatcher m = this.startRegex.matcher(element, this.budget);
+    return m.matches() ? m : null;
+  }
+
+  /** source text of start regex. */
+  String startPattern() {
+    return this.startRegex.pattern();
+  }
+
+  /**
+   * state of the range being read, to resume reading by another instance.
+   * @return state, or null if no range is open
+   */
+  public Progress getProgress() {
+    if (this.matchingState == State.NO_MATCH) {
+      return null;
+    }
+    if (this.matchingState == State.SKIPPING) {
+      return new Progress(Progress.SKIPPING, new Captures(), null);
+    }
+    final Captures copy = new Captures();
+    for (int i = 0; i < this.captures.size(); i++) {
+      copy.add(this.captures.slot(i), this.captures.value(i));
+    }
+    return new Progress(this.count, copy, this.matchedRequiredRegex);
+  }
+
+  /**
+   * resume reading range.
+   * @param progress state returned by {@link #getProgress()}. null if no range is open.
+   */
+  public void restore(Progress progress) {
+    resetState();
+    if (progress == null) {
+      return;
+    }
+    if (progress.count == Progress.SKIPPING) {
+      this.matchingState = State.SKIPPING;
+      return;
+    }
+    this.matchingState = State.START_FOUND;
+    this.count = progress.count;
+    this.captures = new Captures();
+    for (int i = 0; i < progress.captures.size(); i++) {
+      this.captures.add(progress.captures.slot(i), progress.captures.value(i));
+      this.capturedChars += progress.captures.value(i).length();
+    }
+    if (!progress.matchedRequiredSet.isEmpty()) {
+      this.matchedRequiredRegex = new HashSet<>(progress.matchedRequiredSet);
+    }
   }
 
-  private boolean isExclusionPattern(String element) {
+  private boolean isExclusionPattern(CharSequence element, long lineMask) {
     if (element == null) {
       return false;
     }
     if (this.excludeRegex == null) {
       return false;
     }
-    for (final Pattern pattern : this.excludeRegex) {
-      final Matcher m = pattern.matcher(element);
+    for (int i = 0; i < this.excludeRegex.length; i++) {
+      if (!mayMatch(this.excludeMaskArr, i, lineMask)) {
+        continue;
+      }
+      final RegexMatcher m = this.excludeRegex[i].matcher(element, this.budget);
       if (m.matches()) {
         return true;
       }
@@ -256,29 +547,39 @@ public final class RangeExtractPattern {
   }
 
   private void resetState() {
-    this.tagValPairList = null;
+    this.captures = null;
+    this.capturedChars = 0;
     this.matchingState = State.NO_MATCH;
     this.matchedRequiredRegex = null;
     this.count = 0;
   }
 
-  private void collectIfOptionalMatch(String element) {
+  private void collectIfOptionalMatch(CharSequence element, long lineMask) {
     if (this.optionalRegex != null) {
-      for (final Pattern pattern : this.optionalRegex) {
-        final Matcher m = pattern.matcher(element);
+      for (int i = 0; i < this.optionalRegex.length; i++) {
+        if (!mayMatch(this.optionalMaskArr, i, lineMask)) {
+          continue;
+        }
+        final RegexMatcher m = this.optionalRegex[i].matcher(element, this.budget);
         if (m.matches()) {
-          extractAndCollect(m, element, this.optionalTagArr, this.tagValPairList);
+          extractAndCollect(this.optionalRegex[i], m, this.optionalTagArr, this.optionalSlotArr,
+              this.captures);
         }
       }
     }
   }
 
-  private void collectIfRequiredMatch(String element) {
+  private void collectIfRequiredMatch(CharSequence element, long lineMask) {
     if (this.requiredRegex != null) {
-      for (final Pattern pattern : this.requiredRegex) {
-        final Matcher m = pattern.matcher(element);
+      for (int i = 0; i < this.requiredRegex.length; i++) {
+        if (!mayMatch(this.requiredMaskArr, i, lineMask)) {
+          continue;
+        }
+        final CompiledRegex pattern = this.requiredRegex[i];
+        final RegexMatcher m = pattern.matcher(element, this.budget);
         if (m.matches()) {
-          extractAndCollect(m, element, this.requiredTagArr, this.tagValPairList);
+          extractAndCollect(pattern, m, this.requiredTagArr, this.requiredSlotArr,
+              this.captures);
           if (this.matchedRequiredRegex == null) {
             this.matchedRequiredRegex = new HashSet<>();
           }
@@ -288,61 +589,164 @@ public final class RangeExtractPattern {
     }
   }
 
-  private void extractAndCollect(Matcher m, String target, String[] keyTagArr,
-      List<String[]> resultStore) {
-    Objects.requireNonNull(target);
+  private void extractAndCollect(CompiledRegex regex, RegexMatcher m, String[] keyTagArr,
+      int[] slotArr, Captures resultStore) {
 
-    if (keyTagArr == null || keyTagArr.length == 0) {
+    if (keyTagArr == null || keyTagArr.length == 0 || slotArr == null) {
       return;
     }
 
     // collect value bound to tag
-    for (final String tag : keyTagArr) {
-      if (m.pattern().pattern().contains(tag)) {
+    for (int i = 0; i < keyTagArr.length; i++) {
+      final String tag = keyTagArr[i];
+      if (slotArr[i] >= 0 && regex.pattern().contains(tag)) {
         final String text = m.group(tag);
-        if (tag != null && text != null) {
-          final String[] pair = { tag, text };
-          if (resultStore == null) {
-            resultStore = new ArrayList<>();
-          }
-          resultStore.add(pair);
+        if (text != null) {
+          resultStore.add(slotArr[i], text);
+          this.capturedChars += text.length();
         }
       }
     }
   }
 
-  public RangeExtractPattern createClone() {
+  /**
+   * create pattern whose captured values are bound to slot.
+   * @param slotResolver returns slot index of tag, or negative value if tag is not bound
+   * @param filter       prefilter of lines. may be null.
+   * @return linked pattern
+   */
+  public RangeExtractPattern link(ToIntFunction<String> slotResolver, LiteralFilter filter) {
     return new RangeExtractPattern(this.startRegex,
         this.requiredRegex,
-        this.excludeRegex,
+        this.optionalRegex,
         this.excludeRegex,
         this.endRegex,
         this.startTagArr,
         this.requiredTagArr,
         this.optionalTagArr,
         this.endTagArr,
-        this.requiredRegexCount);
+        this.requiredRegexCount,
+        toSlotArr(this.startTagArr, slotResolver),
+        toSlotArr(this.requiredTagArr, slotResolver),
+        toSlotArr(this.optionalTagArr, slotResolver),
+        toSlotArr(this.endTagArr, slotResolver),
+        filter,
+        this.limits);
+  }
+
+  void collectLiterals(Collection<String> dest) {
+    collectLiterals(dest, this.startRegex);
+    collectLiterals(dest, this.requiredRegex);
+    collectLiterals(dest, this.optionalRegex);
+    collectLiterals(dest, this.endRegex);
+    collectLiterals(dest, this.excludeRegex);
+  }
+
+  private static void collectLiterals(Collection<String> dest, CompiledRegex... patterns) {
+    for (final CompiledRegex pattern : patterns) {
+      final String[] literals = RegexLiterals.required(pattern.pattern());
+      if (literals != null) {
+        dest.addAll(Arrays.asList(literals));
+      }
+    }
+  }
+
+  private static long[] toMaskArr(LiteralFilter filter, CompiledRegex... patterns) {
+    final long[] maskArr = new long[patterns.length];
+    for (int i = 0; i < patterns.length; i++) {
+      maskArr[i] = filter.maskOf(RegexLiterals.required(patterns[i].pattern()));
+    }
+    return maskArr;
+  }
+
+  private static boolean mayMatch(long[] maskArr, int index, long lineMask) {
+    return maskArr == null || LiteralFilter.mayMatch(maskArr[index], lineMask);
+  }
+
+  private static int[] toSlotArr(String[] tagArr, ToIntFunction<String> slotResolver) {
+    if (tagArr == null) {
+      return null;
+    }
+    final int[] slotArr = new int[tagArr.length];
+    for (int i = 0; i < tagArr.length; i++) {
+      slotArr[i] = slotResolver.applyAsInt(tagArr[i]);
+    }
+    return slotArr;
+  }
+
+  public RangeExtractPattern createClone() {
+    return new RangeExtractPattern(this);
+  }
+
+  /**
+   * gives the result of start regex, which may be shared among patterns of the same start.
+   */
+  interface StartDispatcher {
+    /**
+     * @return matcher of start regex of the pattern which matched, or null
+     */
+    RegexMatcher matchStart(RangeExtractPattern pattern, CharSequence element, long lineMask);
   }
 
   private static enum State {
-    NO_MATCH, START_FOUND
+    NO_MATCH, START_FOUND,
+    /** skipping the rest of a range dropped by limit. */
+    SKIPPING
+  }
+
+  /**
+   * state of an open range. immutable.
+   */
+  public static final class Progress {
+    /** count of a range dropped by limit, whose rest is being skipped. */
+    public static final int SKIPPING = -1;
+
+    private final int count;
+    private final Captures captures;
+    private final Set<String> matchedRequiredSet;
+
+    /**
+     * Constructor.
+     * @param count           number of lines accepted, or <code>SKIPPING</code>
+     * @param captures        values captured so far. not copied.
+     * @param matchedRequired regexes of the required patterns matched so far. may be null.
+     */
+    public Progress(int count, Captures captures, Collection<String> matchedRequired) {
+      this.count = count;
+      this.captures = Objects.requireNonNull(captures);
+      this.matchedRequiredSet = matchedRequired == null ? Collections.emptySet()
+          : Collections.unmodifiableSet(new HashSet<>(matchedRequired));
+    }
+
+    public int getCount() {
+      return this.count;
+    }
+
+    public Captures getCaptures() {
+      return this.captures;
+    }
+
+    public Set<String> getMatchedRequired() {
+      return this.matchedRequiredSet;
+    }
   }
 
   public static class ExtractInfo {
     private final int count;
-    private final List<String[]> tagValPairList;
+    private final Captures captures;
 
-    private ExtractInfo(int count, List<String[]> tagValPairs) {
+    private ExtractInfo(int count, Captures captures) {
       this.count = count;
-      this.tagValPairList = tagValPairs;
+      this.captures = captures;
     }
 
+    /** lines from the start edge to the element which returned this. */
     public int getWidth() {
       return this.count;
     }
 
-    public List<String[]> getTagValPairList() {
-      return this.tagValPairList;
+    public Captures getCaptures() {
+      return this.captures;
     }
   }
 }
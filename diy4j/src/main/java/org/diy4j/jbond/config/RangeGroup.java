@@ -0,0 +1,185 @@
+package org.diy4j.jbond.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+import org.diy4j.jbond.config.RangeExtractPattern.ExtractInfo;
+import org.diy4j.jbond.config.RangeExtractPattern.Progress;
+import org.diy4j.util.regex.RegexMatcher;
+import org.diy4j.util.regex.StepBudget;
+
+/**
+ * range patterns of a class, which are fed each line together.<br>
+ * Each pattern keeps its own state, and the patterns of the same start regex share one
+ * evaluation of it for each line. So adding a range costs the regexes which differ from the
+ * others, not another pass over lines.
+ */
+public final class RangeGroup implements RangeExtractPattern.StartDispatcher {
+
+  private final RangeExtractPattern[] patternArr;
+  /** index of the first pattern of the same start regex, for each pattern. */
+  private final int[] startIdArr;
+
+  /** result of start regex of each id for the line being fed. */
+  private final RegexMatcher[] startMatcherArr;
+  private final boolean[] startTestedArr;
+  /** index of the pattern being fed. */
+  private int current = 0;
+
+  /**
+   * Constructor.
+   * @param patterns patterns in declaration order
+   */
+  public RangeGroup(List<RangeExtractPattern> patterns) {
+    this(patterns.toArray(new RangeExtractPattern[patterns.size()]));
+  }
+
+  private RangeGroup(RangeExtractPattern[] patternArr) {
+    if (patternArr.length == 0) {
+      throw new IllegalArgumentException("no range pattern.");
+    }
+    this.patternArr = patternArr;
+    this.startIdArr = new int[patternArr.length];
+    for (int i = 0; i < patternArr.length; i++) {
+      final String start = Objects.requireNonNull(patternArr[i]).startPattern();
+      int id = i;
+      for (int j = 0; j < i; j++) {
+        if (patternArr[j].startPattern().equals(start)) {
+          id = j;
+          break;
+        }
+      }
+      this.startIdArr[i] = id;
+    }
+    this.startMatcherArr = new RegexMatcher[patternArr.length];
+    this.startTestedArr = new boolean[patternArr.length];
+  }
+
+  /** number of patterns. */
+  public int size() {
+    return this.patternArr.length;
+  }
+
+  public boolean containsTag(String tag) {
+    for (final RangeExtractPattern pattern : this.patternArr) {
+      if (pattern.containsTag(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * feed element to every pattern.
+   * @param element  line
+   * @param lineMask mask of literals found in the line
+   * @param budget   step budget of the element shared by the patterns. null for no limit.
+   * @param results  receives the extracted values of each pattern whose range ends at the
+   *                 element, and null for the others
+   */
+  public void importAndGetTagValPairIfTarget(CharSequence element, long lineMask,
+      StepBudget budget, ExtractInfo[] results) {
+    Arrays.fill(this.startTestedArr, false);
+    for (int i = 0; i < this.patternArr.length; i++) {
+      this.current = i;
+      results[i] = this.patternArr[i].importAndGetTagValPairIfTarget(element, lineMask, this,
+          budget);
+    }
+    // matchers must not outlive the line
+    Arrays.fill(this.startMatcherArr, null);
+  }
+
+  @Override
+  public RegexMatcher matchStart(RangeExtractPattern pattern, CharSequence element,
+      long lineMask) {
+    final int id = this.startIdArr[this.current];
+    if (!this.startTestedArr[id]) {
+      this.startMatcherArr[id] = pattern.matchStart(element, lineMask);
+      this.startTestedArr[id] = true;
+    }
+    return this.startMatcherArr[id];
+  }
+
+  public long getOpenedCount() {
+    long count = 0;
+    for (final RangeExtractPattern pattern : this.patternArr) {
+      count += pattern.getOpenedCount();
+    }
+    return count;
+  }
+
+  public long getCompletedCount() {
+    long count = 0;
+    for (final RangeExtractPattern pattern : this.patternArr) {
+      count += pattern.getCompletedCount();
+    }
+    return count;
+  }
+
+  public long getExcludedCount() {
+    long count = 0;
+    for (final RangeExtractPattern pattern : this.patternArr) {
+      count += pattern.getExcludedCount();
+    }
+    return count;
+  }
+
+  public long getLimitedCount() {
+    long count = 0;
+    for (final RangeExtractPattern pattern : this.patternArr) {
+      count += pattern.getLimitedCount();
+    }
+    return count;
+  }
+
+  /**
+   * state of the ranges being read.
+   * @return state of each pattern. an element is null if no range is open.
+   */
+  public Progress[] getProgress() {
+    final Progress[] progressArr = new Progress[this.patternArr.length];
+    for (int i = 0; i < progressArr.length; i++) {
+      progressArr[i] = this.patternArr[i].getProgress();
+    }
+    return progressArr;
+  }
+
+  /**
+   * resume reading ranges.
+   * @param progressArr state returned by {@link #getProgress()}
+   */
+  public void restore(Progress[] progressArr) {
+    if (progressArr.length != this.patternArr.length) {
+      throw new IllegalArgumentException("count of ranges differs. expected="
+          + this.patternArr.length + ", actual=" + progressArr.length);
+    }
+    for (int i = 0; i < progressArr.length; i++) {
+      this.patternArr[i].restore(progressArr[i]);
+    }
+  }
+
+  /**
+   * create group whose captured values are bound to slot.
+   * @param slotResolver returns slot index of tag, or negative value if tag is not bound
+   * @param filter       prefilter of lines. may be null.
+   * @return linked group
+   */
+  public RangeGroup link(ToIntFunction<String> slotResolver, LiteralFilter filter) {
+    final RangeExtractPattern[] linkedArr = new RangeExtractPattern[this.patternArr.length];
+    for (int i = 0; i < linkedArr.length; i++) {
+      linkedArr[i] = this.patternArr[i].link(slotResolver, filter);
+    }
+    return new RangeGroup(linkedArr);
+  }
+
+  /** create group of new state, sharing the patterns. */
+  public RangeGroup createClone() {
+    final RangeExtractPattern[] cloneArr = new RangeExtractPattern[this.patternArr.length];
+    for (int i = 0; i < cloneArr.length; i++) {
+      cloneArr[i] = this.patternArr[i].createClone();
+    }
+    return new RangeGroup(cloneArr);
+  }
+}
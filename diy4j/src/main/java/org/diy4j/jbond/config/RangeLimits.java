@@ -0,0 +1,71 @@
+package org.diy4j.jbond.config;
+
+import java.util.Objects;
+
+import org.diy4j.jbond.BindConfigException;
+import org.diy4j.jbond.annotation.LimitPolicy;
+import org.diy4j.jbond.annotation.RangePattern;
+
+/**
+ * limits of an open range, which bound the memory kept for it. immutable.
+ */
+public final class RangeLimits {
+
+  /** no limit. */
+  public static final RangeLimits NONE = new RangeLimits(0, 0, 0, LimitPolicy.DISCARD);
+
+  private final int maxLines;
+  private final int maxCaptures;
+  private final int maxCapturedChars;
+  private final LimitPolicy policy;
+
+  /**
+   * Constructor.
+   * @param maxLines         upper limit of lines. 0 for no limit.
+   * @param maxCaptures      upper limit of captured values. 0 for no limit.
+   * @param maxCapturedChars upper limit of total length of captured values. 0 for no limit.
+   * @param policy           what to do when a limit is reached
+   * @throws BindConfigException if a limit is negative
+   */
+  public RangeLimits(int maxLines, int maxCaptures, int maxCapturedChars, LimitPolicy policy)
+      throws BindConfigException {
+    if (maxLines < 0 || maxCaptures < 0 || maxCapturedChars < 0) {
+      throw new BindConfigException("Limit of range must not be negative.");
+    }
+    this.maxLines = maxLines;
+    this.maxCaptures = maxCaptures;
+    this.maxCapturedChars = maxCapturedChars;
+    this.policy = Objects.requireNonNull(policy);
+  }
+
+  public static RangeLimits of(RangePattern rp) throws BindConfigException {
+    return new RangeLimits(rp.maxLines(), rp.maxCaptures(), rp.maxCapturedChars(), rp.onLimit());
+  }
+
+  public boolean isLimited() {
+    return this.maxLines > 0 || this.maxCaptures > 0 || this.maxCapturedChars > 0;
+  }
+
+  /**
+   * check whether an open range exceeds a limit.
+   * @param lines         lines in the range
+   * @param captures      number of captured values
+   * @param capturedChars total length of captured values
+   * @return true if exceeded
+   */
+  boolean exceeds(int lines, int captures, long capturedChars) {
+    return this.maxLines > 0 && lines > this.maxLines
+        || this.maxCaptures > 0 && captures > this.maxCaptures
+        || this.maxCapturedChars > 0 && capturedChars > this.maxCapturedChars;
+  }
+
+  public LimitPolicy getPolicy() {
+    return this.policy;
+  }
+
+  @Override
+  public String toString() {
+    return "RangeLimits [maxLines=" + this.maxLines + ", maxCaptures=" + this.maxCaptures
+        + ", maxCapturedChars=" + this.maxCapturedChars + ", policy=" + this.policy + "]";
+  }
+}
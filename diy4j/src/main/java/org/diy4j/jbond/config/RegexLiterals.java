@@ -0,0 +1,302 @@
+package org.diy4j.jbond.config;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * finds literals which must appear in every text matching a regex.<br>
+ * The analysis is conservative. constructs which are not understood, such as inline flags,
+ * back references and escapes with arguments, give up the whole regex.
+ */
+final class RegexLiterals {
+
+  /** escaped letters matching a class of chars or an empty string. */
+  private static final String CLASS_ESCAPES = "dDsSwWbBAzZGhHvVRX";
+  /** escaped letters matching a single char, and the chars. */
+  private static final String CHAR_ESCAPES = "tnrfae";
+  private static final String ESCAPED_CHARS = "\t\n\r\f\u0007\u001B";
+
+  private final String regex;
+  private int position = 0;
+
+  private RegexLiterals(String regex) {
+    this.regex = regex;
+  }
+
+  /**
+   * find literals required by regex.
+   * @param regex valid regex compiled without flags
+   * @return alternatives one of which appears in every matching text.
+   *         null if no literal is found.
+   */
+  static String[] required(String regex) {
+    if (regex == null) {
+      return null;
+    }
+    try {
+      final RegexLiterals parser = new RegexLiterals(regex);
+      final String[] result = parser.alternation();
+      if (parser.position != regex.length()) {
+        return null;
+      }
+      return result;
+    } catch (final UnsupportedOperationException e) {
+      return null;
+    }
+  }
+
+  /** branches separated by '|'. */
+  private String[] alternation() {
+    final Set<String> union = new LinkedHashSet<>();
+    boolean required = true;
+    while (true) {
+      final String[] branch = sequence();
+      if (branch == null) {
+        required = false;
+      } else if (required) {
+        for (final String e : branch) {
+          union.add(e);
+        }
+      }
+      if (this.position < this.regex.length() && this.regex.charAt(this.position) == '|') {
+        this.position++;
+      } else {
+        break;
+      }
+    }
+    return required ? union.toArray(new String[union.size()]) : null;
+  }
+
+  /** atoms up to '|', ')' or the end. the best requirement among them is chosen. */
+  private String[] sequence() {
+    final StringBuilder run = new StringBuilder();
+    final List<String[]> candidateList = new ArrayList<>();
+    while (this.position < this.regex.length()) {
+      final char c = this.regex.charAt(this.position);
+      if (c == '|' || c == ')') {
+        break;
+      }
+      switch (c) {
+        case '(':
+          flush(run, candidateList);
+          group(candidateList);
+          break;
+        case '[':
+          flush(run, candidateList);
+          skipCharClass();
+          quantifier();
+          break;
+        case '.':
+        case '^':
+        case '$':
+          flush(run, candidateList);
+          this.position++;
+          quantifier();
+          break;
+        case '\\':
+          escape(run, candidateList);
+          break;
+        default:
+          final int length = Character.isHighSurrogate(c)
+              && this.position + 1 < this.regex.length()
+              && Character.isLowSurrogate(this.regex.charAt(this.position + 1)) ? 2 : 1;
+          final String text = this.regex.substring(this.position, this.position + length);
+          this.position += length;
+          literal(text, run, candidateList);
+          break;
+      }
+    }
+    flush(run, candidateList);
+
+    String[] best = null;
+    for (final String[] e : candidateList) {
+      if (best == null || score(e) > score(best)
+          || (score(e) == score(best) && e.length < best.length)) {
+        best = e;
+      }
+    }
+    return best;
+  }
+
+  private void group(List<String[]> candidateList) {
+    this.position++;
+    boolean capturing = true;
+    if (this.regex.startsWith("?", this.position)) {
+      if (this.regex.startsWith("?:", this.position)
+          || this.regex.startsWith("?>", this.position)) {
+        this.position += 2;
+      } else if (this.regex.startsWith("?=", this.position)
+          || this.regex.startsWith("?!", this.position)) {
+        this.position += 2;
+        capturing = false;
+      } else if (this.regex.startsWith("?<=", this.position)
+          || this.regex.startsWith("?<!", this.position)) {
+        this.position += 3;
+        capturing = false;
+      } else if (this.regex.startsWith("?<", this.position)) {
+        final int close = this.regex.indexOf('>', this.position);
+        if (close < 0) {
+          throw new UnsupportedOperationException();
+        }
+        this.position = close + 1;
+      } else {
+        // inline flags may change the meaning of literals
+        throw new UnsupportedOperationException();
+      }
+    }
+    final String[] inner = alternation();
+    if (this.position >= this.regex.length() || this.regex.charAt(this.position) != ')') {
+      throw new UnsupportedOperationException();
+    }
+    this.position++;
+    final int min = quantifier();
+    if (capturing && min != 0 && inner != null) {
+      candidateList.add(inner);
+    }
+  }
+
+  private void escape(StringBuilder run, List<String[]> candidateList) {
+    if (this.position + 1 >= this.regex.length()) {
+      throw new UnsupportedOperationException();
+    }
+    final char c = this.regex.charAt(this.position + 1);
+    this.position += 2;
+    if (c == 'Q') {
+      int end = this.regex.indexOf("\\E", this.position);
+      if (end < 0) {
+        end = this.regex.length();
+      }
+      final String text = this.regex.substring(this.position, end);
+      this.position = Math.min(end + 2, this.regex.length());
+      if (!text.isEmpty()) {
+        // quantifier applies to the last char
+        run.append(text, 0, text.length() - 1);
+        literal(text.substring(text.length() - 1), run, candidateList);
+      }
+    } else if (Character.isSurrogate(c)) {
+      throw new UnsupportedOperationException();
+    } else if (!Character.isLetterOrDigit(c)) {
+      literal(String.valueOf(c), run, candidateList);
+    } else if (CHAR_ESCAPES.indexOf(c) >= 0) {
+      literal(String.valueOf(ESCAPED_CHARS.charAt(CHAR_ESCAPES.indexOf(c))), run, candidateList);
+    } else if (CLASS_ESCAPES.indexOf(c) >= 0) {
+      flush(run, candidateList);
+      quantifier();
+    } else {
+      // back reference, or escape with arguments
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** append literal followed by optional quantifier to run. */
+  private void literal(String text, StringBuilder run, List<String[]> candidateList) {
+    final int min = quantifier();
+    if (min < 0) {
+      run.append(text);
+    } else if (min == 0) {
+      flush(run, candidateList);
+    } else {
+      run.append(text);
+      flush(run, candidateList);
+    }
+  }
+
+  /**
+   * skip quantifier.
+   * @return minimum repetition, or -1 if absent
+   */
+  private int quantifier() {
+    if (this.position >= this.regex.length()) {
+      return -1;
+    }
+    final char c = this.regex.charAt(this.position);
+    final int min;
+    if (c == '?' || c == '*') {
+      min = 0;
+      this.position++;
+    } else if (c == '+') {
+      min = 1;
+      this.position++;
+    } else if (c == '{') {
+      final int close = this.regex.indexOf('}', this.position);
+      if (close < 0) {
+        throw new UnsupportedOperationException();
+      }
+      final String bounds = this.regex.substring(this.position + 1, close);
+      final int comma = bounds.indexOf(',');
+      try {
+        min = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+      } catch (final NumberFormatException e) {
+        throw new UnsupportedOperationException(e);
+      }
+      this.position = close + 1;
+    } else {
+      return -1;
+    }
+    if (this.position < this.regex.length()) {
+      final char mode = this.regex.charAt(this.position);
+      if (mode == '?' || mode == '+') {
+        // reluctant or possessive
+        this.position++;
+      }
+    }
+    return min;
+  }
+
+  private void skipCharClass() {
+    int depth = 0;
+    while (this.position < this.regex.length()) {
+      final char c = this.regex.charAt(this.position);
+      if (c == '\\') {
+        if (this.regex.startsWith("\\Q", this.position)) {
+          final int end = this.regex.indexOf("\\E", this.position + 2);
+          if (end < 0) {
+            throw new UnsupportedOperationException();
+          }
+          this.position = end + 2;
+        } else {
+          this.position += 2;
+        }
+        continue;
+      }
+      if (c == '[') {
+        depth++;
+        this.position++;
+        if (this.position < this.regex.length() && this.regex.charAt(this.position) == '^') {
+          this.position++;
+        }
+        if (this.position < this.regex.length() && this.regex.charAt(this.position) == ']') {
+          // leading ']' is ambiguous
+          throw new UnsupportedOperationException();
+        }
+        continue;
+      }
+      this.position++;
+      if (c == ']') {
+        depth--;
+        if (depth == 0) {
+          return;
+        }
+      }
+    }
+    throw new UnsupportedOperationException();
+  }
+
+  private static void flush(StringBuilder run, List<String[]> candidateList) {
+    if (run.length() > 0) {
+      candidateList.add(new String[] { run.toString() });
+      run.setLength(0);
+    }
+  }
+
+  /** length of the shortest alternative. */
+  private static int score(String[] alternatives) {
+    int min = Integer.MAX_VALUE;
+    for (final String e : alternatives) {
+      min = Math.min(min, e.length());
+    }
+    return min;
+  }
+}
@@ -0,0 +1,64 @@
+package org.diy4j.jbond.config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.diy4j.util.regex.CompiledRegex;
+
+/**
+ * distinct regexes of the pattern sets of a bound class.<br>
+ * Each regex is identified by its index, so that the result of matching a line is shared by
+ * all pattern configs with the same regex. see {@link LineWindow}.
+ * Regexes are registered while pattern sets are linked, and the table is read only after that.
+ */
+public final class RegexTable {
+
+  private final LiteralFilter filter;
+  private final Map<String, Integer> idMap = new HashMap<>();
+  private final List<CompiledRegex> patternList = new ArrayList<>();
+  private long[] literalMaskArr = new long[8];
+
+  /**
+   * Constructor.
+   * @param filter prefilter of lines. may be null.
+   */
+  public RegexTable(LiteralFilter filter) {
+    this.filter = filter;
+  }
+
+  /**
+   * register regex.
+   * @param pattern  regex
+   * @param literals alternatives of required literal. may be null.
+   * @return id of regex
+   */
+  int register(CompiledRegex pattern, String[] literals) {
+    final Integer id = this.idMap.get(pattern.pattern());
+    if (id != null) {
+      return id;
+    }
+    final int newId = this.patternList.size();
+    this.patternList.add(pattern);
+    this.idMap.put(pattern.pattern(), newId);
+    if (newId == this.literalMaskArr.length) {
+      this.literalMaskArr = Arrays.copyOf(this.literalMaskArr, newId * 2);
+    }
+    this.literalMaskArr[newId] = LiteralFilter.maskOf(this.filter, literals);
+    return newId;
+  }
+
+  public int size() {
+    return this.patternList.size();
+  }
+
+  CompiledRegex pattern(int id) {
+    return this.patternList.get(id);
+  }
+
+  long literalMask(int id) {
+    return this.literalMaskArr[id];
+  }
+}
@@ -0,0 +1,98 @@
+package org.diy4j.jbond.config;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.diy4j.jbond.BindConfigException;
+
+/**
+ * conversion plan of a bound field, resolved once from the declared type.
+ */
+public final class SlotBinding {
+
+  /** how captured value is stored to field. */
+  public static enum Kind {
+    /** value is set to field. */
+    SCALAR,
+    /** value is added to <code>List</code> or <code>Collection</code>. */
+    LIST,
+    /** value is added to <code>Set</code>. */
+    SET,
+    /** value is appended to array. */
+    ARRAY
+  }
+
+  private final int slot;
+  private final String tag;
+  private final Field field;
+  private final Kind kind;
+  /** type of field, or element type of collection or array. */
+  private final Class<?> valueType;
+  private final ValueConverter converter;
+
+  private SlotBinding(int slot, String tag, Field field, Kind kind, Class<?> valueType) {
+    this.slot = slot;
+    this.tag = tag;
+    this.field = field;
+    this.kind = kind;
+    this.valueType = valueType;
+    this.converter = ValueConverters.forType(valueType);
+  }
+
+  static SlotBinding of(int slot, String tag, Field f) throws BindConfigException {
+
+    final Class<?> type = f.getType();
+
+    if (type == List.class || type == Collection.class) {
+      return new SlotBinding(slot, tag, f, Kind.LIST, elementType(f));
+
+    } else if (type == Set.class) {
+      return new SlotBinding(slot, tag, f, Kind.SET, elementType(f));
+
+    } else if (type.isArray()) {
+      return new SlotBinding(slot, tag, f, Kind.ARRAY, type.getComponentType());
+
+    } else {
+      return new SlotBinding(slot, tag, f, Kind.SCALAR, type);
+    }
+  }
+
+  private static Class<?> elementType(Field f) throws BindConfigException {
+    final Type genericType = f.getGenericType();
+    if (genericType instanceof ParameterizedType) {
+      final Type arg = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+      if (arg instanceof Class) {
+        return (Class<?>) arg;
+      }
+    }
+    throw new BindConfigException("Element type of Field[" + f.getName() + "] is not resolved.");
+  }
+
+  public int getSlot() {
+    return this.slot;
+  }
+
+  public String getTag() {
+    return this.tag;
+  }
+
+  public Field getField() {
+    return this.field;
+  }
+
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  public Class<?> getValueType() {
+    return this.valueType;
+  }
+
+  public ValueConverter getConverter() {
+    return this.converter;
+  }
+}
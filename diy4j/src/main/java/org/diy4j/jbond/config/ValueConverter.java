@@ -0,0 +1,18 @@
+package org.diy4j.jbond.config;
+
+import org.diy4j.jbond.BindException;
+
+/**
+ * converts captured text to the value of field type.
+ */
+@FunctionalInterface
+public interface ValueConverter {
+
+  /**
+   * convert text.
+   * @param value captured text
+   * @return converted value, or null if nothing should be bound
+   * @throws BindException if text cannot be converted
+   */
+  Object convert(String value) throws BindException;
+}
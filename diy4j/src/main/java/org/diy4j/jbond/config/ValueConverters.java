@@ -0,0 +1,89 @@
+package org.diy4j.jbond.config;
+
+import java.util.function.Function;
+
+import org.diy4j.jbond.BindConfigException;
+import org.diy4j.jbond.BindException;
+
+/**
+ * converters for the types supported as bound value.
+ */
+public final class ValueConverters {
+
+  private static final ValueConverter STRING = value -> value;
+
+  private static final ValueConverter CHARACTER = value -> value.isEmpty() ? null
+      : Character.valueOf(value.charAt(0));
+
+  private static final ValueConverter BOOLEAN = Boolean::valueOf;
+
+  private static final ValueConverter PRIMITIVE_BOOLEAN = value -> value.isEmpty() ? null
+      : Boolean.valueOf(value);
+
+  private static final ValueConverter BYTE = number(Byte::valueOf);
+  private static final ValueConverter SHORT = number(Short::valueOf);
+  private static final ValueConverter INTEGER = number(Integer::valueOf);
+  private static final ValueConverter LONG = number(Long::valueOf);
+  private static final ValueConverter FLOAT = number(Float::valueOf);
+  private static final ValueConverter DOUBLE = number(Double::valueOf);
+
+  private ValueConverters() {
+  }
+
+  /**
+   * get converter for type.
+   * @param type type of field, or element type of collection field
+   * @return converter
+   * @throws BindConfigException if type is not supported
+   */
+  public static ValueConverter forType(Class<?> type) throws BindConfigException {
+
+    if (type == String.class) {
+      return STRING;
+
+    } else if (type == Character.class || type == char.class) {
+      return CHARACTER;
+
+    } else if (type == Boolean.class) {
+      return BOOLEAN;
+
+    } else if (type == boolean.class) {
+      return PRIMITIVE_BOOLEAN;
+
+    } else if (type == Byte.class || type == byte.class) {
+      return BYTE;
+
+    } else if (type == Short.class || type == short.class) {
+      return SHORT;
+
+    } else if (type == Integer.class || type == int.class) {
+      return INTEGER;
+
+    } else if (type == Long.class || type == long.class) {
+      return LONG;
+
+    } else if (type == Float.class || type == float.class) {
+      return FLOAT;
+
+    } else if (type == Double.class || type == double.class) {
+      return DOUBLE;
+
+    } else {
+      throw new BindConfigException("Unsupported Type. " + type.getName());
+    }
+  }
+
+  private static ValueConverter number(Function<String, ?> parser) {
+    return value -> {
+      final String trimValue = value.trim();
+      if (trimValue.isEmpty()) {
+        return null;
+      }
+      try {
+        return parser.apply(trimValue);
+      } catch (final NumberFormatException e) {
+        throw new BindException("Fail binding to field.");
+      }
+    };
+  }
+}
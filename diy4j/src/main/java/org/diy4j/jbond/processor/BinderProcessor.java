@@ -0,0 +1,364 @@
+package org.diy4j.jbond.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+
+import org.diy4j.jbond.GeneratedBinder;
+import org.diy4j.jbond.annotation.BindTag;
+import org.diy4j.jbond.annotation.Pattern;
+import org.diy4j.jbond.annotation.PatternCollection;
+import org.diy4j.jbond.annotation.PatternSet;
+import org.diy4j.jbond.annotation.RangePattern;
+import org.diy4j.jbond.annotation.RangePatterns;
+import org.diy4j.jbond.config.AnnotationLoader;
+import org.diy4j.jbond.config.BindConfig.Tag;
+import org.diy4j.jbond.config.ExtractPattern;
+import org.diy4j.jbond.config.PatternCollectionLoader;
+import org.diy4j.jbond.config.PatternLoader;
+import org.diy4j.jbond.config.PatternSetLoader;
+import org.diy4j.jbond.config.RangeExtractPattern;
+import org.diy4j.jbond.config.RangeLimits;
+
+/**
+ * annotation processor which checks config of bound classes and generates their binders.<br>
+ * The regexes are compiled, and each tag of <code>BindTag</code> is checked against the named
+ * groups, in the same way as <code>BindConfig.test()</code> at runtime. A violation is reported
+ * as a compile error. A {@link GeneratedBinder} is generated if the class and its tagged fields
+ * are accessible from its package. Otherwise the binder is resolved by reflection at runtime.
+ */
+@SupportedOptions(BinderProcessor.VERBOSE_OPTION)
+@SupportedAnnotationTypes({ "org.diy4j.jbond.annotation.Pattern",
+    "org.diy4j.jbond.annotation.PatternSet", "org.diy4j.jbond.annotation.PatternCollection",
+    "org.diy4j.jbond.annotation.RangePattern", "org.diy4j.jbond.annotation.RangePatterns",
+    "org.diy4j.jbond.annotation.BindTag" })
+public final class BinderProcessor extends AbstractProcessor {
+
+  /** option to note classes whose binder is not generated, e.g. -Ajbond.verbose=true. */
+  public static final String VERBOSE_OPTION = "jbond.verbose";
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+
+    final Set<TypeElement> typeSet = new LinkedHashSet<>();
+    for (final Class<? extends Annotation> type : Arrays.asList(Pattern.class, PatternSet.class,
+        PatternCollection.class, RangePattern.class, RangePatterns.class)) {
+      typeSet.addAll(ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(type)));
+    }
+    for (final Element field : roundEnv.getElementsAnnotatedWith(BindTag.class)) {
+      if (field.getEnclosingElement() instanceof TypeElement) {
+        typeSet.add((TypeElement) field.getEnclosingElement());
+      }
+    }
+
+    for (final TypeElement type : typeSet) {
+      final Map<String, VariableElement> fieldMap = checkConfig(type);
+      if (fieldMap != null && isAccessible(type, fieldMap)) {
+        generate(type, fieldMap);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * check config of class.
+   * @return tagged fields sorted by tag. null if config is invalid.
+   */
+  private Map<String, VariableElement> checkConfig(TypeElement type) {
+
+    final List<ExtractPattern> extractorList = new ArrayList<>();
+    final List<RangeExtractPattern> rangeExtractorList = new ArrayList<>();
+    try {
+      addAll(extractorList, new PatternCollectionLoader(),
+          type.getAnnotation(PatternCollection.class));
+      addAll(extractorList, new PatternSetLoader(), type.getAnnotation(PatternSet.class));
+      addAll(extractorList, new PatternLoader(), type.getAnnotation(Pattern.class));
+      for (final RangePattern rp : type.getAnnotationsByType(RangePattern.class)) {
+        rangeExtractorList.add(new RangeExtractPattern(rp.start(), rp.required(),
+            rp.optional(), rp.excluded(), rp.end(), RangeLimits.of(rp)));
+      }
+    } catch (final RuntimeException e) {
+      error(type, "invalid pattern. " + e.getMessage());
+      return null;
+    }
+    if (extractorList.isEmpty() && rangeExtractorList.isEmpty()) {
+      // not a bound class
+      return null;
+    }
+
+    boolean valid = true;
+    if (containsTag(extractorList, rangeExtractorList, Tag.COUNTER)) {
+      error(type, Tag.COUNTER + " is reserved tag. you cannot use it as label in regex.");
+      valid = false;
+    }
+    final Map<String, VariableElement> fieldMap = new TreeMap<>();
+    for (final VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+      final BindTag bindTag = field.getAnnotation(BindTag.class);
+      if (bindTag == null) {
+        continue;
+      }
+      final String tag = bindTag.value();
+      if (fieldMap.containsKey(tag)) {
+        error(field, String.format("Tag[%s] is used for Field[%s].", tag,
+            fieldMap.get(tag).getSimpleName()));
+        valid = false;
+      } else if (!Tag.COUNTER.equals(tag)
+          && !containsTag(extractorList, rangeExtractorList, tag)) {
+        error(field, "tag is not used in regex{" + tag + "}");
+        valid = false;
+      }
+      fieldMap.put(tag, field);
+    }
+    return valid ? fieldMap : null;
+  }
+
+  private static void addAll(List<ExtractPattern> extractorList, AnnotationLoader loader,
+      Annotation annotation) {
+    if (annotation != null) {
+      for (final ExtractPattern ex : loader.load(annotation)) {
+        if (ex != null) {
+          extractorList.add(ex);
+        }
+      }
+    }
+  }
+
+  private static boolean containsTag(List<ExtractPattern> extractorList,
+      List<RangeExtractPattern> rangeExtractorList, String tag) {
+    for (final ExtractPattern ex : extractorList) {
+      if (ex.containsTag(tag)) {
+        return true;
+      }
+    }
+    for (final RangeExtractPattern ex : rangeExtractorList) {
+      if (ex.containsTag(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** check whether generated code in the same package can create class and set fields. */
+  private boolean isAccessible(TypeElement type, Map<String, VariableElement> fieldMap) {
+
+    for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+      if (e.getModifiers().contains(Modifier.PRIVATE)) {
+        return note(type, "class is not accessible");
+      }
+    }
+    final NestingKind nesting = type.getNestingKind();
+    if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)
+        || nesting != NestingKind.TOP_LEVEL && (nesting != NestingKind.MEMBER
+            || !type.getModifiers().contains(Modifier.STATIC))) {
+      return note(type, "class cannot be created without outer instance");
+    }
+    boolean hasConstructor = false;
+    for (final ExecutableElement ctor : ElementFilter.constructorsIn(
+        type.getEnclosedElements())) {
+      if (ctor.getParameters().isEmpty() && !ctor.getModifiers().contains(Modifier.PRIVATE)) {
+        hasConstructor = true;
+      }
+    }
+    if (!hasConstructor) {
+      return note(type, "constructor without argument is not accessible");
+    }
+    for (final VariableElement field : fieldMap.values()) {
+      if (field.getModifiers().contains(Modifier.PRIVATE)
+          || field.getModifiers().contains(Modifier.FINAL)
+          || field.getModifiers().contains(Modifier.STATIC)) {
+        return note(field, "field is private, final or static");
+      }
+    }
+    return true;
+  }
+
+  private void generate(TypeElement type, Map<String, VariableElement> fieldMap) {
+
+    final PackageElement pkg = this.processingEnv.getElementUtils().getPackageOf(type);
+    final StringBuilder simpleName = new StringBuilder(type.getSimpleName());
+    for (Element e = type.getEnclosingElement(); e instanceof TypeElement;
+        e = e.getEnclosingElement()) {
+      simpleName.insert(0, '_').insert(0, e.getSimpleName());
+    }
+    simpleName.append(GeneratedBinder.SUFFIX);
+    final String binderName = pkg.isUnnamed() ? simpleName.toString()
+        : pkg.getQualifiedName() + "." + simpleName;
+    final String typeName = erasure(type.asType());
+    final String[] tagArr = fieldMap.keySet().toArray(new String[fieldMap.size()]);
+    final VariableElement[] fieldArr = fieldMap.values()
+        .toArray(new VariableElement[fieldMap.size()]);
+
+    final StringBuilder sb = new StringBuilder();
+    if (!pkg.isUnnamed()) {
+      sb.append("package ").append(pkg.getQualifiedName()).append(";\n\n");
+    }
+    sb.append("/**\n * binder of {@link ").append(typeName).append("}.\n * generated by ")
+        .append(getClass().getName()).append(". do not edit.\n */\n");
+    sb.append("@SuppressWarnings({ \"rawtypes\", \"unchecked\" })\n");
+    sb.append("public final class ").append(simpleName).append("\n    extends ")
+        .append(GeneratedBinder.class.getName()).append('<').append(typeName).append("> {\n\n");
+
+    sb.append("  private static final String[] SLOT_TAGS = {");
+    for (int i = 0; i < tagArr.length; i++) {
+      sb.append(i == 0 ? " " : ", ").append(quote(tagArr[i]));
+    }
+    sb.append(" };\n");
+    sb.append("  private static final String[] SLOT_FIELD_NAMES = {");
+    for (int i = 0; i < fieldArr.length; i++) {
+      sb.append(i == 0 ? " " : ", ").append(quote(fieldArr[i].getSimpleName().toString()));
+    }
+    sb.append(" };\n");
+    sb.append("  private static final Class<?>[] SLOT_FIELD_TYPES = {");
+    for (int i = 0; i < fieldArr.length; i++) {
+      sb.append(i == 0 ? " " : ", ").append(erasure(fieldArr[i].asType())).append(".class");
+    }
+    sb.append(" };\n\n");
+
+    sb.append("  @Override\n  public Class<").append(typeName).append("> getBindClass() {\n")
+        .append("    return ").append(typeName).append(".class;\n  }\n\n");
+    sb.append("  @Override\n  public String[] getSlotTags() {\n")
+        .append("    return SLOT_TAGS.clone();\n  }\n\n");
+    sb.append("  @Override\n  public String[] getSlotFieldNames() {\n")
+        .append("    return SLOT_FIELD_NAMES.clone();\n  }\n\n");
+    sb.append("  @Override\n  public Class<?>[] getSlotFieldTypes() {\n")
+        .append("    return SLOT_FIELD_TYPES.clone();\n  }\n\n");
+    sb.append("  @Override\n  public ").append(typeName).append(" newInstance() {\n")
+        .append("    return new ").append(typeName).append("();\n  }\n\n");
+
+    sb.append("  @Override\n  public Object get(").append(typeName)
+        .append(" target, int slot) {\n    switch (slot) {\n");
+    for (int i = 0; i < fieldArr.length; i++) {
+      sb.append("      case ").append(i).append(":\n        return target.")
+          .append(fieldArr[i].getSimpleName()).append(";\n");
+    }
+    appendDefault(sb, "\"unknown slot \" + slot");
+
+    sb.append("  @Override\n  public void set(").append(typeName)
+        .append(" target, int slot, Object value) {\n    switch (slot) {\n");
+    for (int i = 0; i < fieldArr.length; i++) {
+      sb.append("      case ").append(i).append(":\n        target.")
+          .append(fieldArr[i].getSimpleName()).append(" = (").append(boxed(fieldArr[i].asType()))
+          .append(") value;\n        return;\n");
+    }
+    appendDefault(sb, "\"unknown slot \" + slot");
+
+    appendPrimitiveSetter(sb, typeName, fieldArr, "setLong", "long", EnumSet.of(TypeKind.LONG,
+        TypeKind.INT, TypeKind.SHORT, TypeKind.BYTE), "integral");
+    appendPrimitiveSetter(sb, typeName, fieldArr, "setDouble", "double",
+        EnumSet.of(TypeKind.DOUBLE, TypeKind.FLOAT), "floating-point");
+    sb.setLength(sb.length() - 1);
+    sb.append("}\n");
+
+    try (Writer writer = this.processingEnv.getFiler().createSourceFile(binderName, type)
+        .openWriter()) {
+      writer.write(sb.toString());
+    } catch (final IOException e) {
+      error(type, "failed to generate binder. " + e);
+    }
+  }
+
+  /**
+   * append setter of primitive value, which casts the value to the field type if it differs.
+   * @param kindSet kinds of fields set by the method
+   */
+  private static void appendPrimitiveSetter(StringBuilder sb, String typeName,
+      VariableElement[] fieldArr, String method, String valueType, Set<TypeKind> kindSet,
+      String kindName) {
+    sb.append("  @Override\n  public void ").append(method).append('(').append(typeName)
+        .append(" target, int slot, ").append(valueType).append(" value) {\n")
+        .append("    switch (slot) {\n");
+    for (int i = 0; i < fieldArr.length; i++) {
+      final TypeKind kind = fieldArr[i].asType().getKind();
+      if (kindSet.contains(kind)) {
+        final String fieldType = kind.name().toLowerCase(Locale.ROOT);
+        sb.append("      case ").append(i).append(":\n        target.")
+            .append(fieldArr[i].getSimpleName()).append(" = ");
+        if (!fieldType.equals(valueType)) {
+          sb.append('(').append(fieldType).append(") ");
+        }
+        sb.append("value;\n        return;\n");
+      }
+    }
+    appendDefault(sb, "\"Field of slot \" + slot + \" is not " + kindName + ".\"");
+  }
+
+  /**
+   * append default case which throws exception, and close method.
+   * @param message expression of message
+   */
+  private static void appendDefault(StringBuilder sb, String message) {
+    sb.append("      default:\n        throw new org.diy4j.jbond.BindException(")
+        .append(message).append(");\n    }\n  }\n\n");
+  }
+
+  private String erasure(TypeMirror type) {
+    return this.processingEnv.getTypeUtils().erasure(type).toString();
+  }
+
+  private String boxed(TypeMirror type) {
+    if (type.getKind().isPrimitive()) {
+      return this.processingEnv.getTypeUtils().boxedClass(
+          this.processingEnv.getTypeUtils().getPrimitiveType(type.getKind())).getQualifiedName()
+          .toString();
+    }
+    return erasure(type);
+  }
+
+  private static String quote(String text) {
+    final StringBuilder sb = new StringBuilder("\"");
+    for (final char c : text.toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c < 0x20 || c >= 0x7f) {
+        sb.append(String.format("\\u%04x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  private void error(Element element, String message) {
+    this.processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+  }
+
+  private boolean note(Element element, String message) {
+    if (Boolean.parseBoolean(this.processingEnv.getOptions().get(VERBOSE_OPTION))) {
+      this.processingEnv.getMessager().printMessage(Kind.NOTE,
+          "binder is not generated, and reflection is used at runtime. " + message, element);
+    }
+    return false;
+  }
+}
@@ -0,0 +1,162 @@
+package org.diy4j.util;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Aho-Corasick automaton to find which of the words appear in a text by one pass.<br>
+ * The goto and failure functions are compiled into a dense transition table over the chars
+ * used in words. Instance is immutable and threadsafe.
+ */
+public final class AhoCorasick {
+
+  /** max number of words. found words are reported as bits of <code>long</code>. */
+  public static final int MAX_WORDS = 64;
+
+  private static final int ASCII_SIZE = 128;
+
+  /** class of ASCII char. 0 is the class of chars not used in words. */
+  private final int[] asciiClassArr = new int[ASCII_SIZE];
+  /** sorted non-ASCII chars used in words. class of <code>nonAsciiArr[i]</code> is i + 1. */
+  private final char[] nonAsciiArr;
+  private final int nonAsciiClassBase;
+  private final int classCount;
+  /** next state indexed by <code>state * classCount + class</code>. */
+  private final int[] transitionArr;
+  /** bits of words ending at each state. */
+  private final long[] outputArr;
+  private final long allWords;
+
+  /**
+   * Constructor.
+   * @param words words to find. must not be empty.
+   */
+  public AhoCorasick(String... words) {
+    Objects.requireNonNull(words);
+    if (words.length > MAX_WORDS) {
+      throw new IllegalArgumentException("too many words. count=" + words.length);
+    }
+
+    // classify chars
+    int stateCount = 1;
+    final boolean[] asciiUsed = new boolean[ASCII_SIZE];
+    char[] nonAscii = new char[16];
+    int nonAsciiCount = 0;
+    for (final String word : words) {
+      if (word == null || word.isEmpty()) {
+        throw new IllegalArgumentException("empty word.");
+      }
+      stateCount += word.length();
+      for (int i = 0; i < word.length(); i++) {
+        final char c = word.charAt(i);
+        if (c < ASCII_SIZE) {
+          asciiUsed[c] = true;
+        } else {
+          if (nonAsciiCount == nonAscii.length) {
+            nonAscii = Arrays.copyOf(nonAscii, nonAsciiCount * 2);
+          }
+          nonAscii[nonAsciiCount++] = c;
+        }
+      }
+    }
+    int cls = 1;
+    for (int c = 0; c < ASCII_SIZE; c++) {
+      if (asciiUsed[c]) {
+        this.asciiClassArr[c] = cls++;
+      }
+    }
+    Arrays.sort(nonAscii, 0, nonAsciiCount);
+    int distinct = 0;
+    for (int i = 0; i < nonAsciiCount; i++) {
+      if (distinct == 0 || nonAscii[distinct - 1] != nonAscii[i]) {
+        nonAscii[distinct++] = nonAscii[i];
+      }
+    }
+    this.nonAsciiArr = Arrays.copyOf(nonAscii, distinct);
+    this.nonAsciiClassBase = cls;
+    this.classCount = cls + distinct;
+
+    // goto function as trie
+    final int[] transitions = new int[stateCount * this.classCount];
+    Arrays.fill(transitions, -1);
+    final long[] outputs = new long[stateCount];
+    int nextState = 1;
+    for (int w = 0; w < words.length; w++) {
+      final String word = words[w];
+      int state = 0;
+      for (int i = 0; i < word.length(); i++) {
+        final int index = state * this.classCount + classOf(word.charAt(i));
+        if (transitions[index] < 0) {
+          transitions[index] = nextState++;
+        }
+        state = transitions[index];
+      }
+      outputs[state] |= 1L << w;
+    }
+
+    // resolve failure function into transitions, in breadth first order
+    final int[] failArr = new int[nextState];
+    final int[] queue = new int[nextState];
+    int queueHead = 0;
+    int queueTail = 0;
+    for (int c = 0; c < this.classCount; c++) {
+      final int next = transitions[c];
+      if (next < 0) {
+        transitions[c] = 0;
+      } else {
+        failArr[next] = 0;
+        queue[queueTail++] = next;
+      }
+    }
+    while (queueHead < queueTail) {
+      final int state = queue[queueHead++];
+      outputs[state] |= outputs[failArr[state]];
+      for (int c = 0; c < this.classCount; c++) {
+        final int index = state * this.classCount + c;
+        final int failNext = transitions[failArr[state] * this.classCount + c];
+        if (transitions[index] < 0) {
+          transitions[index] = failNext;
+        } else {
+          failArr[transitions[index]] = failNext;
+          queue[queueTail++] = transitions[index];
+        }
+      }
+    }
+
+    this.transitionArr = Arrays.copyOf(transitions, nextState * this.classCount);
+    this.outputArr = Arrays.copyOf(outputs, nextState);
+    this.allWords = words.length == MAX_WORDS ? -1L : (1L << words.length) - 1;
+  }
+
+  /**
+   * find words in text.
+   * @param text text
+   * @return bits of found words. bit i is set if <code>words[i]</code> appears.
+   */
+  public long scan(CharSequence text) {
+    final int[] transitions = this.transitionArr;
+    final long[] outputs = this.outputArr;
+    final int length = text.length();
+    long found = 0;
+    int state = 0;
+    for (int i = 0; i < length; i++) {
+      state = transitions[state * this.classCount + classOf(text.charAt(i))];
+      final long output = outputs[state];
+      if (output != 0) {
+        found |= output;
+        if (found == this.allWords) {
+          break;
+        }
+      }
+    }
+    return found;
+  }
+
+  private int classOf(char c) {
+    if (c < ASCII_SIZE) {
+      return this.asciiClassArr[c];
+    }
+    final int index = Arrays.binarySearch(this.nonAsciiArr, c);
+    return index < 0 ? 0 : this.nonAsciiClassBase + index;
+  }
+}
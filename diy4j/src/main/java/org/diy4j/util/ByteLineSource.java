@@ -0,0 +1,301 @@
+package org.diy4j.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <code>LineSource</code> splitting lines on bytes, for charsets in which ASCII bytes always
+ * stand for themselves. see {@link #isSupported(Charset)}.<br>
+ * A line of ASCII bytes is returned as a <code>CharSequence</code> view over the byte buffer
+ * without decoding, so that prefilter and regex read the bytes directly. Only a line with other
+ * bytes is decoded, into a char buffer of its view. <code>subSequence</code> and
+ * <code>toString</code> of a view create a new <code>String</code>, which is where captured
+ * values are decoded.
+ * The views of the last <code>retain</code> lines stay valid. Older views are recycled.
+ * <p>
+ * Lines are terminated by LF, CR or CR LF, in the same way as
+ * <code>BufferedReader.readLine()</code>.
+ * Malformed input is replaced in the same way as <code>InputStreamReader</code>.
+ * </p>
+ */
+public final class ByteLineSource implements LineSource {
+
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+  private static final int INITIAL_CAPACITY = 1 << 16;
+
+  private final FileChannel channel;
+  private final boolean ownChannel;
+  private final long end;
+  /** true if every byte is a char of the same value. */
+  private final boolean latin1;
+  private final CharsetDecoder decoder;
+
+  /** views handed out recently. */
+  private final LineView[] ring;
+  private int ringIndex = 0;
+
+  /** file offset of the next byte to read into buffer. */
+  private long filePosition;
+  private boolean endOfInput = false;
+
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+  /** index of the next byte to split. */
+  private int position = 0;
+  /** end of bytes read. */
+  private int limit = 0;
+
+  /**
+   * Constructor.
+   * @param path    file
+   * @param charset charset. must be supported.
+   * @param retain  number of recent lines whose views must stay valid
+   * @throws IOException I/O error
+   */
+  public ByteLineSource(Path path, Charset charset, int retain) throws IOException {
+    this(FileChannel.open(path, StandardOpenOption.READ), true, 0, -1, charset, retain);
+  }
+
+  /**
+   * Constructor to read a region of file. the channel is not closed by {@link #close()}.
+   * @param channel file
+   * @param begin   offset of the head of the first line
+   * @param end     exclusive end offset
+   * @param charset charset. must be supported.
+   * @param retain  number of recent lines whose views must stay valid
+   * @throws IOException I/O error
+   */
+  public ByteLineSource(FileChannel channel, long begin, long end, Charset charset, int retain)
+      throws IOException {
+    this(channel, false, begin, end, charset, retain);
+  }
+
+  private ByteLineSource(FileChannel channel, boolean ownChannel, long begin, long end,
+      Charset charset, int retain) throws IOException {
+    Objects.requireNonNull(channel);
+    try {
+      if (!isSupported(charset)) {
+        throw new IllegalArgumentException("unsupported charset " + charset);
+      }
+      this.channel = channel;
+      this.ownChannel = ownChannel;
+      this.end = end < 0 ? channel.size() : end;
+      this.filePosition = begin;
+      this.latin1 = StandardCharsets.ISO_8859_1.equals(charset);
+      this.decoder = charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      this.ring = new LineView[Math.max(1, retain)];
+      for (int i = 0; i < this.ring.length; i++) {
+        this.ring[i] = new LineView();
+      }
+    } catch (final RuntimeException e) {
+      if (ownChannel) {
+        channel.close();
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * check whether lines of the charset can be matched on bytes.
+   * @param charset charset
+   * @return true for UTF-8, US-ASCII and ISO-8859-1
+   */
+  public static boolean isSupported(Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset) || StandardCharsets.US_ASCII.equals(charset)
+        || StandardCharsets.ISO_8859_1.equals(charset);
+  }
+
+  @Override
+  public CharSequence readLine() throws IOException {
+    int i = this.position;
+    // negative if a byte is not ASCII
+    int bits = 0;
+    while (true) {
+      final byte[] buf = this.bytes;
+      final int lim = this.limit;
+      while (i < lim) {
+        final byte b = buf[i];
+        if (b == LF || b == CR) {
+          break;
+        }
+        bits |= b;
+        i++;
+      }
+
+      if (i < this.limit) {
+        if (this.bytes[i] == CR && i + 1 == this.limit && !this.endOfInput) {
+          // LF may follow
+          i -= fill();
+          continue;
+        }
+        final LineView line = nextView(this.position, i - this.position, bits);
+        if (this.bytes[i] == CR && i + 1 < this.limit && this.bytes[i + 1] == LF) {
+          this.position = i + 2;
+        } else {
+          this.position = i + 1;
+        }
+        return line;
+      }
+
+      if (this.endOfInput) {
+        if (this.position == this.limit) {
+          return null;
+        }
+        final LineView line = nextView(this.position, this.limit - this.position, bits);
+        this.position = this.limit;
+        return line;
+      }
+
+      i -= fill();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.ownChannel) {
+      this.channel.close();
+    }
+  }
+
+  private LineView nextView(int offset, int length, int bits) {
+    final LineView view = this.ring[this.ringIndex];
+    if (bits >= 0 || this.latin1) {
+      view.bytes = this.bytes;
+      view.offset = offset;
+      view.length = length;
+    } else {
+      view.bytes = null;
+      view.decode(this.decoder, this.bytes, offset, length);
+    }
+    this.ringIndex++;
+    if (this.ringIndex == this.ring.length) {
+      this.ringIndex = 0;
+    }
+    return view;
+  }
+
+  /**
+   * discard bytes no longer referred, and read more bytes.
+   * @return distance by which remaining bytes moved to the head of buffer
+   */
+  private int fill() throws IOException {
+    int keep = this.position;
+    for (final LineView view : this.ring) {
+      if (view.bytes == this.bytes && view.offset < keep) {
+        keep = view.offset;
+      }
+    }
+
+    if (keep > 0) {
+      System.arraycopy(this.bytes, keep, this.bytes, 0, this.limit - keep);
+      for (final LineView view : this.ring) {
+        if (view.bytes == this.bytes) {
+          view.offset -= keep;
+        }
+      }
+      this.position -= keep;
+      this.limit -= keep;
+    }
+
+    if (this.limit == this.bytes.length) {
+      final byte[] newBytes = Arrays.copyOf(this.bytes, this.bytes.length * 2);
+      for (final LineView view : this.ring) {
+        if (view.bytes == this.bytes) {
+          view.bytes = newBytes;
+        }
+      }
+      this.bytes = newBytes;
+    }
+
+    while (true) {
+      final long remaining = this.end - this.filePosition;
+      if (remaining <= 0) {
+        this.endOfInput = true;
+        break;
+      }
+      final ByteBuffer out = ByteBuffer.wrap(this.bytes, this.limit,
+          (int) Math.min(this.bytes.length - this.limit, remaining));
+      final int count = this.channel.read(out, this.filePosition);
+      if (count < 0) {
+        this.endOfInput = true;
+        break;
+      }
+      this.filePosition += count;
+      this.limit += count;
+      if (count > 0) {
+        break;
+      }
+    }
+
+    return keep;
+  }
+
+  /**
+   * view of a line, over bytes of ASCII or over its own decoded chars.
+   */
+  private static final class LineView implements CharSequence {
+
+    /** bytes of ASCII line. null if decoded. */
+    private byte[] bytes;
+    private int offset;
+    private int length;
+    private char[] chars = new char[0];
+
+    void decode(CharsetDecoder decoder, byte[] src, int srcOffset, int srcLength) {
+      final int capacity = (int) Math.ceil(srcLength * (double) decoder.maxCharsPerByte());
+      if (this.chars.length < capacity) {
+        this.chars = new char[Math.max(capacity, this.chars.length * 2)];
+      }
+      final CharBuffer out = CharBuffer.wrap(this.chars);
+      decoder.reset();
+      decoder.decode(ByteBuffer.wrap(src, srcOffset, srcLength), out, true);
+      decoder.flush(out);
+      this.offset = 0;
+      this.length = out.position();
+    }
+
+    @Override
+    public int length() {
+      return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= this.length) {
+        throw new IndexOutOfBoundsException("index=" + index + ", length=" + this.length);
+      }
+      final byte[] b = this.bytes;
+      return b != null ? (char) (b[this.offset + index] & 0xff) : this.chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > this.length || start > end) {
+        throw new IndexOutOfBoundsException(
+            "start=" + start + ", end=" + end + ", length=" + this.length);
+      }
+      return this.bytes != null
+          ? new String(this.bytes, this.offset + start, end - start, StandardCharsets.ISO_8859_1)
+          : new String(this.chars, start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      return this.bytes != null
+          ? new String(this.bytes, this.offset, this.length, StandardCharsets.ISO_8859_1)
+          : new String(this.chars, 0, this.length);
+    }
+  }
+}
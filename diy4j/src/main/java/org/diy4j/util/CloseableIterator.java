@@ -0,0 +1,13 @@
+package org.diy4j.util;
+
+import java.util.Iterator;
+
+/**
+ * <code>Iterator</code> bound to a resource.<br>
+ * The resource is released by {@link #close()}, or when the iteration reaches the end.
+ */
+public interface CloseableIterator<E> extends Iterator<E>, AutoCloseable {
+
+  @Override
+  void close();
+}
@@ -0,0 +1,544 @@
+package org.diy4j.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * <code>InputStream</code> of a compressed file, decompressed by a background thread.<br>
+ * A gzip file of several members, e.g. concatenated by logrotate or written by pigz or bgzip,
+ * is split at member headers, and the members are decompressed in parallel by the executor.
+ * A byte sequence which only looks like a member header is found by the failure of
+ * decompression, and the members around it are decompressed again as one.
+ * Entries of a zip file are read in order, separated by LF if an entry does not end with a line
+ * terminator.
+ * <p>
+ * Decompressed data is passed to the reader through a bounded buffer, so that decompression
+ * runs ahead of the reader by a limited amount. A member decompressed in parallel is streamed
+ * through a bounded buffer of its own, so the memory does not depend on the size of members.
+ * </p>
+ */
+public final class DecompressingInputStream extends InputStream {
+
+  /** format of compressed file. */
+  public enum Format {
+    GZIP, ZIP
+  }
+
+  private static final int BLOCK_SIZE = 1 << 16;
+  /** capacity of the buffer in blocks. */
+  private static final int QUEUE_CAPACITY = 64;
+  /** capacity of the buffer of a segment decompressed ahead, in blocks. */
+  private static final int SEGMENT_CAPACITY = 16;
+  /** lower limit of compressed size decompressed by a task. */
+  private static final long MIN_SEGMENT_SIZE = 1L << 20;
+  private static final int SCAN_SIZE = 1 << 20;
+  /** length of gzip header without optional fields. */
+  private static final int GZIP_HEADER_SIZE = 10;
+  private static final byte[] END = new byte[0];
+
+  /** blocks of decompressed data, followed by {@link #END} or <code>Throwable</code>. */
+  private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread producer;
+  private byte[] block = new byte[0];
+  private int position = 0;
+  private boolean eof = false;
+  private volatile boolean closed = false;
+
+  private DecompressingInputStream(Path path, Format format, ExecutorService executor,
+      int parallelism) throws IOException {
+    final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.producer = new Thread(() -> produce(channel, format, executor, parallelism),
+        "decompress-" + path.getFileName());
+    this.producer.setDaemon(true);
+    this.producer.start();
+  }
+
+  /**
+   * detect format of file by the leading bytes.
+   * @param path file
+   * @return format, or null if the file is not compressed or absent
+   * @throws IOException I/O error
+   */
+  public static Format detect(Path path) throws IOException {
+    final ByteBuffer buf = ByteBuffer.allocate(4);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      while (buf.hasRemaining() && channel.read(buf) >= 0) {
+        continue;
+      }
+    } catch (final NoSuchFileException e) {
+      return null;
+    }
+    final byte[] head = buf.array();
+    if (buf.position() >= 2 && head[0] == (byte) 0x1f && head[1] == (byte) 0x8b) {
+      return Format.GZIP;
+    }
+    if (buf.position() == 4 && head[0] == 'P' && head[1] == 'K' && head[2] == 3
+        && head[3] == 4) {
+      return Format.ZIP;
+    }
+    return null;
+  }
+
+  /**
+   * open compressed file.
+   * @param path        file
+   * @param format      format of file
+   * @param executor    executor of decompression of gzip members
+   * @param parallelism number of members decompressed at once
+   * @return stream of decompressed data
+   * @throws IOException I/O error
+   */
+  public static DecompressingInputStream open(Path path, Format format, ExecutorService executor,
+      int parallelism) throws IOException {
+    Objects.requireNonNull(path);
+    Objects.requireNonNull(format);
+    Objects.requireNonNull(executor);
+    return new DecompressingInputStream(path, format, executor, Math.max(1, parallelism));
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return this.block[this.position++] & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    Objects.requireNonNull(b);
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+    final int n = Math.min(len, this.block.length - this.position);
+    System.arraycopy(this.block, this.position, b, off, n);
+    this.position += n;
+    return n;
+  }
+
+  @Override
+  public void close() {
+    if (this.closed) {
+      return;
+    }
+    this.closed = true;
+    this.producer.interrupt();
+    this.queue.clear();
+  }
+
+  /**
+   * take the next block if the current block is consumed.
+   * @return false at the end of data
+   */
+  private boolean fill() throws IOException {
+    if (this.closed) {
+      throw new IOException("closed");
+    }
+    while (this.position == this.block.length) {
+      if (this.eof) {
+        return false;
+      }
+      final Object next;
+      try {
+        next = this.queue.take();
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+      if (next == END) {
+        this.eof = true;
+      } else if (next instanceof Throwable) {
+        this.eof = true;
+        throw new IOException((Throwable) next);
+      } else {
+        this.block = (byte[]) next;
+        this.position = 0;
+      }
+    }
+    return true;
+  }
+
+  private void produce(FileChannel channel, Format format, ExecutorService executor,
+      int parallelism) {
+    try (FileChannel ch = channel) {
+      if (format == Format.ZIP) {
+        produceZip(ch);
+      } else {
+        final long[] bounds = findMembers(ch);
+        if (bounds.length <= 2 || parallelism == 1) {
+          copy(new GZIPInputStream(new RangeInputStream(ch, 0, ch.size()), BLOCK_SIZE));
+        } else {
+          produceParallel(ch, bounds, executor, parallelism);
+        }
+      }
+      put(END);
+    } catch (final InterruptedException | InterruptedIOException e) {
+      // closed by reader
+    } catch (final Throwable e) {
+      if (!this.closed) {
+        this.queue.clear();
+        this.queue.offer(e);
+      }
+    }
+  }
+
+  private void produceZip(FileChannel channel) throws IOException, InterruptedException {
+    final ZipInputStream in = new ZipInputStream(new RangeInputStream(channel, 0,
+        channel.size()));
+    byte last = '\n';
+    ZipEntry entry;
+    while ((entry = in.getNextEntry()) != null) {
+      if (entry.isDirectory()) {
+        continue;
+      }
+      if (last != '\n' && last != '\r') {
+        put(new byte[] { '\n' });
+      }
+      final byte entryLast = copy(in);
+      if (entryLast != 0) {
+        last = entryLast;
+      }
+    }
+  }
+
+  /**
+   * decompress segments in parallel, and pass them in order.
+   */
+  private void produceParallel(FileChannel channel, long[] bounds, ExecutorService executor,
+      int parallelism) throws IOException, InterruptedException {
+    final int segmentCount = bounds.length - 1;
+    final Deque<Segment> inFlight = new ArrayDeque<>();
+    // index of the segment at the head of inFlight, and of the next segment to submit
+    int head = 0;
+    int next = 0;
+    try {
+      while (head < segmentCount) {
+        while (next < segmentCount && inFlight.size() < parallelism * 2) {
+          final Segment segment = new Segment(channel, bounds[next], bounds[next + 1], 0);
+          segment.future = executor.submit(segment);
+          inFlight.add(segment);
+          next++;
+        }
+
+        // kept in flight to be cancelled if the reader closes during the transfer
+        final Segment segment = inFlight.peek();
+        try {
+          segment.transfer();
+          inFlight.poll();
+          head++;
+        } catch (final InterruptedIOException e) {
+          throw e;
+        } catch (final IOException e) {
+          // false member header at the end. retry with the following segments merged, skipping
+          // the data passed already.
+          for (final Segment s : inFlight) {
+            s.cancel();
+          }
+          inFlight.clear();
+          long passed = segment.passed;
+          for (int last = head + 2; ; last++) {
+            if (last > segmentCount) {
+              throw e;
+            }
+            final Segment merged = new Segment(channel, bounds[head], bounds[last], passed);
+            try {
+              merged.transfer();
+              head = last;
+              break;
+            } catch (final InterruptedIOException interrupted) {
+              throw interrupted;
+            } catch (final IOException retryFailure) {
+              passed = merged.passed;
+            }
+          }
+          next = head;
+        }
+      }
+    } finally {
+      for (final Segment s : inFlight) {
+        s.cancel();
+      }
+    }
+  }
+
+  /**
+   * pass the rest of stream in blocks.
+   * @return the last byte, or 0 if empty
+   */
+  private byte copy(InputStream in) throws IOException, InterruptedException {
+    byte last = 0;
+    while (true) {
+      final byte[] buf = new byte[BLOCK_SIZE];
+      int length = 0;
+      int n;
+      while (length < buf.length && (n = in.read(buf, length, buf.length - length)) >= 0) {
+        length += n;
+      }
+      if (length == 0) {
+        return last;
+      }
+      last = buf[length - 1];
+      put(length == buf.length ? buf : Arrays.copyOf(buf, length));
+      if (length < buf.length) {
+        return last;
+      }
+    }
+  }
+
+  private void put(Object element) throws InterruptedException {
+    if (this.closed) {
+      throw new InterruptedException();
+    }
+    this.queue.put(element);
+  }
+
+  /**
+   * find offsets of gzip member headers, at intervals of at least
+   * <code>MIN_SEGMENT_SIZE</code>.
+   * @return bounds of segments. the first is 0 and the last is the file size.
+   */
+  private static long[] findMembers(FileChannel channel) throws IOException {
+    final long size = channel.size();
+    final List<Long> boundList = new ArrayList<>();
+    boundList.add(0L);
+    if (size >= MIN_SEGMENT_SIZE * 2) {
+      final ByteBuffer buf = ByteBuffer.allocate(SCAN_SIZE);
+      final byte[] arr = buf.array();
+      long offset = MIN_SEGMENT_SIZE;
+      while (offset + GZIP_HEADER_SIZE <= size) {
+        buf.clear();
+        final int n = channel.read(buf, offset);
+        if (n < GZIP_HEADER_SIZE) {
+          break;
+        }
+        long found = -1;
+        for (int i = 0; i + GZIP_HEADER_SIZE <= n; i++) {
+          if (isMemberHeader(arr, i)) {
+            found = offset + i;
+            break;
+          }
+        }
+        if (found >= 0) {
+          boundList.add(found);
+          offset = found + MIN_SEGMENT_SIZE;
+        } else {
+          offset += n - GZIP_HEADER_SIZE + 1;
+        }
+      }
+    }
+    boundList.add(size);
+
+    final long[] bounds = new long[boundList.size()];
+    for (int i = 0; i < bounds.length; i++) {
+      bounds[i] = boundList.get(i);
+    }
+    return bounds;
+  }
+
+  /** magic, deflate method, no reserved flag, and known OS. */
+  private static boolean isMemberHeader(byte[] arr, int i) {
+    if (arr[i] != (byte) 0x1f || arr[i + 1] != (byte) 0x8b || arr[i + 2] != 8
+        || (arr[i + 3] & 0xe0) != 0) {
+      return false;
+    }
+    final int os = arr[i + 9] & 0xff;
+    return os <= 13 || os == 255;
+  }
+
+  /** receiver of decompressed blocks. */
+  @FunctionalInterface
+  private interface BlockSink {
+    void accept(byte[] block) throws InterruptedException;
+  }
+
+  /**
+   * segment of gzip members, decompressed by a task into a bounded buffer of its own, or by the
+   * producer if no task has started it when its data is needed.<br>
+   * A task is cancelled by a flag, not by interrupt, which would close the shared channel.
+   */
+  private final class Segment implements Runnable {
+
+    private final BlockingQueue<Object> blocks = new ArrayBlockingQueue<>(SEGMENT_CAPACITY);
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final FileChannel channel;
+    private final long begin;
+    private final long end;
+    /** length of decompressed data which the reader has got. */
+    private long passed;
+    private volatile boolean cancelled = false;
+    private Future<?> future;
+
+    Segment(FileChannel channel, long begin, long end, long passed) {
+      this.channel = channel;
+      this.begin = begin;
+      this.end = end;
+      this.passed = passed;
+    }
+
+    @Override
+    public void run() {
+      if (!this.started.compareAndSet(false, true)) {
+        return;
+      }
+      Object last;
+      try {
+        inflate(0, this::offer);
+        last = END;
+      } catch (final InterruptedException e) {
+        return;
+      } catch (final Throwable e) {
+        last = e;
+      }
+      try {
+        offer(last);
+      } catch (final InterruptedException e) {
+        // cancelled
+      }
+    }
+
+    /**
+     * pass the data after the length passed already to the reader.
+     * @throws IOException failure of decompression, after the data before it is passed
+     */
+    void transfer() throws IOException, InterruptedException {
+      if (this.started.compareAndSet(false, true)) {
+        inflate(this.passed, this::pass);
+        return;
+      }
+      while (true) {
+        final Object next = this.blocks.take();
+        if (next == END) {
+          return;
+        } else if (next instanceof IOException) {
+          throw (IOException) next;
+        } else if (next instanceof Throwable) {
+          throw new IOException((Throwable) next);
+        }
+        pass((byte[]) next);
+      }
+    }
+
+    void cancel() {
+      this.cancelled = true;
+      if (this.future != null) {
+        this.future.cancel(false);
+      }
+    }
+
+    private void pass(byte[] block) throws InterruptedException {
+      put(block);
+      this.passed += block.length;
+    }
+
+    private void offer(Object element) throws InterruptedException {
+      while (!this.blocks.offer(element, 10, TimeUnit.MILLISECONDS)) {
+        if (this.cancelled) {
+          throw new InterruptedException();
+        }
+      }
+    }
+
+    /**
+     * decompress the segment in blocks.
+     * @param skip length of data not to pass
+     * @param sink receiver of blocks
+     */
+    private void inflate(long skip, BlockSink sink) throws IOException, InterruptedException {
+      try (InputStream in = new GZIPInputStream(new RangeInputStream(this.channel, this.begin,
+          this.end), BLOCK_SIZE)) {
+        long offset = 0;
+        while (true) {
+          if (this.cancelled) {
+            throw new InterruptedException();
+          }
+          final byte[] buf = new byte[BLOCK_SIZE];
+          int length = 0;
+          int n;
+          while (length < buf.length && (n = in.read(buf, length, buf.length - length)) >= 0) {
+            length += n;
+          }
+          if (length == 0) {
+            return;
+          }
+          final int from = (int) Math.max(0, Math.min(length, skip - offset));
+          offset += length;
+          if (from < length) {
+            sink.accept(from == 0 && length == buf.length ? buf
+                : Arrays.copyOfRange(buf, from, length));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * stream of a region of file. reads by position, so that threads share the channel.
+   */
+  private static final class RangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    RangeInputStream(FileChannel channel, long begin, long end) {
+      this.channel = channel;
+      this.position = begin;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final byte[] b = new byte[1];
+      return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (this.position >= this.end) {
+        return -1;
+      }
+      final int n = this.channel.read(ByteBuffer.wrap(b, off,
+          (int) Math.min(len, this.end - this.position)), this.position);
+      if (n < 0) {
+        return -1;
+      }
+      this.position += n;
+      return n;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(Integer.MAX_VALUE, this.end - this.position);
+    }
+  }
+}
@@ -0,0 +1,229 @@
+package org.diy4j.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * byte level operations to split a text file into ranges of whole lines.<br>
+ * Lines are terminated by LF, CR or CR LF, in the same way as
+ * <code>BufferedReader.readLine()</code>.
+ * Only charsets in which CR and LF are single bytes that never appear inside another character
+ * are supported. see {@link #isSupported(Charset)}.
+ */
+public final class LineChunker {
+
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+  private static final int READ_SIZE = 64 * 1024;
+
+  private LineChunker() {
+  }
+
+  /**
+   * check whether line boundaries of the charset can be found on bytes.
+   * @param charset charset of file
+   * @return true if CR and LF are encoded as single ASCII bytes
+   */
+  public static boolean isSupported(Charset charset) {
+    if (charset == null || !charset.canEncode()) {
+      return false;
+    }
+    final byte[] expected = { CR, LF, 'A' };
+    return Arrays.equals(expected, "\r\nA".getBytes(charset));
+  }
+
+  /**
+   * split file into chunks at line boundaries.
+   * @param channel   file
+   * @param chunkSize approximate size of chunk in bytes
+   * @return offsets of chunk boundaries. the first is 0, and the last is the file size.
+   * @throws IOException I/O error
+   */
+  public static long[] split(FileChannel channel, long chunkSize) throws IOException {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("chunkSize=" + chunkSize);
+    }
+    final long size = channel.size();
+    long[] bounds = new long[(int) Math.min(Integer.MAX_VALUE - 8, size / chunkSize + 2)];
+    int count = 0;
+    bounds[count++] = 0;
+
+    final ByteBuffer buf = ByteBuffer.allocate(READ_SIZE);
+    long target = chunkSize;
+    while (target < size) {
+      final long lineEnd = indexOf(channel, buf, target - 1, size, LF);
+      if (lineEnd < 0 || lineEnd + 1 >= size) {
+        break;
+      }
+      if (count == bounds.length - 1) {
+        bounds = Arrays.copyOf(bounds, bounds.length * 2);
+      }
+      bounds[count++] = lineEnd + 1;
+      target = lineEnd + 1 + chunkSize;
+    }
+    bounds[count++] = size;
+
+    return Arrays.copyOf(bounds, count);
+  }
+
+  /**
+   * find the head of the first line beginning at or after offset. lines are split only at LF.
+   * @param channel file
+   * @param offset  offset
+   * @return offset of the head of line, or the file size if absent
+   * @throws IOException I/O error
+   */
+  public static long nextLineHead(FileChannel channel, long offset) throws IOException {
+    if (offset <= 0) {
+      return 0;
+    }
+    final long size = channel.size();
+    if (offset >= size) {
+      return size;
+    }
+    final long lineEnd = indexOf(channel, ByteBuffer.allocate(READ_SIZE), offset - 1, size, LF);
+    return lineEnd < 0 ? size : lineEnd + 1;
+  }
+
+  /**
+   * count lines in range. the range must begin at the head of a line.
+   * @param channel file
+   * @param begin   inclusive offset
+   * @param end     exclusive offset
+   * @return the number of lines which <code>BufferedReader.readLine()</code> returns
+   * @throws IOException I/O error
+   */
+  public static long countLines(FileChannel channel, long begin, long end) throws IOException {
+    final ByteBuffer buf = ByteBuffer.allocate(READ_SIZE);
+    long count = 0;
+    byte prev = LF;
+    long position = begin;
+    while (position < end) {
+      buf.clear();
+      if (end - position < buf.capacity()) {
+        buf.limit((int) (end - position));
+      }
+      final int n = channel.read(buf, position);
+      if (n < 0) {
+        break;
+      }
+      final byte[] arr = buf.array();
+      for (int i = 0; i < n; i++) {
+        final byte b = arr[i];
+        if (b == CR) {
+          count++;
+        } else if (b == LF && prev != CR) {
+          count++;
+        }
+        prev = b;
+      }
+      position += n;
+    }
+    if (prev != LF && prev != CR) {
+      // last line without terminator
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * find the head of the line <code>lineCount</code> lines before <code>offset</code>.
+   * if lines are terminated by single CR, more lines than requested may precede the offset.
+   * @param channel   file
+   * @param offset    head of a line
+   * @param lineCount number of lines
+   * @return offset of the head of line
+   * @throws IOException I/O error
+   */
+  public static long rewind(FileChannel channel, long offset, int lineCount) throws IOException {
+    if (lineCount <= 0 || offset <= 0) {
+      return offset;
+    }
+    final ByteBuffer buf = ByteBuffer.allocate(READ_SIZE);
+    // the byte at offset - 1 terminates the previous line.
+    long end = offset - 1;
+    int found = 0;
+    while (end > 0) {
+      final long begin = Math.max(0, end - buf.capacity());
+      buf.clear();
+      buf.limit((int) (end - begin));
+      int read = 0;
+      while (buf.hasRemaining()) {
+        final int n = channel.read(buf, begin + read);
+        if (n < 0) {
+          break;
+        }
+        read += n;
+      }
+      final byte[] arr = buf.array();
+      for (int i = read - 1; i >= 0; i--) {
+        if (arr[i] == LF) {
+          found++;
+          if (found == lineCount) {
+            return begin + i + 1;
+          }
+        }
+      }
+      end = begin;
+    }
+    return 0;
+  }
+
+  /**
+   * find the end of the last whole line in range. the range must begin at the head of a line.
+   * CR at the end of range does not terminate a line, because LF may follow it later.
+   * @param channel file
+   * @param begin   inclusive offset
+   * @param end     exclusive offset
+   * @return offset next to the terminator of the last whole line, or <code>begin</code> if absent
+   * @throws IOException I/O error
+   */
+  public static long lastLineEnd(FileChannel channel, long begin, long end) throws IOException {
+    final ByteBuffer buf = ByteBuffer.allocate(READ_SIZE);
+    long limit = end;
+    while (limit > begin) {
+      final long from = Math.max(begin, limit - buf.capacity());
+      buf.clear();
+      buf.limit((int) (limit - from));
+      int read = 0;
+      while (buf.hasRemaining()) {
+        final int n = channel.read(buf, from + read);
+        if (n < 0) {
+          break;
+        }
+        read += n;
+      }
+      final byte[] arr = buf.array();
+      for (int i = read - 1; i >= 0; i--) {
+        if (arr[i] == LF || (arr[i] == CR && from + i + 1 < end)) {
+          return from + i + 1;
+        }
+      }
+      limit = from;
+    }
+    return begin;
+  }
+
+  private static long indexOf(FileChannel channel, ByteBuffer buf, long from, long end, byte b)
+      throws IOException {
+    long position = from;
+    while (position < end) {
+      buf.clear();
+      final int n = channel.read(buf, position);
+      if (n < 0) {
+        break;
+      }
+      final byte[] arr = buf.array();
+      for (int i = 0; i < n; i++) {
+        if (arr[i] == b) {
+          return position + i;
+        }
+      }
+      position += n;
+    }
+    return -1;
+  }
+}
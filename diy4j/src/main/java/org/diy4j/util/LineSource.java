@@ -0,0 +1,18 @@
+package org.diy4j.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * sequential source of text lines.
+ */
+public interface LineSource extends Closeable {
+
+  /**
+   * read next line.<br>
+   * Returned value may be a view which is overwritten by later calls. see implementation.
+   * @return line without terminator, or null at the end of source
+   * @throws IOException I/O error
+   */
+  CharSequence readLine() throws IOException;
+}
@@ -0,0 +1,283 @@
+package org.diy4j.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * <code>LineSource</code> reading a file through <code>FileChannel.map</code>.<br>
+ * The file is decoded into a reused char buffer, and each line is returned as a
+ * <code>CharSequence</code> view over the buffer without creating <code>String</code>.
+ * The views of the last <code>retain</code> lines stay valid. Older views are recycled.
+ * <code>subSequence</code> and <code>toString</code> of a view create a new <code>String</code>.
+ * <p>
+ * Lines are terminated by LF, CR or CR LF, in the same way as
+ * <code>BufferedReader.readLine()</code>.
+ * Malformed input is replaced in the same way as <code>InputStreamReader</code>.
+ * </p>
+ */
+public final class MappedLineSource implements LineSource {
+
+  /** size of file region mapped at once. */
+  private static final long SEGMENT_SIZE = 1L << 26;
+  /** remaining byte count to map next segment. longer than any encoded character. */
+  private static final int REMAP_THRESHOLD = 16;
+  private static final int INITIAL_CAPACITY = 1 << 16;
+
+  private final FileChannel channel;
+  private final boolean ownChannel;
+  private final long end;
+  private final CharsetDecoder decoder;
+
+  /** views handed out recently. */
+  private final LineView[] ring;
+  private int ringIndex = 0;
+
+  /** file offset of the head of mapped segment. */
+  private long segmentBegin;
+  private ByteBuffer segment;
+  private boolean endOfInput = false;
+
+  private char[] chars = new char[INITIAL_CAPACITY];
+  /** index of the next char to read. */
+  private int position = 0;
+  /** end of decoded chars. */
+  private int limit = 0;
+
+  /**
+   * Constructor.
+   * @param path    file
+   * @param charset charset
+   * @param retain  number of recent lines whose views must stay valid
+   * @throws IOException I/O error
+   */
+  public MappedLineSource(Path path, Charset charset, int retain) throws IOException {
+    this(FileChannel.open(path, StandardOpenOption.READ), true, 0, -1, charset, retain);
+  }
+
+  /**
+   * Constructor to read a region of file. the channel is not closed by {@link #close()}.
+   * @param channel file
+   * @param begin   offset of the head of the first line
+   * @param end     exclusive end offset
+   * @param charset charset
+   * @param retain  number of recent lines whose views must stay valid
+   * @throws IOException I/O error
+   */
+  public MappedLineSource(FileChannel channel, long begin, long end, Charset charset,
+      int retain) throws IOException {
+    this(channel, false, begin, end, charset, retain);
+  }
+
+  private MappedLineSource(FileChannel channel, boolean ownChannel, long begin, long end,
+      Charset charset, int retain) throws IOException {
+    Objects.requireNonNull(channel);
+    try {
+      Objects.requireNonNull(charset);
+      this.channel = channel;
+      this.ownChannel = ownChannel;
+      this.end = end < 0 ? channel.size() : end;
+      this.decoder = charset.newDecoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      this.ring = new LineView[Math.max(1, retain)];
+      for (int i = 0; i < this.ring.length; i++) {
+        this.ring[i] = new LineView();
+      }
+      map(begin);
+    } catch (IOException | RuntimeException e) {
+      if (ownChannel) {
+        channel.close();
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public CharSequence readLine() throws IOException {
+    int i = this.position;
+    while (true) {
+      while (i < this.limit) {
+        final char c = this.chars[i];
+        if (c == '\n' || c == '\r') {
+          break;
+        }
+        i++;
+      }
+
+      if (i < this.limit) {
+        if (this.chars[i] == '\r' && i + 1 == this.limit && !this.endOfInput) {
+          // LF may follow
+          i -= fill();
+          continue;
+        }
+        final LineView line = nextView(this.position, i - this.position);
+        if (this.chars[i] == '\r' && i + 1 < this.limit && this.chars[i + 1] == '\n') {
+          this.position = i + 2;
+        } else {
+          this.position = i + 1;
+        }
+        return line;
+      }
+
+      if (this.endOfInput) {
+        if (this.position == this.limit) {
+          return null;
+        }
+        final LineView line = nextView(this.position, this.limit - this.position);
+        this.position = this.limit;
+        return line;
+      }
+
+      i -= fill();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.segment = null;
+    if (this.ownChannel) {
+      this.channel.close();
+    }
+  }
+
+  private LineView nextView(int offset, int length) {
+    final LineView view = this.ring[this.ringIndex];
+    view.chars = this.chars;
+    view.offset = offset;
+    view.length = length;
+    this.ringIndex++;
+    if (this.ringIndex == this.ring.length) {
+      this.ringIndex = 0;
+    }
+    return view;
+  }
+
+  /**
+   * discard chars no longer referred, and decode more chars.
+   * @return distance by which remaining chars moved to the head of buffer
+   */
+  private int fill() throws IOException {
+    int keep = this.position;
+    for (final LineView view : this.ring) {
+      if (view.chars == this.chars && view.offset < keep) {
+        keep = view.offset;
+      }
+    }
+
+    if (keep > 0) {
+      System.arraycopy(this.chars, keep, this.chars, 0, this.limit - keep);
+      for (final LineView view : this.ring) {
+        if (view.chars == this.chars) {
+          view.offset -= keep;
+        }
+      }
+      this.position -= keep;
+      this.limit -= keep;
+    }
+
+    final int oldLimit = this.limit;
+    if (this.limit == this.chars.length) {
+      grow();
+    }
+    decode();
+    while (this.limit == oldLimit && !this.endOfInput) {
+      // no room for the next character. e.g. surrogate pair
+      grow();
+      decode();
+    }
+
+    return keep;
+  }
+
+  private void grow() {
+    final char[] newChars = Arrays.copyOf(this.chars, this.chars.length * 2);
+    for (final LineView view : this.ring) {
+      if (view.chars == this.chars) {
+        view.chars = newChars;
+      }
+    }
+    this.chars = newChars;
+  }
+
+  private void decode() throws IOException {
+    final CharBuffer out = CharBuffer.wrap(this.chars, this.limit,
+        this.chars.length - this.limit);
+
+    while (out.hasRemaining() && !this.endOfInput) {
+      final boolean lastSegment = this.segmentBegin + this.segment.limit() >= this.end;
+      if (!lastSegment && this.segment.remaining() < REMAP_THRESHOLD) {
+        map(this.segmentBegin + this.segment.position());
+        continue;
+      }
+
+      final CoderResult result = this.decoder.decode(this.segment, out, lastSegment);
+      if (result.isOverflow()) {
+        break;
+      }
+      if (lastSegment) {
+        if (this.decoder.flush(out).isOverflow()) {
+          break;
+        }
+        this.endOfInput = true;
+      } else {
+        map(this.segmentBegin + this.segment.position());
+      }
+    }
+
+    this.limit = out.position();
+  }
+
+  private void map(long offset) throws IOException {
+    final long size = Math.min(SEGMENT_SIZE, Math.max(0, this.end - offset));
+    this.segment = this.channel.map(MapMode.READ_ONLY, offset, size);
+    this.segmentBegin = offset;
+  }
+
+  /**
+   * view of a line in the char buffer.
+   */
+  private static final class LineView implements CharSequence {
+
+    private char[] chars;
+    private int offset;
+    private int length;
+
+    @Override
+    public int length() {
+      return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      if (index < 0 || index >= this.length) {
+        throw new IndexOutOfBoundsException("index=" + index + ", length=" + this.length);
+      }
+      return this.chars[this.offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      if (start < 0 || end > this.length || start > end) {
+        throw new IndexOutOfBoundsException(
+            "start=" + start + ", end=" + end + ", length=" + this.length);
+      }
+      return new String(this.chars, this.offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+      return new String(this.chars, this.offset, this.length);
+    }
+  }
+}
@@ -0,0 +1,313 @@
+package org.diy4j.util;
+
+/**
+ * parses numbers from a region of <code>CharSequence</code>, without creating string and
+ * without throwing exception for invalid text.<br>
+ * The accepted text is the same as <code>Long.parseLong</code>, <code>Double.parseDouble</code>
+ * and <code>Boolean.parseBoolean</code>. Invalid text is reported by a sentinel value, which is
+ * told from the same valid value by <code>isInvalid</code>. Surrounding whitespace is not
+ * accepted by integral parser, so trim region by <code>trimBegin</code> and
+ * <code>trimEnd</code> in advance.
+ */
+public final class NumberParser {
+
+  /** returned by <code>parseLong</code> for invalid text. */
+  public static final long INVALID_LONG = Long.MIN_VALUE;
+
+  /** largest mantissa which <code>double</code> represents exactly. */
+  private static final long MAX_EXACT_DOUBLE = 1L << 53;
+  /** largest mantissa which <code>float</code> represents exactly. */
+  private static final long MAX_EXACT_FLOAT = 1L << 24;
+  /** powers of ten which <code>double</code> represents exactly. */
+  private static final double[] DOUBLE_POW10 = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+  /** powers of ten which <code>float</code> represents exactly. */
+  private static final float[] FLOAT_POW10 = {
+    1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f
+  };
+  /** decimal digits of mantissa which is packed with scale into <code>long</code>. */
+  private static final int MAX_FAST_DIGITS = 16;
+
+  private NumberParser() {
+  }
+
+  /**
+   * skip leading characters removed by <code>String.trim()</code>.
+   * @return begin of trimmed region
+   */
+  public static int trimBegin(CharSequence s, int begin, int end) {
+    int i = begin;
+    while (i < end && s.charAt(i) <= ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * skip trailing characters removed by <code>String.trim()</code>.
+   * @return end of trimmed region
+   */
+  public static int trimEnd(CharSequence s, int begin, int end) {
+    int i = end;
+    while (i > begin && s.charAt(i - 1) <= ' ') {
+      i--;
+    }
+    return i;
+  }
+
+  /**
+   * parse decimal integer in range. digits are read by <code>Character.digit</code>.
+   * @param s     text
+   * @param begin begin of region
+   * @param end   end of region
+   * @param min   lower limit
+   * @param max   upper limit, which is <code>-(min + 1)</code>
+   * @return value, or <code>INVALID_LONG</code> if invalid or out of range
+   */
+  public static long parseLong(CharSequence s, int begin, int end, long min, long max) {
+    if (begin >= end) {
+      return INVALID_LONG;
+    }
+    int i = begin;
+    boolean negative = false;
+    final char first = s.charAt(i);
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      i++;
+      if (i == end) {
+        return INVALID_LONG;
+      }
+    }
+    // accumulate negatively, as the magnitude of min is larger than max
+    final long limit = negative ? min : -max;
+    final long multmin = limit / 10;
+    long result = 0;
+    for (; i < end; i++) {
+      final int digit = Character.digit(s.charAt(i), 10);
+      if (digit < 0 || result < multmin) {
+        return INVALID_LONG;
+      }
+      result *= 10;
+      if (result < limit + digit) {
+        return INVALID_LONG;
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+
+  /**
+   * check the result of <code>parseLong</code>.
+   * @param value result
+   * @param min   lower limit passed to <code>parseLong</code>
+   * @param s     text parsed
+   * @param begin begin of region
+   * @param end   end of region
+   * @return true if the text is invalid
+   */
+  public static boolean isInvalid(long value, long min, CharSequence s, int begin, int end) {
+    if (value != INVALID_LONG) {
+      return false;
+    }
+    // only the text of Long.MIN_VALUE is parsed to the sentinel
+    return min != Long.MIN_VALUE || !contentEquals(s, begin, end, "-9223372036854775808");
+  }
+
+  /**
+   * parse text in the form of <code>Double.parseDouble</code>. a plain decimal whose digits fit
+   * in 53 bits is parsed without creating string, and is correctly rounded.
+   * @param s     text
+   * @param begin begin of region
+   * @param end   end of region
+   * @return value, or NaN if invalid
+   */
+  public static double parseDouble(CharSequence s, int begin, int end) {
+    final int b = trimBegin(s, begin, end);
+    final int e = trimEnd(s, b, end);
+    final long packed = scanDecimal(s, b, e);
+    if (packed >= 0) {
+      final long mantissa = packed >>> 8;
+      final int scale = (int) (packed & 0x7f);
+      if (mantissa <= MAX_EXACT_DOUBLE && scale < DOUBLE_POW10.length) {
+        final double value = mantissa / DOUBLE_POW10[scale];
+        return s.charAt(b) == '-' ? -value : value;
+      }
+    }
+    if (!isFloatingLiteral(s, b, e)) {
+      return Double.NaN;
+    }
+    try {
+      return Double.parseDouble(s.subSequence(b, e).toString());
+    } catch (final NumberFormatException ex) {
+      // hexadecimal form which is not checked in advance
+      return Double.NaN;
+    }
+  }
+
+  /**
+   * parse text in the form of <code>Float.parseFloat</code>.
+   * @param s     text
+   * @param begin begin of region
+   * @param end   end of region
+   * @return value, or NaN if invalid
+   */
+  public static float parseFloat(CharSequence s, int begin, int end) {
+    final int b = trimBegin(s, begin, end);
+    final int e = trimEnd(s, b, end);
+    final long packed = scanDecimal(s, b, e);
+    if (packed >= 0) {
+      final long mantissa = packed >>> 8;
+      final int scale = (int) (packed & 0x7f);
+      if (mantissa <= MAX_EXACT_FLOAT && scale < FLOAT_POW10.length) {
+        final float value = mantissa / FLOAT_POW10[scale];
+        return s.charAt(b) == '-' ? -value : value;
+      }
+    }
+    if (!isFloatingLiteral(s, b, e)) {
+      return Float.NaN;
+    }
+    try {
+      return Float.parseFloat(s.subSequence(b, e).toString());
+    } catch (final NumberFormatException ex) {
+      return Float.NaN;
+    }
+  }
+
+  /**
+   * check the result of <code>parseDouble</code> or <code>parseFloat</code>.
+   * @param value result
+   * @param s     text parsed
+   * @param begin begin of region
+   * @param end   end of region
+   * @return true if the text is invalid
+   */
+  public static boolean isInvalid(double value, CharSequence s, int begin, int end) {
+    if (!Double.isNaN(value)) {
+      return false;
+    }
+    int b = trimBegin(s, begin, end);
+    if (b < end && (s.charAt(b) == '-' || s.charAt(b) == '+')) {
+      b++;
+    }
+    return !contentEquals(s, b, trimEnd(s, b, end), "NaN");
+  }
+
+  /**
+   * parse text in the form of <code>Boolean.parseBoolean</code>.
+   * @return true if the text is "true" ignoring case
+   */
+  public static boolean parseBoolean(CharSequence s, int begin, int end) {
+    if (end - begin != 4) {
+      return false;
+    }
+    for (int i = 0; i < 4; i++) {
+      if (Character.toLowerCase(s.charAt(begin + i)) != "true".charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * scan plain decimal <code>[+-]?\d*(\.\d*)?</code> with at least one digit.
+   * @return mantissa shifted by 8 bits, or'ed with the number of fraction digits.
+   *         negative if not plain decimal or too many digits
+   */
+  private static long scanDecimal(CharSequence s, int begin, int end) {
+    int i = begin;
+    if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int scale = 0;
+    boolean dot = false;
+    boolean anyDigit = false;
+    for (; i < end; i++) {
+      final char c = s.charAt(i);
+      if (c >= '0' && c <= '9') {
+        anyDigit = true;
+        if (mantissa != 0 || c != '0') {
+          if (++digits > MAX_FAST_DIGITS) {
+            return -1;
+          }
+          mantissa = mantissa * 10 + (c - '0');
+        }
+        if (dot) {
+          scale++;
+        }
+      } else if (c == '.' && !dot) {
+        dot = true;
+      } else {
+        return -1;
+      }
+    }
+    if (!anyDigit || scale > 0x7f) {
+      return -1;
+    }
+    return mantissa << 8 | scale;
+  }
+
+  /**
+   * check text in the form of <code>Double.parseDouble</code>, except hexadecimal form which
+   * is left to the parser.
+   */
+  private static boolean isFloatingLiteral(CharSequence s, int begin, int end) {
+    int i = begin;
+    if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+      i++;
+    }
+    if (contentEquals(s, i, end, "NaN") || contentEquals(s, i, end, "Infinity")) {
+      return true;
+    }
+    if (i + 1 < end && s.charAt(i) == '0' && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+      return true;
+    }
+    int digits = 0;
+    boolean dot = false;
+    for (; i < end; i++) {
+      final char c = s.charAt(i);
+      if (c >= '0' && c <= '9') {
+        digits++;
+      } else if (c == '.' && !dot) {
+        dot = true;
+      } else {
+        break;
+      }
+    }
+    if (digits == 0) {
+      return false;
+    }
+    if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+      i++;
+      if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) {
+        i++;
+      }
+      final int exponentBegin = i;
+      while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+        i++;
+      }
+      if (i == exponentBegin) {
+        return false;
+      }
+    }
+    if (i < end && "fFdD".indexOf(s.charAt(i)) >= 0) {
+      i++;
+    }
+    return i == end;
+  }
+
+  private static boolean contentEquals(CharSequence s, int begin, int end, String expected) {
+    if (end - begin != expected.length()) {
+      return false;
+    }
+    for (int i = 0; i < expected.length(); i++) {
+      if (s.charAt(begin + i) != expected.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,91 @@
+package org.diy4j.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * find classes of package and its subpackages in directories and jar files of class loader.
+ */
+public final class PackageScanner {
+
+  private static final String CLASS_SUFFIX = ".class";
+
+  private PackageScanner() {
+  }
+
+  /**
+   * find classes without initializing them. classes which fail to load are skipped.
+   * @param packageName package, e.g. <code>com.example.log</code>
+   * @param loader      class loader
+   * @return classes sorted by name
+   * @throws IOException failed to read class path
+   */
+  public static List<Class<?>> findClasses(String packageName, ClassLoader loader)
+      throws IOException {
+
+    final String prefix = packageName.isEmpty() ? "" : packageName.replace('.', '/') + "/";
+    final TreeSet<String> nameSet = new TreeSet<>();
+    final Enumeration<URL> urls = loader.getResources(prefix);
+    while (urls.hasMoreElements()) {
+      final URL url = urls.nextElement();
+      if ("file".equals(url.getProtocol())) {
+        try {
+          collect(new File(url.toURI()), packageName, nameSet);
+        } catch (final URISyntaxException e) {
+          throw new IOException(e);
+        }
+      } else if ("jar".equals(url.getProtocol())) {
+        final JarURLConnection connection = (JarURLConnection) url.openConnection();
+        connection.setUseCaches(false);
+        try (JarFile jar = connection.getJarFile()) {
+          final Enumeration<JarEntry> entries = jar.entries();
+          while (entries.hasMoreElements()) {
+            final String entryName = entries.nextElement().getName();
+            if (entryName.startsWith(prefix) && entryName.endsWith(CLASS_SUFFIX)) {
+              nameSet.add(entryName.substring(0, entryName.length() - CLASS_SUFFIX.length())
+                  .replace('/', '.'));
+            }
+          }
+        }
+      }
+    }
+
+    final List<Class<?>> result = new ArrayList<>();
+    for (final String name : nameSet) {
+      if (name.endsWith("package-info") || name.endsWith("module-info")) {
+        continue;
+      }
+      try {
+        result.add(Class.forName(name, false, loader));
+      } catch (final ClassNotFoundException | LinkageError e) {
+        // not loadable without optional dependency
+      }
+    }
+    return result;
+  }
+
+  private static void collect(File dir, String packageName, TreeSet<String> nameSet) {
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (final File file : files) {
+      final String name = packageName.isEmpty() ? file.getName()
+          : packageName + "." + file.getName();
+      if (file.isDirectory()) {
+        collect(file, name, nameSet);
+      } else if (name.endsWith(CLASS_SUFFIX)) {
+        nameSet.add(name.substring(0, name.length() - CLASS_SUFFIX.length()));
+      }
+    }
+  }
+}
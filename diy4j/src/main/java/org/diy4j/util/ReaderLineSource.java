@@ -0,0 +1,36 @@
+package org.diy4j.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <code>LineSource</code> reading lines from <code>Reader</code>.<br>
+ * Each line is a new <code>String</code>.
+ */
+public final class ReaderLineSource implements LineSource {
+
+  private final BufferedReader reader;
+
+  /**
+   * Constructor.
+   * @param reader  reader closed by {@link #close()}
+   */
+  public ReaderLineSource(Reader reader) {
+    if (reader instanceof BufferedReader) {
+      this.reader = (BufferedReader) reader;
+    } else {
+      this.reader = new BufferedReader(reader);
+    }
+  }
+
+  @Override
+  public CharSequence readLine() throws IOException {
+    return this.reader.readLine();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.reader.close();
+  }
+}
@@ -0,0 +1,46 @@
+package org.diy4j.util.regex;
+
+/**
+ * input which takes a step of budget for each character read by a backtracking matcher, and
+ * interrupts the match when the budget runs out.<br>
+ * Subsequences are not counted, as they are read only to take captured text.
+ */
+final class BudgetedInput implements CharSequence {
+
+  /** thrown to leave the matcher. shared, without stack trace. */
+  static final RuntimeException EXCEEDED = new RuntimeException("step budget exceeded", null,
+      false, false) {
+    private static final long serialVersionUID = 1L;
+  };
+
+  private final CharSequence input;
+  private final StepBudget budget;
+
+  BudgetedInput(CharSequence input, StepBudget budget) {
+    this.input = input;
+    this.budget = budget;
+  }
+
+  @Override
+  public char charAt(int index) {
+    if (!this.budget.step()) {
+      throw EXCEEDED;
+    }
+    return this.input.charAt(index);
+  }
+
+  @Override
+  public int length() {
+    return this.input.length();
+  }
+
+  @Override
+  public CharSequence subSequence(int start, int end) {
+    return this.input.subSequence(start, end);
+  }
+
+  @Override
+  public String toString() {
+    return this.input.toString();
+  }
+}
@@ -0,0 +1,113 @@
+package org.diy4j.util.regex;
+
+import java.util.Arrays;
+
+/**
+ * immutable set of code points as sorted disjoint ranges.
+ */
+final class CodePointSet {
+
+  static final int MAX = Character.MAX_CODE_POINT;
+
+  static final CodePointSet DIGIT = ofRanges('0', '9');
+  static final CodePointSet WORD = ofRanges('0', '9', 'A', 'Z', '_', '_', 'a', 'z');
+  static final CodePointSet SPACE = ofRanges('\t', '\r', ' ', ' ');
+  /** complement of line terminators, matched by '.'. */
+  static final CodePointSet DOT = ofRanges('\n', '\n', '\r', '\r', 0x85, 0x85,
+      0x2028, 0x2029).complement();
+
+  /** [lo0, hi0, lo1, hi1, ...]. inclusive. */
+  private final int[] rangeArr;
+
+  private CodePointSet(int[] rangeArr) {
+    this.rangeArr = rangeArr;
+  }
+
+  static CodePointSet of(int codePoint) {
+    return new CodePointSet(new int[] { codePoint, codePoint });
+  }
+
+  /**
+   * create set of ranges.
+   * @param bounds pairs of inclusive bounds. may overlap.
+   * @return set
+   */
+  static CodePointSet ofRanges(int... bounds) {
+    return new CodePointSet(normalize(bounds.clone(), bounds.length));
+  }
+
+  CodePointSet union(CodePointSet other) {
+    final int[] bounds = Arrays.copyOf(this.rangeArr,
+        this.rangeArr.length + other.rangeArr.length);
+    System.arraycopy(other.rangeArr, 0, bounds, this.rangeArr.length, other.rangeArr.length);
+    return new CodePointSet(normalize(bounds, bounds.length));
+  }
+
+  CodePointSet complement() {
+    final int[] bounds = new int[this.rangeArr.length + 2];
+    int count = 0;
+    int next = 0;
+    for (int i = 0; i < this.rangeArr.length; i += 2) {
+      if (this.rangeArr[i] > next) {
+        bounds[count++] = next;
+        bounds[count++] = this.rangeArr[i] - 1;
+      }
+      next = this.rangeArr[i + 1] + 1;
+    }
+    if (next <= MAX) {
+      bounds[count++] = next;
+      bounds[count++] = MAX;
+    }
+    return new CodePointSet(Arrays.copyOf(bounds, count));
+  }
+
+  boolean contains(int codePoint) {
+    final int[] ranges = this.rangeArr;
+    if (ranges.length <= 8) {
+      for (int i = 0; i < ranges.length; i += 2) {
+        if (codePoint < ranges[i]) {
+          return false;
+        }
+        if (codePoint <= ranges[i + 1]) {
+          return true;
+        }
+      }
+      return false;
+    }
+    int low = 0;
+    int high = ranges.length / 2 - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (codePoint < ranges[mid * 2]) {
+        high = mid - 1;
+      } else if (codePoint > ranges[mid * 2 + 1]) {
+        low = mid + 1;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int[] normalize(int[] bounds, int length) {
+    final int pairCount = length / 2;
+    final long[] pairs = new long[pairCount];
+    for (int i = 0; i < pairCount; i++) {
+      pairs[i] = ((long) bounds[i * 2] << 32) | bounds[i * 2 + 1];
+    }
+    Arrays.sort(pairs);
+    final int[] result = new int[length];
+    int count = 0;
+    for (final long pair : pairs) {
+      final int lo = (int) (pair >>> 32);
+      final int hi = (int) pair;
+      if (count > 0 && lo <= result[count - 1] + 1) {
+        result[count - 1] = Math.max(result[count - 1], hi);
+      } else {
+        result[count++] = lo;
+        result[count++] = hi;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+}
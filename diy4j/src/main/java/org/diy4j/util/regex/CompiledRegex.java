@@ -0,0 +1,31 @@
+package org.diy4j.util.regex;
+
+/**
+ * compiled regex. instance is immutable and threadsafe.
+ */
+public interface CompiledRegex {
+
+  /**
+   * source of regex.
+   * @return regex
+   */
+  String pattern();
+
+  /**
+   * create matcher of input. matcher is not threadsafe.
+   * @param input input
+   * @return matcher
+   */
+  RegexMatcher matcher(CharSequence input);
+
+  /**
+   * create matcher of input which reads characters within budget of the line. matcher is not
+   * threadsafe. linear time regex ignores the budget.
+   * @param input  input
+   * @param budget budget of the line. null for no limit.
+   * @return matcher
+   */
+  default RegexMatcher matcher(CharSequence input, StepBudget budget) {
+    return matcher(input);
+  }
+}
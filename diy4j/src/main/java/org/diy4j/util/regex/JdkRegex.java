@@ -0,0 +1,108 @@
+package org.diy4j.util.regex;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <code>CompiledRegex</code> of <code>java.util.regex.Pattern</code>.
+ */
+final class JdkRegex implements CompiledRegex {
+
+  private final Pattern pattern;
+
+  JdkRegex(Pattern pattern) {
+    this.pattern = pattern;
+  }
+
+  @Override
+  public String pattern() {
+    return this.pattern.pattern();
+  }
+
+  @Override
+  public RegexMatcher matcher(CharSequence input) {
+    final Matcher m = this.pattern.matcher(input);
+    return new RegexMatcher() {
+
+      @Override
+      public boolean matches() {
+        return m.matches();
+      }
+
+      @Override
+      public String group(String name) {
+        return m.group(name);
+      }
+
+      @Override
+      public int start(String name) {
+        return m.start(name);
+      }
+
+      @Override
+      public int end(String name) {
+        return m.end(name);
+      }
+    };
+  }
+
+  /**
+   * matcher which gives up the match when the line runs out of budget, as backtracking may
+   * take exponential time. input over budget does not match.
+   */
+  @Override
+  public RegexMatcher matcher(CharSequence input, StepBudget budget) {
+    if (budget == null) {
+      return matcher(input);
+    }
+    final Matcher m = this.pattern.matcher(new BudgetedInput(input, budget));
+    return new RegexMatcher() {
+
+      private boolean matched = false;
+
+      @Override
+      public boolean matches() {
+        try {
+          this.matched = m.matches();
+        } catch (final RuntimeException e) {
+          if (e != BudgetedInput.EXCEEDED) {
+            throw e;
+          }
+          budget.exceed();
+          this.matched = false;
+        }
+        return this.matched;
+      }
+
+      @Override
+      public String group(String name) {
+        checkMatched();
+        return m.group(name);
+      }
+
+      @Override
+      public int start(String name) {
+        checkMatched();
+        return m.start(name);
+      }
+
+      @Override
+      public int end(String name) {
+        checkMatched();
+        return m.end(name);
+      }
+
+      /** state of the matcher is undefined after interrupted. */
+      private void checkMatched() {
+        if (!this.matched) {
+          throw new IllegalStateException("No match found");
+        }
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    return this.pattern.pattern();
+  }
+}
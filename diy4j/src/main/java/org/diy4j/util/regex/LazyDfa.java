@@ -0,0 +1,204 @@
+package org.diy4j.util.regex;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DFA built lazily from program, to decide whether the whole input matches.<br>
+ * States are created on demand and shared by all threads. When the number of states reaches
+ * the limit, new states are used without caching, so memory is bounded and matching is still
+ * linear in the length of input.
+ */
+final class LazyDfa {
+
+  private static final int MAX_STATES = 4096;
+  private static final int ASCII_SIZE = 128;
+
+  private final Program program;
+  private final Map<Key, State> stateMap = new ConcurrentHashMap<>();
+  private final State start;
+  private final State dead;
+
+  LazyDfa(Program program) {
+    this.program = program;
+    this.dead = intern(new int[0]);
+    final Closure closure = new Closure(program.size);
+    closure.add(0);
+    this.start = intern(closure.toArray());
+  }
+
+  boolean matches(CharSequence input) {
+    final int length = input.length();
+    State state = this.start;
+    int i = 0;
+    while (i < length) {
+      final char c = input.charAt(i++);
+      State next;
+      if (c < ASCII_SIZE) {
+        next = state.asciiNextArr[c];
+        if (next == null) {
+          next = step(state, c);
+          if (next.cached) {
+            state.asciiNextArr[c] = next;
+          }
+        }
+      } else {
+        int codePoint = c;
+        if (Character.isHighSurrogate(c) && i < length) {
+          final char low = input.charAt(i);
+          if (Character.isLowSurrogate(low)) {
+            codePoint = Character.toCodePoint(c, low);
+            i++;
+          }
+        }
+        next = nextOfNonAscii(state, codePoint);
+      }
+      if (next == this.dead) {
+        return false;
+      }
+      state = next;
+    }
+    return state.accept;
+  }
+
+  private State nextOfNonAscii(State state, int codePoint) {
+    Map<Integer, State> otherNextMap = state.otherNextMap;
+    State next = otherNextMap == null ? null : otherNextMap.get(codePoint);
+    if (next == null) {
+      next = step(state, codePoint);
+      if (next.cached) {
+        if (otherNextMap == null) {
+          otherNextMap = new ConcurrentHashMap<>();
+          state.otherNextMap = otherNextMap;
+        }
+        otherNextMap.put(codePoint, next);
+      }
+    }
+    return next;
+  }
+
+  private State step(State state, int codePoint) {
+    final Closure closure = new Closure(this.program.size);
+    for (final int pc : state.pcArr) {
+      if (this.program.opArr[pc] == Program.CHARS
+          && this.program.setArr[pc].contains(codePoint)) {
+        closure.add(pc + 1);
+      }
+    }
+    if (closure.count == 0) {
+      return this.dead;
+    }
+    return intern(closure.toArray());
+  }
+
+  private State intern(int[] pcArr) {
+    Arrays.sort(pcArr);
+    final Key key = new Key(pcArr);
+    final State cachedState = this.stateMap.get(key);
+    if (cachedState != null) {
+      return cachedState;
+    }
+    if (this.stateMap.size() >= MAX_STATES) {
+      return new State(pcArr, isAccept(pcArr), false);
+    }
+    final State newState = new State(pcArr, isAccept(pcArr), true);
+    final State prev = this.stateMap.putIfAbsent(key, newState);
+    return prev != null ? prev : newState;
+  }
+
+  private boolean isAccept(int[] pcArr) {
+    for (final int pc : pcArr) {
+      if (this.program.opArr[pc] == Program.MATCH) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * set of instructions consuming input or matching, reached from pc without consuming.
+   */
+  private final class Closure {
+    private final boolean[] visitedArr;
+    private final int[] pcArr;
+    private final int[] stack;
+    private int count = 0;
+
+    Closure(int size) {
+      this.visitedArr = new boolean[size];
+      this.pcArr = new int[size];
+      this.stack = new int[size * 2 + 1];
+    }
+
+    void add(int pc0) {
+      final Program p = LazyDfa.this.program;
+      int top = 0;
+      this.stack[top++] = pc0;
+      while (top > 0) {
+        final int pc = this.stack[--top];
+        if (this.visitedArr[pc]) {
+          continue;
+        }
+        this.visitedArr[pc] = true;
+        switch (p.opArr[pc]) {
+          case Program.JMP:
+            this.stack[top++] = p.xArr[pc];
+            break;
+          case Program.SPLIT:
+            this.stack[top++] = p.yArr[pc];
+            this.stack[top++] = p.xArr[pc];
+            break;
+          case Program.SAVE:
+            this.stack[top++] = pc + 1;
+            break;
+          default:
+            this.pcArr[this.count++] = pc;
+            break;
+        }
+      }
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(this.pcArr, this.count);
+    }
+  }
+
+  /**
+   * state of DFA. the transitions are filled lazily, and racy writes are benign because the
+   * fields of state are final.
+   */
+  private static final class State {
+    private final int[] pcArr;
+    private final boolean accept;
+    private final boolean cached;
+    private final State[] asciiNextArr = new State[ASCII_SIZE];
+    private volatile Map<Integer, State> otherNextMap;
+
+    State(int[] pcArr, boolean accept, boolean cached) {
+      this.pcArr = pcArr;
+      this.accept = accept;
+      this.cached = cached;
+    }
+  }
+
+  private static final class Key {
+    private final int[] pcArr;
+    private final int hash;
+
+    Key(int[] pcArr) {
+      this.pcArr = pcArr;
+      this.hash = Arrays.hashCode(pcArr);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof Key && Arrays.equals(this.pcArr, ((Key) obj).pcArr);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+package org.diy4j.util.regex;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <code>CompiledRegex</code> which runs in linear time in the length of input.<br>
+ * Whether the whole input matches is decided by a lazy DFA, and captures are found by
+ * a Pike VM only when a group is requested. see {@link RegexParser} for supported syntax.
+ * If a capturing group may be matched more than once, captures of matched input are found by
+ * <code>java.util.regex</code> to keep its result.
+ */
+final class LinearRegex implements CompiledRegex {
+
+  private final Pattern pattern;
+  private final Program program;
+  private final LazyDfa dfa;
+
+  private LinearRegex(Pattern pattern, Program program) {
+    this.pattern = pattern;
+    this.program = program;
+    this.dfa = new LazyDfa(program);
+  }
+
+  /**
+   * compile regex.
+   * @param pattern regex compiled by <code>java.util.regex</code>
+   * @return compiled regex
+   * @throws UnsupportedOperationException regex uses unsupported construct
+   */
+  static LinearRegex compile(Pattern pattern) {
+    return new LinearRegex(pattern, RegexParser.parse(pattern.pattern()));
+  }
+
+  @Override
+  public String pattern() {
+    return this.pattern.pattern();
+  }
+
+  @Override
+  public RegexMatcher matcher(CharSequence input) {
+    return new LinearMatcher(input);
+  }
+
+  @Override
+  public String toString() {
+    return this.pattern.pattern();
+  }
+
+  private final class LinearMatcher implements RegexMatcher {
+
+    private final CharSequence input;
+    private boolean matched = false;
+    /** positions of captures. null until a group is requested. */
+    private int[] caps = null;
+
+    LinearMatcher(CharSequence input) {
+      this.input = input;
+    }
+
+    @Override
+    public boolean matches() {
+      this.caps = null;
+      this.matched = LinearRegex.this.dfa.matches(this.input);
+      return this.matched;
+    }
+
+    @Override
+    public String group(String name) {
+      final int index = groupIndex(name);
+      final int begin = this.caps[index * 2];
+      final int end = this.caps[index * 2 + 1];
+      if (begin < 0 || end < 0) {
+        return null;
+      }
+      return this.input.subSequence(begin, end).toString();
+    }
+
+    @Override
+    public int start(String name) {
+      final int index = groupIndex(name);
+      return this.caps[index * 2 + 1] < 0 ? -1 : this.caps[index * 2];
+    }
+
+    @Override
+    public int end(String name) {
+      final int index = groupIndex(name);
+      return this.caps[index * 2] < 0 ? -1 : this.caps[index * 2 + 1];
+    }
+
+    /** index of group, finding captures if not yet. */
+    private int groupIndex(String name) {
+      final Integer index = LinearRegex.this.program.groupMap.get(name);
+      if (index == null) {
+        throw new IllegalArgumentException("No group with name <" + name + ">");
+      }
+      if (!this.matched) {
+        throw new IllegalStateException("No match found");
+      }
+      if (this.caps == null) {
+        this.caps = findCaptures();
+      }
+      return index;
+    }
+
+    private int[] findCaptures() {
+      final Program program = LinearRegex.this.program;
+      if (!program.repeatedGroup) {
+        return PikeVm.match(program, this.input);
+      }
+      final Matcher m = LinearRegex.this.pattern.matcher(this.input);
+      if (!m.matches()) {
+        throw new IllegalStateException("No match found");
+      }
+      final int[] result = new int[(program.groupCount + 1) * 2];
+      for (int i = 0; i <= program.groupCount; i++) {
+        result[i * 2] = m.start(i);
+        result[i * 2 + 1] = m.end(i);
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,141 @@
+package org.diy4j.util.regex;
+
+import java.util.List;
+
+/**
+ * syntax tree of regex.
+ */
+abstract class Node {
+
+  /** true if the node matches an empty string. */
+  abstract boolean nullable();
+
+  /**
+   * check whether a capturing group may be matched more than once.
+   * captures of such group are found by <code>java.util.regex</code>, because backtracking
+   * keeps the value of inner group from a previous iteration in some cases.
+   * @param node     node
+   * @param repeated true if the node is in a repetition
+   * @return true if found
+   */
+  static boolean hasRepeatedGroup(Node node, boolean repeated) {
+    if (node instanceof Group) {
+      return repeated || hasRepeatedGroup(((Group) node).body, false);
+    } else if (node instanceof Repeat) {
+      final Repeat repeat = (Repeat) node;
+      return hasRepeatedGroup(repeat.body, repeated || repeat.max < 0 || repeat.max > 1);
+    } else if (node instanceof Concat) {
+      for (final Node e : ((Concat) node).itemList) {
+        if (hasRepeatedGroup(e, repeated)) {
+          return true;
+        }
+      }
+    } else if (node instanceof Alt) {
+      for (final Node e : ((Alt) node).branchList) {
+        if (hasRepeatedGroup(e, repeated)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** a single code point of the set. */
+  static final class Chars extends Node {
+    final CodePointSet set;
+
+    Chars(CodePointSet set) {
+      this.set = set;
+    }
+
+    @Override
+    boolean nullable() {
+      return false;
+    }
+  }
+
+  /** quoted text. replaced by chars when quantifier is parsed. */
+  static final class Literals extends Node {
+    final int[] codePointArr;
+
+    Literals(int[] codePointArr) {
+      this.codePointArr = codePointArr;
+    }
+
+    @Override
+    boolean nullable() {
+      return this.codePointArr.length == 0;
+    }
+  }
+
+  static final class Concat extends Node {
+    final List<Node> itemList;
+
+    Concat(List<Node> itemList) {
+      this.itemList = itemList;
+    }
+
+    @Override
+    boolean nullable() {
+      for (final Node e : this.itemList) {
+        if (!e.nullable()) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  static final class Alt extends Node {
+    final List<Node> branchList;
+
+    Alt(List<Node> branchList) {
+      this.branchList = branchList;
+    }
+
+    @Override
+    boolean nullable() {
+      for (final Node e : this.branchList) {
+        if (e.nullable()) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  static final class Repeat extends Node {
+    final Node body;
+    final int min;
+    /** negative if unbounded. */
+    final int max;
+    final boolean greedy;
+
+    Repeat(Node body, int min, int max, boolean greedy) {
+      this.body = body;
+      this.min = min;
+      this.max = max;
+      this.greedy = greedy;
+    }
+
+    @Override
+    boolean nullable() {
+      return this.min == 0 || this.body.nullable();
+    }
+  }
+
+  static final class Group extends Node {
+    final Node body;
+    final int index;
+
+    Group(Node body, int index) {
+      this.body = body;
+      this.index = index;
+    }
+
+    @Override
+    boolean nullable() {
+      return this.body.nullable();
+    }
+  }
+}
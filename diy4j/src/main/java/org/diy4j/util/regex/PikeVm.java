@@ -0,0 +1,133 @@
+package org.diy4j.util.regex;
+
+import java.util.Arrays;
+
+/**
+ * simulation of NFA in lock step, to find captures of the whole input match.<br>
+ * Threads are kept in priority order and a lower priority thread reaching the same instruction
+ * is dropped, so the captures are the same as backtracking chooses. Time is linear in the length
+ * of input.
+ */
+final class PikeVm {
+
+  private final Program program;
+  private final int slotCount;
+  /** generation in which each instruction was added to the list. */
+  private final int[] markArr;
+  private int generation = 0;
+
+  private ThreadList current;
+  private ThreadList next;
+  private final int[] pcStack;
+  private final int[][] capsStack;
+
+  private PikeVm(Program program) {
+    this.program = program;
+    this.slotCount = (program.groupCount + 1) * 2;
+    this.markArr = new int[program.size];
+    this.current = new ThreadList(program.size);
+    this.next = new ThreadList(program.size);
+    this.pcStack = new int[program.size * 2 + 1];
+    this.capsStack = new int[program.size * 2 + 1][];
+  }
+
+  /**
+   * match the whole input.
+   * @param program program
+   * @param input   input
+   * @return positions of captures indexed by <code>group * 2</code> and
+   *         <code>group * 2 + 1</code>, -1 if not captured. null if not matched.
+   */
+  static int[] match(Program program, CharSequence input) {
+    return new PikeVm(program).run(input);
+  }
+
+  private int[] run(CharSequence input) {
+    final int length = input.length();
+    final int[] initCaps = new int[this.slotCount];
+    Arrays.fill(initCaps, -1);
+    this.generation++;
+    addThread(this.current, 0, initCaps, 0);
+
+    int position = 0;
+    while (position < length) {
+      final int codePoint = Character.codePointAt(input, position);
+      final int nextPosition = position + Character.charCount(codePoint);
+      this.generation++;
+      this.next.count = 0;
+      for (int i = 0; i < this.current.count; i++) {
+        final int pc = this.current.pcArr[i];
+        if (this.program.opArr[pc] == Program.CHARS
+            && this.program.setArr[pc].contains(codePoint)) {
+          addThread(this.next, pc + 1, this.current.capsArr[i], nextPosition);
+        }
+      }
+      final ThreadList tmp = this.current;
+      this.current = this.next;
+      this.next = tmp;
+      position = nextPosition;
+      if (this.current.count == 0) {
+        return null;
+      }
+    }
+
+    for (int i = 0; i < this.current.count; i++) {
+      if (this.program.opArr[this.current.pcArr[i]] == Program.MATCH) {
+        return this.current.capsArr[i];
+      }
+    }
+    return null;
+  }
+
+  /** add threads reached from pc without consuming, in priority order. */
+  private void addThread(ThreadList list, int pc0, int[] caps0, int position) {
+    int top = 0;
+    this.pcStack[top] = pc0;
+    this.capsStack[top] = caps0;
+    top++;
+    while (top > 0) {
+      top--;
+      final int pc = this.pcStack[top];
+      final int[] caps = this.capsStack[top];
+      this.capsStack[top] = null;
+      if (this.markArr[pc] == this.generation) {
+        continue;
+      }
+      this.markArr[pc] = this.generation;
+      switch (this.program.opArr[pc]) {
+        case Program.JMP:
+          this.pcStack[top] = this.program.xArr[pc];
+          this.capsStack[top++] = caps;
+          break;
+        case Program.SPLIT:
+          this.pcStack[top] = this.program.yArr[pc];
+          this.capsStack[top++] = caps;
+          this.pcStack[top] = this.program.xArr[pc];
+          this.capsStack[top++] = caps;
+          break;
+        case Program.SAVE:
+          final int[] newCaps = caps.clone();
+          newCaps[this.program.xArr[pc]] = position;
+          this.pcStack[top] = pc + 1;
+          this.capsStack[top++] = newCaps;
+          break;
+        default:
+          list.pcArr[list.count] = pc;
+          list.capsArr[list.count] = caps;
+          list.count++;
+          break;
+      }
+    }
+  }
+
+  private static final class ThreadList {
+    private final int[] pcArr;
+    private final int[][] capsArr;
+    private int count = 0;
+
+    ThreadList(int size) {
+      this.pcArr = new int[size];
+      this.capsArr = new int[size][];
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package org.diy4j.util.regex;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * instructions of NFA compiled from regex. immutable.
+ */
+final class Program {
+
+  /** consume a code point in <code>setArr[pc]</code>. */
+  static final int CHARS = 0;
+  /** whole input is matched if at the end. */
+  static final int MATCH = 1;
+  /** continue at <code>x</code>. */
+  static final int JMP = 2;
+  /** continue at <code>x</code>, and at <code>y</code> with lower priority. */
+  static final int SPLIT = 3;
+  /** record position to capture slot <code>x</code>. */
+  static final int SAVE = 4;
+
+  /** upper limit of instructions. counted repetition is expanded. */
+  private static final int MAX_SIZE = 1 << 14;
+
+  final int[] opArr;
+  final int[] xArr;
+  final int[] yArr;
+  final CodePointSet[] setArr;
+  final int size;
+  /** number of capturing groups. */
+  final int groupCount;
+  final Map<String, Integer> groupMap;
+  /** true if a capturing group may be matched more than once. */
+  final boolean repeatedGroup;
+
+  private Program(Builder builder, int groupCount, Map<String, Integer> groupMap,
+      boolean repeatedGroup) {
+    this.size = builder.size;
+    this.opArr = Arrays.copyOf(builder.opArr, this.size);
+    this.xArr = Arrays.copyOf(builder.xArr, this.size);
+    this.yArr = Arrays.copyOf(builder.yArr, this.size);
+    this.setArr = Arrays.copyOf(builder.setArr, this.size);
+    this.groupCount = groupCount;
+    this.groupMap = Collections.unmodifiableMap(groupMap);
+    this.repeatedGroup = repeatedGroup;
+  }
+
+  static Program compile(Node node, int groupCount, Map<String, Integer> groupMap) {
+    final Builder builder = new Builder();
+    builder.emit(node);
+    builder.add(MATCH, 0, 0, null);
+    return new Program(builder, groupCount, groupMap, Node.hasRepeatedGroup(node, false));
+  }
+
+  private static final class Builder {
+
+    private int[] opArr = new int[16];
+    private int[] xArr = new int[16];
+    private int[] yArr = new int[16];
+    private CodePointSet[] setArr = new CodePointSet[16];
+    private int size = 0;
+
+    private int add(int op, int x, int y, CodePointSet set) {
+      if (this.size == MAX_SIZE) {
+        throw new UnsupportedOperationException("too large program");
+      }
+      if (this.size == this.opArr.length) {
+        final int capacity = this.size * 2;
+        this.opArr = Arrays.copyOf(this.opArr, capacity);
+        this.xArr = Arrays.copyOf(this.xArr, capacity);
+        this.yArr = Arrays.copyOf(this.yArr, capacity);
+        this.setArr = Arrays.copyOf(this.setArr, capacity);
+      }
+      this.opArr[this.size] = op;
+      this.xArr[this.size] = x;
+      this.yArr[this.size] = y;
+      this.setArr[this.size] = set;
+      return this.size++;
+    }
+
+    private void emit(Node node) {
+      if (node instanceof Node.Chars) {
+        add(CHARS, 0, 0, ((Node.Chars) node).set);
+
+      } else if (node instanceof Node.Concat) {
+        for (final Node e : ((Node.Concat) node).itemList) {
+          emit(e);
+        }
+
+      } else if (node instanceof Node.Alt) {
+        final List<Node> branchList = ((Node.Alt) node).branchList;
+        final int[] jumps = new int[branchList.size() - 1];
+        for (int i = 0; i < branchList.size(); i++) {
+          if (i < branchList.size() - 1) {
+            final int split = add(SPLIT, 0, 0, null);
+            this.xArr[split] = this.size;
+            emit(branchList.get(i));
+            jumps[i] = add(JMP, 0, 0, null);
+            this.yArr[split] = this.size;
+          } else {
+            emit(branchList.get(i));
+          }
+        }
+        for (final int jump : jumps) {
+          this.xArr[jump] = this.size;
+        }
+
+      } else if (node instanceof Node.Group) {
+        final Node.Group group = (Node.Group) node;
+        add(SAVE, group.index * 2, 0, null);
+        emit(group.body);
+        add(SAVE, group.index * 2 + 1, 0, null);
+
+      } else if (node instanceof Node.Repeat) {
+        emitRepeat((Node.Repeat) node);
+
+      } else {
+        throw new IllegalStateException(String.valueOf(node));
+      }
+    }
+
+    private void emitRepeat(Node.Repeat repeat) {
+      if (repeat.min > MAX_SIZE || repeat.max > MAX_SIZE) {
+        throw new UnsupportedOperationException("too large program");
+      }
+      for (int i = 0; i < repeat.min; i++) {
+        emit(repeat.body);
+      }
+      if (repeat.max < 0) {
+        // L: split B, E. B: body, jmp L. E:
+        final int split = add(SPLIT, 0, 0, null);
+        final int body = this.size;
+        emit(repeat.body);
+        add(JMP, split, 0, null);
+        setBranch(split, body, this.size, repeat.greedy);
+        return;
+      }
+      final int optionalCount = repeat.max - repeat.min;
+      final int[] splits = new int[optionalCount];
+      for (int i = 0; i < optionalCount; i++) {
+        splits[i] = add(SPLIT, 0, 0, null);
+        this.xArr[splits[i]] = this.size;
+        emit(repeat.body);
+      }
+      for (final int split : splits) {
+        setBranch(split, split + 1, this.size, repeat.greedy);
+      }
+    }
+
+    private void setBranch(int split, int body, int exit, boolean greedy) {
+      this.xArr[split] = greedy ? body : exit;
+      this.yArr[split] = greedy ? exit : body;
+    }
+  }
+}
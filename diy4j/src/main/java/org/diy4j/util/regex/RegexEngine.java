@@ -0,0 +1,17 @@
+package org.diy4j.util.regex;
+
+/**
+ * compiler of regex. implementations are threadsafe.
+ * see {@link RegexEngines} for built-in engines.
+ */
+@FunctionalInterface
+public interface RegexEngine {
+
+  /**
+   * compile regex.
+   * @param regex regex in the syntax of <code>java.util.regex.Pattern</code>
+   * @return compiled regex
+   * @throws java.util.regex.PatternSyntaxException invalid regex
+   */
+  CompiledRegex compile(String regex);
+}
@@ -0,0 +1,52 @@
+package org.diy4j.util.regex;
+
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * built-in regex engines, and the engine used by pattern configs.
+ */
+public final class RegexEngines {
+
+  /** <code>java.util.regex</code>, which backtracks. */
+  public static final RegexEngine JDK = regex -> new JdkRegex(Pattern.compile(regex));
+
+  /**
+   * linear time engine for regexes without back references, lookaround and the like.
+   * other regexes are compiled by {@link #JDK}.
+   */
+  public static final RegexEngine LINEAR = regex -> {
+    final Pattern pattern = Pattern.compile(regex);
+    try {
+      return LinearRegex.compile(pattern);
+    } catch (final UnsupportedOperationException e) {
+      return new JdkRegex(pattern);
+    }
+  };
+
+  private static volatile RegexEngine defaultEngine = LINEAR;
+
+  private RegexEngines() {
+  }
+
+  public static RegexEngine getDefault() {
+    return defaultEngine;
+  }
+
+  /**
+   * set engine used by pattern configs loaded afterwards.
+   * @param engine engine
+   */
+  public static void setDefault(RegexEngine engine) {
+    defaultEngine = Objects.requireNonNull(engine);
+  }
+
+  /**
+   * number of lines given up by {@link StepBudget} on all threads, including the pool threads
+   * of parallel unmarshalling. a line is counted once however many regexes gave it up.
+   * @return count since the class was loaded
+   */
+  public static long getBudgetExceededCount() {
+    return StepBudget.totalExceededCount();
+  }
+}
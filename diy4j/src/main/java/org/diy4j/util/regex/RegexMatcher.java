@@ -0,0 +1,40 @@
+package org.diy4j.util.regex;
+
+/**
+ * matcher of an input, in the same manner as <code>java.util.regex.Matcher</code>.
+ */
+public interface RegexMatcher {
+
+  /**
+   * match the whole input.
+   * @return true if matched
+   */
+  boolean matches();
+
+  /**
+   * text captured by named group in the last match.
+   * @param name name of group
+   * @return captured text, or null if the group did not participate in the match
+   * @throws IllegalStateException not matched
+   * @throws IllegalArgumentException no group with the name
+   */
+  String group(String name);
+
+  /**
+   * start index of text captured by named group in the last match.
+   * @param name name of group
+   * @return index, or -1 if the group did not participate in the match
+   * @throws IllegalStateException not matched
+   * @throws IllegalArgumentException no group with the name
+   */
+  int start(String name);
+
+  /**
+   * end index, exclusive, of text captured by named group in the last match.
+   * @param name name of group
+   * @return index, or -1 if the group did not participate in the match
+   * @throws IllegalStateException not matched
+   * @throws IllegalArgumentException no group with the name
+   */
+  int end(String name);
+}
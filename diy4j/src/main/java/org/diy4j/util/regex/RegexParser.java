@@ -0,0 +1,314 @@
+package org.diy4j.util.regex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * parser of the subset of <code>java.util.regex</code> syntax which runs in linear time.<br>
+ * The regex must be valid for <code>Pattern.compile</code> without flags. Back references,
+ * lookaround, atomic groups, possessive quantifiers, inline flags, boundaries except leading '^'
+ * and trailing '$', and escapes with arguments are not supported. A repetition of a
+ * subexpression which matches an empty string is not supported either, because captures of
+ * empty iterations differ from backtracking.
+ */
+final class RegexParser {
+
+  private static final String CHAR_ESCAPES = "tnrfae";
+  private static final String ESCAPED_CHARS = "\t\n\r\f\u0007\u001B";
+
+  private final String regex;
+  private int position = 0;
+  private int groupCount = 0;
+  private final Map<String, Integer> groupMap = new HashMap<>();
+
+  private RegexParser(String regex) {
+    this.regex = regex;
+  }
+
+  /**
+   * parse regex.
+   * @param regex regex
+   * @return program
+   * @throws UnsupportedOperationException regex uses unsupported construct
+   */
+  static Program parse(String regex) {
+    final RegexParser parser = new RegexParser(regex);
+    int end = regex.length();
+    if (regex.startsWith("^")) {
+      // always true for the whole input
+      parser.position = 1;
+    }
+    if (end > parser.position && regex.charAt(end - 1) == '$' && !isEscaped(regex, end - 1)) {
+      end--;
+    }
+    final Node node = parser.alternation(end);
+    if (parser.position != end) {
+      throw new UnsupportedOperationException("unexpected char at " + parser.position);
+    }
+    return Program.compile(node, parser.groupCount, parser.groupMap);
+  }
+
+  private static boolean isEscaped(String regex, int index) {
+    int count = 0;
+    for (int i = index - 1; i >= 0 && regex.charAt(i) == '\\'; i--) {
+      count++;
+    }
+    return count % 2 == 1;
+  }
+
+  private Node alternation(int end) {
+    final List<Node> branchList = new ArrayList<>();
+    while (true) {
+      branchList.add(sequence(end));
+      if (this.position < end && this.regex.charAt(this.position) == '|') {
+        this.position++;
+      } else {
+        break;
+      }
+    }
+    return branchList.size() == 1 ? branchList.get(0) : new Node.Alt(branchList);
+  }
+
+  private Node sequence(int end) {
+    final List<Node> itemList = new ArrayList<>();
+    while (this.position < end) {
+      final char c = this.regex.charAt(this.position);
+      if (c == '|' || c == ')') {
+        break;
+      }
+      final Node atom = atom(end);
+      if (atom instanceof Node.Literals) {
+        // quantifier applies to the last char of quoted text
+        final int[] codePoints = ((Node.Literals) atom).codePointArr;
+        for (int i = 0; i < codePoints.length - 1; i++) {
+          itemList.add(new Node.Chars(CodePointSet.of(codePoints[i])));
+        }
+        itemList.add(quantified(new Node.Chars(CodePointSet.of(codePoints[codePoints.length - 1])),
+            end));
+      } else if (atom != null) {
+        itemList.add(quantified(atom, end));
+      }
+    }
+    return itemList.size() == 1 ? itemList.get(0) : new Node.Concat(itemList);
+  }
+
+  private Node atom(int end) {
+    final char c = this.regex.charAt(this.position);
+    switch (c) {
+      case '(':
+        return group(end);
+      case '[':
+        this.position++;
+        return new Node.Chars(charClass(end));
+      case '.':
+        this.position++;
+        return new Node.Chars(CodePointSet.DOT);
+      case '\\':
+        return escape(end);
+      case '^':
+      case '$':
+      case '*':
+      case '+':
+      case '?':
+      case '{':
+        throw new UnsupportedOperationException("unsupported " + c);
+      default:
+        final int codePoint = this.regex.codePointAt(this.position);
+        this.position += Character.charCount(codePoint);
+        return new Node.Chars(CodePointSet.of(codePoint));
+    }
+  }
+
+  private Node group(int end) {
+    this.position++;
+    int index = -1;
+    if (this.regex.startsWith("?:", this.position)) {
+      this.position += 2;
+    } else if (this.regex.startsWith("?<", this.position)
+        && this.position + 2 < end && Character.isLetter(this.regex.charAt(this.position + 2))) {
+      final int close = this.regex.indexOf('>', this.position);
+      if (close < 0) {
+        throw new UnsupportedOperationException("group name");
+      }
+      index = ++this.groupCount;
+      this.groupMap.put(this.regex.substring(this.position + 2, close), index);
+      this.position = close + 1;
+    } else if (this.regex.startsWith("?", this.position)) {
+      throw new UnsupportedOperationException("special group");
+    } else {
+      index = ++this.groupCount;
+    }
+    final Node body = alternation(end);
+    if (this.position >= end || this.regex.charAt(this.position) != ')') {
+      throw new UnsupportedOperationException("group is not closed");
+    }
+    this.position++;
+    return index < 0 ? body : new Node.Group(body, index);
+  }
+
+  private Node escape(int end) {
+    if (this.position + 1 >= end) {
+      throw new UnsupportedOperationException("escape at end");
+    }
+    final char c = this.regex.charAt(this.position + 1);
+    this.position += 2;
+    switch (c) {
+      case 'd':
+        return new Node.Chars(CodePointSet.DIGIT);
+      case 'D':
+        return new Node.Chars(CodePointSet.DIGIT.complement());
+      case 'w':
+        return new Node.Chars(CodePointSet.WORD);
+      case 'W':
+        return new Node.Chars(CodePointSet.WORD.complement());
+      case 's':
+        return new Node.Chars(CodePointSet.SPACE);
+      case 'S':
+        return new Node.Chars(CodePointSet.SPACE.complement());
+      case 'Q':
+        int quoteEnd = this.regex.indexOf("\\E", this.position);
+        if (quoteEnd < 0 || quoteEnd > end) {
+          quoteEnd = end;
+        }
+        final String text = this.regex.substring(this.position, quoteEnd);
+        this.position = Math.min(quoteEnd + 2, end);
+        return text.isEmpty() ? null : new Node.Literals(text.codePoints().toArray());
+      default:
+        return new Node.Chars(CodePointSet.of(escapedChar(c)));
+    }
+  }
+
+  /** char of escape which matches a single char. */
+  private int escapedChar(char c) {
+    if (CHAR_ESCAPES.indexOf(c) >= 0) {
+      return ESCAPED_CHARS.charAt(CHAR_ESCAPES.indexOf(c));
+    }
+    if (c < 0x80 && !Character.isLetterOrDigit(c)) {
+      return c;
+    }
+    throw new UnsupportedOperationException("unsupported escape \\" + c);
+  }
+
+  /** parse char class after '['. */
+  private CodePointSet charClass(int end) {
+    boolean negate = false;
+    if (this.position < end && this.regex.charAt(this.position) == '^') {
+      negate = true;
+      this.position++;
+    }
+    if (this.position < end && this.regex.charAt(this.position) == ']') {
+      throw new UnsupportedOperationException("leading ']'");
+    }
+    CodePointSet result = CodePointSet.ofRanges();
+    while (true) {
+      if (this.position >= end) {
+        throw new UnsupportedOperationException("class is not closed");
+      }
+      final char c = this.regex.charAt(this.position);
+      if (c == ']') {
+        this.position++;
+        break;
+      }
+      if (c == '[' || this.regex.startsWith("&&", this.position)) {
+        throw new UnsupportedOperationException("nested class");
+      }
+      if (c == '\\' && this.position + 1 < end && "dDwWsS".indexOf(
+          this.regex.charAt(this.position + 1)) >= 0) {
+        result = result.union(((Node.Chars) escape(end)).set);
+        continue;
+      }
+      final int lo = classChar(end);
+      if (this.position + 1 < end && this.regex.charAt(this.position) == '-'
+          && this.regex.charAt(this.position + 1) != ']') {
+        this.position++;
+        if (this.regex.charAt(this.position) == '[') {
+          throw new UnsupportedOperationException("nested class");
+        }
+        final int hi = classChar(end);
+        if (hi < lo) {
+          throw new UnsupportedOperationException("illegal range");
+        }
+        result = result.union(CodePointSet.ofRanges(lo, hi));
+      } else {
+        result = result.union(CodePointSet.of(lo));
+      }
+    }
+    return negate ? result.complement() : result;
+  }
+
+  private int classChar(int end) {
+    final char c = this.regex.charAt(this.position);
+    if (c == '\\') {
+      if (this.position + 1 >= end) {
+        throw new UnsupportedOperationException("escape at end");
+      }
+      final char escaped = this.regex.charAt(this.position + 1);
+      this.position += 2;
+      return escapedChar(escaped);
+    }
+    final int codePoint = this.regex.codePointAt(this.position);
+    this.position += Character.charCount(codePoint);
+    return codePoint;
+  }
+
+  private Node quantified(Node atom, int end) {
+    if (this.position >= end) {
+      return atom;
+    }
+    final char c = this.regex.charAt(this.position);
+    final int min;
+    final int max;
+    if (c == '?') {
+      min = 0;
+      max = 1;
+    } else if (c == '*') {
+      min = 0;
+      max = -1;
+    } else if (c == '+') {
+      min = 1;
+      max = -1;
+    } else if (c == '{') {
+      final int close = this.regex.indexOf('}', this.position);
+      if (close < 0 || close >= end) {
+        throw new UnsupportedOperationException("repetition is not closed");
+      }
+      final String bounds = this.regex.substring(this.position + 1, close);
+      final int comma = bounds.indexOf(',');
+      try {
+        if (comma < 0) {
+          min = Integer.parseInt(bounds);
+          max = min;
+        } else {
+          min = Integer.parseInt(bounds.substring(0, comma));
+          max = comma == bounds.length() - 1 ? -1 : Integer.parseInt(bounds.substring(comma + 1));
+        }
+      } catch (final NumberFormatException e) {
+        throw new UnsupportedOperationException(e);
+      }
+      this.position = close;
+    } else {
+      return atom;
+    }
+    this.position++;
+
+    boolean greedy = true;
+    if (this.position < end) {
+      final char mode = this.regex.charAt(this.position);
+      if (mode == '?') {
+        greedy = false;
+        this.position++;
+      } else if (mode == '+') {
+        throw new UnsupportedOperationException("possessive quantifier");
+      }
+    }
+    if ((max > 1 || max < 0) && atom.nullable()) {
+      throw new UnsupportedOperationException("repetition of empty string");
+    }
+    if (this.position < end && "?*+{".indexOf(this.regex.charAt(this.position)) >= 0) {
+      throw new UnsupportedOperationException("nested quantifier");
+    }
+    return new Node.Repeat(atom, min, max, greedy);
+  }
+}
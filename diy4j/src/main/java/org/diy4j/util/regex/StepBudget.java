@@ -0,0 +1,72 @@
+package org.diy4j.util.regex;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * budget of characters read by backtracking regexes while matching one line.<br>
+ * The budget is shared by all regexes evaluated on the line, so a line tested against many
+ * patterns costs at most the budget. A regex which runs out of it does not match, and so does
+ * every later regex on the line until {@link #reset()}. Linear time regexes do not use it, as
+ * they read each character a bounded number of times. Instance is not threadsafe.
+ */
+public final class StepBudget {
+
+  /** number of lines which ran out of budget on all threads. */
+  private static final LongAdder TOTAL_EXCEEDED_COUNT = new LongAdder();
+
+  private final int maxSteps;
+  private int remaining;
+  private boolean exceeded = false;
+
+  /**
+   * Constructor.
+   * @param maxSteps upper limit of characters read for a line
+   * @throws IllegalArgumentException limit is not positive
+   */
+  public StepBudget(int maxSteps) {
+    if (maxSteps <= 0) {
+      throw new IllegalArgumentException("Step budget must be positive.");
+    }
+    this.maxSteps = maxSteps;
+    this.remaining = maxSteps;
+  }
+
+  /** restore the whole budget for a new line. */
+  public void reset() {
+    this.remaining = this.maxSteps;
+    this.exceeded = false;
+  }
+
+  /**
+   * check whether a regex ran out of budget since the last reset.
+   * @return true if exceeded
+   */
+  public boolean isExceeded() {
+    return this.exceeded;
+  }
+
+  /**
+   * take one step.
+   * @return false if no step remains
+   */
+  boolean step() {
+    if (this.remaining <= 0) {
+      return false;
+    }
+    this.remaining--;
+    return true;
+  }
+
+  /** record that a regex gave up the line. the line is counted once. */
+  void exceed() {
+    if (!this.exceeded) {
+      this.exceeded = true;
+      TOTAL_EXCEEDED_COUNT.increment();
+    }
+  }
+
+  /** number of lines which ran out of budget on all threads. */
+  static long totalExceededCount() {
+    return TOTAL_EXCEEDED_COUNT.sum();
+  }
+}
@@ -1,11 +1,45 @@
 package org.diy4j.jbond;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.diy4j.jbond.annotation.BindTag;
+import org.diy4j.jbond.annotation.LimitPolicy;
 import org.diy4j.jbond.annotation.Pattern;
+import org.diy4j.jbond.annotation.PatternCollection;
 import org.diy4j.jbond.annotation.PatternSet;
+import org.diy4j.jbond.annotation.RangePattern;
+import org.diy4j.jbond.config.RangeLimits;
+import org.diy4j.util.CloseableIterator;
+import org.diy4j.util.regex.RegexEngines;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -38,6 +72,696 @@ public class UnmarshallersTest {
   }
 
 
+  @Test
+  public void testLazyUnmarshal() throws IOException {
+
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), Arrays.asList("A", "Bhi", "A", "A", "Bbye"),
+        StandardCharsets.UTF_8);
+
+    Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class);
+    List<String> expected = new ArrayList<>();
+    sut.unmarshal(file.getPath(), "UTF-8", e -> expected.add(e.toString()));
+    assertEquals(2, expected.size());
+
+    try (Stream<Sample> stream = sut.stream(file.getPath(), "UTF-8")) {
+      assertEquals(expected, stream.map(Sample::toString).collect(Collectors.toList()));
+    }
+
+    List<String> actual = new ArrayList<>();
+    try (CloseableIterator<Sample> itr = sut.iterator(file.getPath(), "UTF-8")) {
+      while (itr.hasNext()) {
+        actual.add(itr.next().toString());
+      }
+      assertFalse(itr.hasNext());
+    }
+    assertEquals(expected, actual);
+  }
+
+  @Test
+  public void testUnmarshalParallel() throws IOException {
+
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    final List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 300000; i++) {
+      lines.add(i % 7 == 0 ? "A" : (i % 7 == 1 ? "B" + i : "C" + i));
+    }
+    Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+
+    Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class);
+    final List<String> expected = sut.unmarshal(file.getPath(), "UTF-8").stream()
+        .map(Sample::toString).collect(Collectors.toList());
+    assertEquals(lines.size() / 7, expected.size());
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final List<String> actual = sut.unmarshalParallel(file.getPath(), "UTF-8", pool).stream()
+          .map(Sample::toString).collect(Collectors.toList());
+      assertEquals(expected, actual);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testUnmarshalFiles() throws IOException {
+
+    final Path dir = Files.createTempDirectory("jbond");
+    final Path x = dir.resolve("x.log");
+    final Path y = dir.resolve("y.log");
+    final Path z = dir.resolve("z.txt");
+    final Path sub = Files.createDirectory(dir.resolve("sub"));
+    final Path begin = sub.resolve("begin.log");
+    final Path end = sub.resolve("end.log");
+    Files.write(x, Arrays.asList("A", "Bhi", "A"), StandardCharsets.UTF_8);
+    Files.write(y, Arrays.asList("Bno", "A", "Bbye"), StandardCharsets.UTF_8);
+    Files.write(z, Arrays.asList("A", "Bz"), StandardCharsets.UTF_8);
+    Files.write(begin, Arrays.asList("BEGIN 1"), StandardCharsets.UTF_8);
+    Files.write(end, Arrays.asList("END"), StandardCharsets.UTF_8);
+    // deleted in reverse order of registration, so directories are registered first
+    for (final Path path : Arrays.asList(dir, sub, x, y, z, begin, end)) {
+      path.toFile().deleteOnExit();
+    }
+
+    final ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      // window and counter start from the head of each file
+      final Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class);
+      final Map<Path, List<Sample>> actual = sut.unmarshalFiles(dir, "*.log", "UTF-8", pool);
+      assertEquals(Arrays.asList(x, y), new ArrayList<>(actual.keySet()));
+      assertEquals("[Sample [text=hi, num=1]]", actual.get(x).toString());
+      assertEquals("[Sample [text=bye, num=2]]", actual.get(y).toString());
+
+      assertEquals("[Sample [text=hi, num=1], Sample [text=bye, num=2], Sample [text=z, num=1]]",
+          sut.unmarshalMerged(dir, null, "UTF-8", pool).toString());
+      assertEquals("[Sample [text=z, num=1], Sample [text=hi, num=1]]",
+          sut.unmarshalMerged(Arrays.asList(z, x), "UTF-8", pool).toString());
+
+      // range is not continued to the next file
+      final Unmarshaller<Block> range = Unmarshallers.getTextUnmarshaller(Block.class);
+      assertEquals(2, range.unmarshalFiles(dir, "**/*.log", "UTF-8", pool).size());
+      assertTrue(range.unmarshalMerged(Arrays.asList(begin, end), "UTF-8", pool).isEmpty());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testRangePattern() {
+
+    Unmarshaller<Block> sut = Unmarshallers.getTextUnmarshaller(Block.class);
+    List<Block> actual = sut.unmarshal(Arrays.asList("x", "BEGIN 1", "item=a", "n=3", "tag=t",
+        "tag=t", "item=b", "n=4", "END", "BEGIN 2", "ABORT", "END", "BEGIN 3", "END"));
+
+    assertEquals(2, actual.size());
+    assertEquals(Integer.valueOf(1), actual.get(0).id);
+    assertEquals(Arrays.asList("a", "b"), actual.get(0).items);
+    assertArrayEquals(new int[] { 3, 4 }, actual.get(0).numbers);
+    assertEquals(1, actual.get(0).tags.size());
+    assertEquals(2, actual.get(0).num);
+    assertEquals(Integer.valueOf(3), actual.get(1).id);
+    assertEquals(13, actual.get(1).num);
+  }
+
+  @Test
+  public void testPatternCollection() {
+
+    Unmarshaller<Pair> sut = Unmarshallers.getTextUnmarshaller(Pair.class);
+    List<Pair> actual = sut.unmarshal(Arrays.asList("K1", "V1", "K2", "K3", "V3", "V4"));
+
+    // pattern sets are applied in declared order to each window
+    assertEquals("[1:1/1, 2:null/1, 3:2/null, 4:3/3, 5:null/3, 6:null/4]", actual.toString());
+  }
+
+  @Test
+  public void testFollow() throws IOException {
+
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "A\nBhi\nA".getBytes(StandardCharsets.UTF_8));
+
+    final Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class);
+    final List<String> actual = new ArrayList<>();
+    try (Follower<Sample> follower = sut.follow(file.getPath(), "UTF-8",
+        e -> actual.add(e.toString()))) {
+
+      // the last line is not terminated yet
+      assertEquals(2, follower.poll());
+      assertEquals(Arrays.asList("Sample [text=hi, num=1]"), actual);
+      assertEquals(0, follower.poll());
+
+      Files.write(file.toPath(), "\nA\r\nBbye\r".getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.APPEND);
+      assertEquals(2, follower.poll());
+      Files.write(file.toPath(), "\n".getBytes(StandardCharsets.UTF_8),
+          StandardOpenOption.APPEND);
+      assertEquals(1, follower.poll());
+      assertEquals(6, follower.getLineNumber());
+      assertEquals(file.length(), follower.getOffset());
+      assertEquals(sut.unmarshal(file.getPath(), "UTF-8").toString(), actual.toString());
+
+      // truncated file is read from the head
+      Files.write(file.toPath(), "A\nBx\n".getBytes(StandardCharsets.UTF_8));
+      assertEquals(2, follower.poll());
+      assertEquals("Sample [text=x, num=1]", actual.get(actual.size() - 1));
+    }
+  }
+
+  @Test
+  public void testResume() throws IOException {
+
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), "A\nBhi\nA\nBbye\n".getBytes(StandardCharsets.UTF_8));
+    final File checkpoint = new File(file.getPath() + ".checkpoint");
+    checkpoint.deleteOnExit();
+
+    // run which stopped after the third line
+    final long fingerprint;
+    try (FileChannel channel = FileChannel.open(file.toPath())) {
+      fingerprint = Checkpoint.fingerprint(channel, 8);
+    }
+    new Checkpoint(Sample.class.getName(), 8, fingerprint, 4, new String[] { "Bhi", "A" }, null)
+        .write(checkpoint.toPath());
+
+    final Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class);
+    final List<String> actual = new ArrayList<>();
+    sut.unmarshalResumable(file.getPath(), "UTF-8", checkpoint.getPath(), 0,
+        e -> actual.add(e.toString()));
+    assertEquals(Arrays.asList("Sample [text=bye, num=3]"), actual);
+    assertFalse(checkpoint.exists());
+
+    // the whole file without checkpoint
+    actual.clear();
+    sut.unmarshalResumable(file.getPath(), "UTF-8", checkpoint.getPath(), 0,
+        e -> actual.add(e.toString()));
+    assertEquals(sut.unmarshal(file.getPath(), "UTF-8").toString(), actual.toString());
+
+    // checkpoint of another file
+    new Checkpoint(Sample.class.getName(), 8, fingerprint + 1, 4, new String[] { "Bhi", "A" },
+        null).write(checkpoint.toPath());
+    try {
+      sut.unmarshalResumable(file.getPath(), "UTF-8", checkpoint.getPath(), 0, e -> { });
+      fail();
+    } catch (final BindException e) {
+      assertTrue(checkpoint.exists());
+    }
+  }
+
+  @Test
+  public void testResumeRange() throws IOException {
+
+    final List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      lines.add("BEGIN " + i);
+      for (int j = 0; j < 5; j++) {
+        lines.add("item=i" + i + "j" + j);
+        lines.add("n=" + j);
+      }
+      lines.add(i % 7 == 3 ? "ABORT" : "x");
+      lines.add("END");
+    }
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    final File checkpoint = new File(file.getPath() + ".checkpoint");
+    checkpoint.deleteOnExit();
+
+    final UnmarshallerImpl<Block> sut =
+        (UnmarshallerImpl<Block>) Unmarshallers.getTextUnmarshaller(Block.class);
+    final List<String> expected = sut.unmarshal(file.getPath(), "UTF-8").stream()
+        .map(UnmarshallersTest::describe).collect(Collectors.toList());
+
+    // consumer crashes after a checkpoint is saved in the middle of a range
+    final List<String> before = new ArrayList<>();
+    final long[] savedOffset = { -1 };
+    final int[] passedAtSave = { 0 };
+    try {
+      sut.unmarshalResumable(file.getPath(), "UTF-8", checkpoint.getPath(), 0, e -> {
+        try {
+          final Checkpoint current = Checkpoint.read(checkpoint.toPath());
+          if (current != null && current.offset != savedOffset[0]) {
+            savedOffset[0] = current.offset;
+            passedAtSave[0] = before.size();
+          }
+        } catch (final IOException ex) {
+          throw new BindException(ex);
+        }
+        if (before.size() == 20) {
+          throw new IllegalStateException("crash");
+        }
+        before.add(describe(e));
+      }, 100);
+      fail();
+    } catch (final IllegalStateException e) {
+      assertEquals("crash", e.getMessage());
+    }
+    final Checkpoint saved = Checkpoint.read(checkpoint.toPath());
+    assertEquals(savedOffset[0], saved.offset);
+    assertEquals(1, saved.ranges.length);
+    assertTrue(saved.ranges[0] != null);
+
+    // resumed run passes again only the objects after the checkpoint
+    final List<String> after = new ArrayList<>();
+    sut.unmarshalResumable(file.getPath(), "UTF-8", checkpoint.getPath(), 0,
+        e -> after.add(describe(e)), 100);
+    assertFalse(checkpoint.exists());
+    assertEquals(expected.subList(0, before.size()), before);
+    assertTrue(passedAtSave[0] > 0);
+    assertEquals(expected.subList(passedAtSave[0], expected.size()), after);
+  }
+
+  private static String describe(Block block) {
+    return block.id + ":" + block.num + block.items + Arrays.toString(block.numbers);
+  }
+
+  @Test
+  public void testCompressed() throws IOException {
+
+    // gzip of three members, large enough to be inflated in parallel
+    final Random random = new Random(1);
+    final File plain = File.createTempFile("jbond", ".log");
+    plain.deleteOnExit();
+    final File gzip = File.createTempFile("jbond", ".log.gz");
+    gzip.deleteOnExit();
+    try (OutputStream plainOut = new FileOutputStream(plain);
+        OutputStream gzipOut = new FileOutputStream(gzip)) {
+      for (int i = 0; i < 3; i++) {
+        final StringBuilder sb = new StringBuilder();
+        for (int j = 0; j < 40000; j++) {
+          sb.append("A\nB").append(Long.toHexString(random.nextLong()))
+              .append(Long.toHexString(random.nextLong())).append('\n');
+        }
+        final byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        plainOut.write(bytes);
+        final GZIPOutputStream member = new GZIPOutputStream(gzipOut);
+        member.write(bytes);
+        member.finish();
+      }
+    }
+    final Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class);
+    final String expected = sut.unmarshal(plain.getPath(), "UTF-8").toString();
+    assertEquals(expected, sut.unmarshal(gzip.getPath(), "UTF-8").toString());
+    assertEquals(expected, sut.unmarshalParallel(gzip.getPath(), "UTF-8").toString());
+
+    // entries of zip are concatenated
+    final File zip = File.createTempFile("jbond", ".zip");
+    zip.deleteOnExit();
+    try (ZipOutputStream out = new ZipOutputStream(new FileOutputStream(zip))) {
+      out.putNextEntry(new ZipEntry("1.log"));
+      out.write("A\nBhi".getBytes(StandardCharsets.UTF_8));
+      out.putNextEntry(new ZipEntry("2.log"));
+      out.write("A\nBbye\n".getBytes(StandardCharsets.UTF_8));
+    }
+    assertEquals("[Sample [text=hi, num=1], Sample [text=bye, num=3]]",
+        sut.unmarshal(zip.getPath(), "UTF-8").toString());
+
+    try {
+      sut.follow(gzip.getPath(), "UTF-8", e -> { });
+      fail();
+    } catch (final BindException e) {
+      // byte offset of compressed file is not a line boundary
+    }
+  }
+
+  @Test
+  public void testComposite() throws IOException {
+
+    final List<String> lines = Arrays.asList("x", "BEGIN 1", "item=a", "END", "A", "Bhi",
+        "BEGIN 2", "n=4", "END", "A", "Bbye");
+    final CompositeUnmarshaller sut = Unmarshallers.getCompositeUnmarshaller(Sample.class,
+        Block.class, Sample.class);
+    assertEquals(Arrays.asList(Sample.class, Block.class), sut.getBindClasses());
+
+    final CompositeResult actual = sut.unmarshal(lines);
+    assertEquals(Unmarshallers.getTextUnmarshaller(Sample.class).unmarshal(lines).toString(),
+        actual.get(Sample.class).toString());
+    final List<Block> blocks = actual.get(Block.class);
+    assertEquals(2, blocks.size());
+    assertEquals(Integer.valueOf(1), blocks.get(0).id);
+    assertEquals(Integer.valueOf(2), blocks.get(1).id);
+    assertTrue(actual.get(Pair.class).isEmpty());
+
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    final List<Class<?>> order = new ArrayList<>();
+    sut.unmarshal(file.getPath(), "UTF-8", (clazz, e) -> order.add(clazz));
+    assertEquals(Arrays.asList(Block.class, Sample.class, Block.class, Sample.class), order);
+  }
+
+  @Test
+  public void testRegistry() {
+
+    final Unmarshaller<Sample> cached = Unmarshallers.getTextUnmarshaller(Sample.class);
+    assertTrue(cached == Unmarshallers.getTextUnmarshaller(Sample.class));
+
+    assertTrue(Unmarshallers.evict(Sample.class));
+    assertFalse(Unmarshallers.evict(Sample.class));
+    final Unmarshaller<Sample> rebuilt = Unmarshallers.getTextUnmarshaller(Sample.class);
+    assertFalse(cached == rebuilt);
+    assertEquals(cached.unmarshal(Arrays.asList("A", "Bhi")).toString(),
+        rebuilt.unmarshal(Arrays.asList("A", "Bhi")).toString());
+
+    Unmarshallers.evictAll();
+    final List<Unmarshaller<?>> warmed = Unmarshallers.prewarm(Sample.class, Block.class);
+    assertEquals(2, warmed.size());
+    assertTrue(warmed.get(0) == Unmarshallers.getTextUnmarshaller(Sample.class));
+    // lines of required literals pass the literal filter, and pattern set of literals matches
+    assertTrue(((UnmarshallerImpl<?>) warmed.get(0)).warmUp() > 0);
+
+    // annotated classes of package, including nested ones
+    final List<Unmarshaller<?>> scanned = Unmarshallers.prewarm("org.diy4j.jbond",
+        getClass().getClassLoader());
+    assertTrue(scanned.contains(Unmarshallers.getTextUnmarshaller(Pair.class)));
+    assertTrue(scanned.contains(Unmarshallers.getTextUnmarshaller(Block.class)));
+
+    // dummy lines are neither bound to numeric field nor reported
+    final UnmarshalMetrics metrics = new UnmarshalMetrics();
+    Unmarshallers.setListener(metrics);
+    try {
+      Unmarshallers.prewarm(CatchAll.class);
+    } finally {
+      Unmarshallers.setListener(null);
+    }
+    assertEquals(0, metrics.getLinesRead());
+    assertEquals("[12]", Unmarshallers.getTextUnmarshaller(CatchAll.class)
+        .unmarshal(Arrays.asList("12")).toString());
+  }
+
+  @Test
+  public void testGeneratedBinder() throws ReflectiveOperationException {
+
+    // binder of class with accessible fields is generated by annotation processor
+    assertTrue(GeneratedBinder.class.isAssignableFrom(
+        Class.forName("org.diy4j.jbond.UnmarshallersTest_Direct" + GeneratedBinder.SUFFIX)));
+    final Field num = Direct.class.getDeclaredField("num");
+    final Field text = Direct.class.getDeclaredField("text");
+    assertTrue(UnmarshallerFactory4AnnotatedClass.findGeneratedBinder(Direct.class,
+        new String[] { "#", "tag" }, new Field[] { num, text }) != null);
+    assertTrue(UnmarshallerFactory4AnnotatedClass.findGeneratedBinder(Direct.class,
+        new String[] { "tag" }, new Field[] { text }) == null);
+    assertTrue(UnmarshallerFactory4AnnotatedClass.findGeneratedBinder(Sample.class,
+        new String[] { "#", "tag" }, new Field[] { num, text }) == null);
+    // field of slot is another one than at build time
+    assertTrue(UnmarshallerFactory4AnnotatedClass.findGeneratedBinder(Direct.class,
+        new String[] { "#", "tag" }, new Field[] { text, num }) == null);
+
+    final List<Direct> actual = Unmarshallers.getTextUnmarshaller(Direct.class)
+        .unmarshal(Arrays.asList("A", "Bhi", "x", "A", "Bbye"));
+    assertEquals(2, actual.size());
+    assertEquals("hi", actual.get(0).text);
+    assertEquals(1, actual.get(0).num);
+    assertEquals("bye", actual.get(1).text);
+    assertEquals(4, actual.get(1).num);
+  }
+
+  @Test
+  public void testUnmarshalReusing() {
+
+    final List<String> lines = Arrays.asList("BEGIN 1", "item=a", "n=3", "tag=t", "END",
+        "BEGIN 2", "END", "BEGIN 3", "item=b", "item=c", "END");
+    final List<String> actual = new ArrayList<>();
+    final Set<Block> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+    Unmarshallers.getTextUnmarshaller(Block.class).unmarshalReusing(lines, e -> {
+      instances.add(e);
+      actual.add(e.id + "," + e.items + "," + Arrays.toString(e.numbers) + "," + e.tags + ","
+          + e.num);
+    });
+
+    // fields of the previous object are reset to the values of a new object
+    assertEquals(1, instances.size());
+    assertEquals(Arrays.asList("1,[a],[3],[t],1", "2,null,null,null,6", "3,[b, c],null,null,8"),
+        actual);
+    final List<String> created = Unmarshallers.getTextUnmarshaller(Block.class)
+        .unmarshal(lines).stream().map(e -> e.id + "," + e.items + ","
+            + Arrays.toString(e.numbers) + "," + e.tags + "," + e.num)
+        .collect(Collectors.toList());
+    assertEquals(created, actual);
+
+    // initial values of fields are restored as well
+    final List<String> initialized = new ArrayList<>();
+    Unmarshallers.getTextUnmarshaller(Initialized.class).unmarshalReusing(
+        Arrays.asList("tqv=a", "v=", "x"), e -> initialized.add(e.values + "," + e.text));
+    assertEquals(Arrays.asList("[init, a],q", "[init],-"), initialized);
+    assertEquals(initialized.toString(), Unmarshallers.getTextUnmarshaller(Initialized.class)
+        .unmarshal(Arrays.asList("tqv=a", "v=", "x")).stream().map(e -> e.values + "," + e.text)
+        .collect(Collectors.toList()).toString());
+
+    final List<String> direct = new ArrayList<>();
+    Unmarshallers.getTextUnmarshaller(Direct.class).unmarshalReusing(
+        Arrays.asList("A", "Bhi", "A", "x"), e -> direct.add(e.text + "," + e.num));
+    assertEquals(Arrays.asList("hi,1"), direct);
+  }
+
+  @Test
+  public void testUnmarshalColumnar() {
+
+    final List<String> lines = new ArrayList<>();
+    for (int i = 0; i < 600; i++) {
+      final String code = i % 7 == 0 ? "" : String.valueOf(i);
+      lines.add("host" + (i % 3) + " " + code + " " + i + ".5 true");
+    }
+    final ColumnarBatch batch = Unmarshallers.getTextUnmarshaller(Metric.class)
+        .unmarshalColumnar(lines);
+
+    assertEquals(600, batch.size());
+    assertEquals(Arrays.asList("#", "code", "flag", "host", "time"),
+        new ArrayList<>(batch.getTags()));
+    final ColumnarBatch.StringColumn host = batch.getStringColumn("host");
+    assertArrayEquals(new String[] { "host0", "host1", "host2" }, host.getDictionary());
+    assertEquals("host2", host.get(599));
+    assertEquals(2, host.getCode(599));
+    final ColumnarBatch.IntColumn code = batch.getIntColumn("code");
+    assertTrue(code.isNull(7));
+    assertFalse(code.isNull(8));
+    assertEquals(8, code.get(8));
+    assertEquals(598.5, batch.getDoubleColumn("time").get(598), 0.0);
+    assertEquals(300L, batch.getLongColumn("#").get(299));
+    assertEquals(1, batch.getIntColumn("flag").get(0));
+    assertEquals(600, batch.getLongColumn("#").toArray().length);
+
+    try {
+      batch.getLongColumn("code");
+      fail();
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      Unmarshallers.getTextUnmarshaller(Metric.class).unmarshalColumnar(
+          Arrays.asList("host x 1.0 true"));
+      fail();
+    } catch (final BindException e) {
+      // expected
+    }
+    try {
+      Unmarshallers.getTextUnmarshaller(Block.class).unmarshalColumnar(lines);
+      fail();
+    } catch (final BindConfigException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testUnmarshalLazy() throws IOException {
+
+    final List<MetricView> records = new ArrayList<>();
+    Unmarshallers.getTextUnmarshaller(Metric.class).unmarshalLazy(
+        Arrays.asList("a 1 2.5 true", "b x 3.5 false", "c 3 4.5 TRUE"), MetricView.class,
+        records::add);
+
+    assertEquals(3, records.size());
+    assertEquals("a", records.get(0).getHost());
+    assertEquals(Integer.valueOf(1), records.get(0).code());
+    assertEquals(2.5, records.get(0).getTime(), 0.0);
+    assertTrue(records.get(0).isFlag());
+    assertEquals(3L, records.get(2).getNum());
+    // invalid value is converted only when read
+    assertEquals("b", records.get(1).getHost());
+    try {
+      records.get(1).code();
+      fail();
+    } catch (final BindException e) {
+      // expected
+    }
+    assertEquals("MetricView [code=3, getHost=c, getNum=3, getTime=4.5, isFlag=true]",
+        records.get(2).toString());
+
+    // records of a file keep their values after the lines are recycled
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), Arrays.asList("a 1 2.5 true", "b x 3.5 false", "c 3 4.5 TRUE"),
+        StandardCharsets.UTF_8);
+    final List<MetricView> fileRecords = new ArrayList<>();
+    Unmarshallers.getTextUnmarshaller(Metric.class).unmarshalLazy(file.getPath(), "UTF-8",
+        MetricView.class, fileRecords::add);
+    assertEquals(3, fileRecords.size());
+    assertEquals("a", fileRecords.get(0).getHost());
+    assertEquals(records.get(2).toString(), fileRecords.get(2).toString());
+    // class of records is built once per view
+    assertTrue(records.get(0).getClass() == fileRecords.get(0).getClass());
+
+    final List<BlockView> blocks = new ArrayList<>();
+    Unmarshallers.getTextUnmarshaller(Block.class).unmarshalLazy(
+        Arrays.asList("BEGIN 1", "item=a", "item=b", "END"), BlockView.class, blocks::add);
+    assertEquals(1, blocks.size());
+    assertEquals(Arrays.asList("a", "b"), blocks.get(0).getItems());
+
+    try {
+      Unmarshallers.getTextUnmarshaller(Metric.class).unmarshalLazy(
+          Arrays.asList("a 1 2.5 true"), BlockView.class, e -> {
+          });
+      fail();
+    } catch (final BindConfigException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRangeLimits() {
+
+    final List<String> lines = Arrays.asList("BEGIN 1", "item=a", "item=b", "item=c", "item=d",
+        "BEGIN 2", "item=e", "END", "BEGIN 3", "item=f", "END");
+
+    // the rest of the range is skipped until its end
+    final UnmarshalMetrics metrics = new UnmarshalMetrics();
+    assertEquals("[3[f]]", Unmarshallers.getTextUnmarshaller(Discarded.class)
+        .withListener(metrics).unmarshal(lines).toString());
+    assertEquals(1, metrics.getRangesLimited());
+    assertEquals(2, metrics.getRangesOpened());
+
+    assertEquals("[1[a, b], 2[e], 3[f]]",
+        Unmarshallers.getTextUnmarshaller(Partial.class).unmarshal(lines).toString());
+    assertEquals("[2[e], 3[f]]",
+        Unmarshallers.getTextUnmarshaller(Restarted.class).unmarshal(lines).toString());
+
+    // start line reaching the limit opens next range
+    assertEquals("[1[a, b], 4[x]]", Unmarshallers.getTextUnmarshaller(Partial.class)
+        .unmarshal(Arrays.asList("BEGIN 1", "item=a", "item=b", "BEGIN 4", "item=x", "END"))
+        .toString());
+
+    // values of start and end lines are also checked, and the range is bound once.
+    // start line whose own values exceed the limit is not bound.
+    assertEquals("[7:1/null]", Unmarshallers.getTextUnmarshaller(LongHead.class)
+        .unmarshal(Arrays.asList("x", "BEGIN 12345", "item=a", "item=b", "END", "y", "BEGIN 1",
+            "END abcdef")).toString());
+
+    try {
+      new RangeLimits(-1, 0, 0, LimitPolicy.DISCARD);
+      fail();
+    } catch (final BindConfigException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testMultipleRanges() {
+
+    final List<String> lines = Arrays.asList("BEGIN 1", "item=a", "GC 5ms", "ERROR x",
+        "GC done", "END", "BEGIN 2", "item=b", "END");
+
+    // ranges ending at the same line are bound in declaration order
+    final UnmarshalMetrics metrics = new UnmarshalMetrics();
+    assertEquals("[-/null/null/5, 1/[a]/null/null, 1/null/x/null, 2/[b]/null/null]",
+        Unmarshallers.getTextUnmarshaller(MultiRange.class).withListener(metrics)
+            .unmarshal(lines).toString());
+    assertEquals(5, metrics.getRangesOpened());
+    assertEquals(4, metrics.getRangesCompleted());
+  }
+
+  @Test
+  public void testStepBudget() throws IOException {
+
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 30; i++) {
+      sb.append('a');
+    }
+    final List<String> lines = Arrays.asList("aac", sb.append("cd").toString(), "aac");
+
+    // the budget is set per unmarshaller, and kept by withListener
+    final UnmarshalMetrics metrics = new UnmarshalMetrics();
+    final Unmarshaller<Backtracking> sut = Unmarshallers.getTextUnmarshaller(Backtracking.class)
+        .withStepBudget(100000).withListener(metrics);
+    // the line over budget does not match, and the others are not delayed
+    assertEquals("[a, a]", sut.unmarshal(lines).toString());
+    assertEquals(1, metrics.getBudgetExceeded());
+
+    // lines matched on pool threads are counted as well
+    final File file = File.createTempFile("jbond", ".log");
+    file.deleteOnExit();
+    Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+    final long before = RegexEngines.getBudgetExceededCount();
+    final ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      assertEquals("[a, a]", sut.unmarshalParallel(file.getPath(), "UTF-8", pool).toString());
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(before + 1, RegexEngines.getBudgetExceededCount());
+    assertEquals(2, metrics.getBudgetExceeded());
+
+    assertEquals("[a, a]", Unmarshallers.getCompositeUnmarshaller(Backtracking.class)
+        .withStepBudget(100000).unmarshal(lines).get(Backtracking.class).toString());
+    try {
+      sut.withStepBudget(-1);
+      fail();
+    } catch (final IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testListener() {
+
+    final UnmarshalMetrics metrics = new UnmarshalMetrics();
+    final Unmarshaller<Sample> sut = Unmarshallers.getTextUnmarshaller(Sample.class)
+        .withListener(metrics);
+    sut.unmarshal(Arrays.asList("A", "Bhi", "A", "A", "Bbye"));
+
+    assertEquals(5, metrics.getLinesRead());
+    assertEquals(2, metrics.getPatternSetMatched(Sample.class, 0));
+    assertEquals(5, metrics.getRegexTime().getCount());
+    assertEquals(2, metrics.getBindTime().getCount());
+
+    // the unmarshaller without listener reports nothing
+    Unmarshallers.getTextUnmarshaller(Sample.class).unmarshal(Arrays.asList("A", "Bhi"));
+    assertEquals(5, metrics.getLinesRead());
+
+    final Unmarshaller<Block> range = Unmarshallers.getTextUnmarshaller(Block.class)
+        .withListener(metrics);
+    range.unmarshal(Arrays.asList("BEGIN 1", "END", "BEGIN 2", "ABORT", "BEGIN 3", "n=4"));
+    assertEquals(3, metrics.getRangesOpened());
+    assertEquals(1, metrics.getRangesCompleted());
+    assertEquals(1, metrics.getRangesExcluded());
+    assertEquals(0, metrics.getBindFailures());
+  }
+
+  @Pattern(index=0, regex="(?<v>.*)")
+  public static class CatchAll {
+
+    @BindTag("v")
+    private int v;
+
+    @Override
+    public String toString() {
+      return String.valueOf(this.v);
+    }
+  }
+
+  @Pattern(index=0, regex="(?<unit>a|a)*\\1c")
+  public static class Backtracking {
+
+    @BindTag("unit")
+    private String unit;
+
+    @Override
+    public String toString() {
+      return this.unit;
+    }
+  }
+
   @PatternSet({
     @Pattern(index=0, regex="A"),
     @Pattern(index=1, regex="B(?<tag>.*)")
@@ -55,4 +779,200 @@ public class UnmarshallersTest {
       return "Sample [text=" + this.text + ", num=" + this.num + "]";
     }
   }
+
+  @PatternSet({
+    @Pattern(index=0, regex="A"),
+    @Pattern(index=1, regex="B(?<tag>.*)")
+  })
+  static class Direct {
+
+    @BindTag("tag")
+    String text;
+
+    @BindTag("#")
+    long num;
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)",
+      optional = { "item=(?<item>\\w+)", "n=(?<n>\\d+)", "tag=(?<tag>\\w+)" },
+      excluded = "ABORT",
+      end = "END")
+  public static class Block {
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("item")
+    private List<String> items;
+
+    @BindTag("n")
+    private int[] numbers;
+
+    @BindTag("tag")
+    private Set<String> tags;
+
+    @BindTag("#")
+    private int num;
+  }
+
+  @Pattern(index=0, regex="(?:t(?<t>\\w))?v=(?<v>\\w)?")
+  public static class Initialized {
+
+    @BindTag("v")
+    private List<String> values = new ArrayList<>(Arrays.asList("init"));
+
+    @BindTag("t")
+    private String text = "-";
+  }
+
+  @PatternSet({
+    @Pattern(index=0, regex="(?<host>\\w+) (?<code>\\w*) (?<time>[\\d.]+) (?<flag>\\w+)")
+  })
+  public static class Metric {
+
+    @BindTag("host")
+    private String host;
+
+    @BindTag("code")
+    private int code;
+
+    @BindTag("time")
+    private Double time;
+
+    @BindTag("flag")
+    private boolean flag;
+
+    @BindTag("#")
+    private long num;
+  }
+
+  public interface MetricView {
+
+    String getHost();
+
+    Integer code();
+
+    Double getTime();
+
+    boolean isFlag();
+
+    long getNum();
+  }
+
+  public interface BlockView {
+
+    List<String> getItems();
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)", optional = "item=(?<item>\\w+)", end = "END")
+  @RangePattern(start = "BEGIN (?<id>\\d+)", required = "ERROR (?<error>\\w+)", end = "END")
+  @RangePattern(start = "GC (?<pause>\\d+)ms", end = "GC done")
+  public static class MultiRange {
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("item")
+    private List<String> items;
+
+    @BindTag("error")
+    private String error;
+
+    @BindTag("pause")
+    private Integer pause;
+
+    @Override
+    public String toString() {
+      return (this.id != null ? this.id.toString() : "-") + "/" + this.items + "/" + this.error
+          + "/" + this.pause;
+    }
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)", optional = "item=(?<item>\\w+)", end = "END",
+      maxCaptures = 3)
+  public static class Discarded {
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("item")
+    private List<String> items;
+
+    @Override
+    public String toString() {
+      return this.id + String.valueOf(this.items);
+    }
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)", optional = "item=(?<item>\\w+)", end = "END",
+      maxLines = 3, onLimit = LimitPolicy.EMIT_PARTIAL)
+  public static class Partial {
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("item")
+    private List<String> items;
+
+    @Override
+    public String toString() {
+      return this.id + String.valueOf(this.items);
+    }
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)", optional = "item=(?<item>\\w+)",
+      end = "END(?: (?<code>\\w+))?", maxCapturedChars = 3, onLimit = LimitPolicy.EMIT_PARTIAL)
+  public static class LongHead {
+
+    @BindTag("#")
+    private long line;
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("code")
+    private String code;
+
+    @Override
+    public String toString() {
+      return this.line + ":" + this.id + "/" + this.code;
+    }
+  }
+
+  @RangePattern(start = "BEGIN (?<id>\\d+)", optional = "item=(?<item>\\w+)", end = "END",
+      maxCapturedChars = 3, onLimit = LimitPolicy.RESTART)
+  public static class Restarted {
+
+    @BindTag("id")
+    private Integer id;
+
+    @BindTag("item")
+    private List<String> items;
+
+    @Override
+    public String toString() {
+      return this.id + String.valueOf(this.items);
+    }
+  }
+
+  @PatternCollection({
+    @PatternSet({@Pattern(index=0, regex="K(?<key>\\d)"), @Pattern(index=1, regex="V(?<val>\\d)")}),
+    @PatternSet({@Pattern(index=0, regex="K(?<key>\\d)"), @Pattern(index=1, regex="K\\d")}),
+    @PatternSet({@Pattern(index=1, regex="V(?<val>\\d)")})})
+  public static class Pair {
+
+    @BindTag("key")
+    private String key;
+
+    @BindTag("val")
+    private String val;
+
+    @BindTag("#")
+    private int num;
+
+    @Override
+    public String toString() {
+      return this.num + ":" + this.key + "/" + this.val;
+    }
+  }
 }
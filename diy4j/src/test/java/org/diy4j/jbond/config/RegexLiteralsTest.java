@@ -0,0 +1,32 @@
+package org.diy4j.jbond.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class RegexLiteralsTest {
+
+  @Test
+  public void testRequired() {
+
+    assertArrayEquals(new String[] { "ERROR " }, RegexLiterals.required("ERROR (?<msg>.*)"));
+    assertArrayEquals(new String[] { "txn=" }, RegexLiterals.required("txn=(?<id>\\d+)"));
+    assertArrayEquals(new String[] { "a.b" }, RegexLiterals.required("x?a\\.b[0-9]+"));
+    assertArrayEquals(new String[] { "baz" }, RegexLiterals.required("(foo|bar)baz+"));
+    assertArrayEquals(new String[] { "BEGIN", "START" },
+        RegexLiterals.required("BEGIN|(?:START)"));
+    assertArrayEquals(new String[] { "id" }, RegexLiterals.required("(?:id)+=\\w*"));
+  }
+
+  @Test
+  public void testNotRequired() {
+
+    assertNull(RegexLiterals.required(".*"));
+    assertNull(RegexLiterals.required("(?i)error"));
+    assertNull(RegexLiterals.required("ERROR|.*"));
+    assertNull(RegexLiterals.required("(ERROR)?\\d+"));
+    assertNull(RegexLiterals.required("(a)\\1"));
+    assertNull(RegexLiterals.required("\\x41"));
+  }
+}
@@ -0,0 +1,154 @@
+package org.diy4j.jbond.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.diy4j.jbond.Unmarshallers;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BinderProcessorTest {
+
+  private static final String HEADER = "package p;\n"
+      + "import org.diy4j.jbond.annotation.*;\n"
+      + "@PatternSet({ @Pattern(index=0, regex=\"A\"),\n"
+      + "  @Pattern(index=1, regex=\"B(?<tag>.*)\") })\n";
+
+  /** output of compiler. */
+  private Path dir;
+
+  @Before
+  public void setUp() throws IOException {
+    this.dir = Files.createTempDirectory("jbond");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    try (Stream<Path> paths = Files.walk(this.dir)) {
+      // children before parent
+      for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  @Test
+  public void testGenerate() throws IOException {
+
+    assertEquals(Collections.emptyList(), compile(this.dir, "Direct", HEADER
+        + "class Direct { @BindTag(\"tag\") String text; @BindTag(\"#\") long num; }"));
+    assertTrue(Files.exists(this.dir.resolve("p/Direct_JbondBinder.java")));
+
+    // reflection is used for private field
+    assertEquals(Collections.emptyList(), compile(this.dir, "Hidden", HEADER
+        + "class Hidden { @BindTag(\"tag\") private String text; }"));
+    assertFalse(Files.exists(this.dir.resolve("p/Hidden_JbondBinder.java")));
+  }
+
+  @Test
+  public void testInvalidConfig() throws IOException {
+
+    assertEquals(Arrays.asList("tag is not used in regex{nope}"), compile(this.dir, "Unused", HEADER
+        + "class Unused { @BindTag(\"tag\") String text; @BindTag(\"nope\") String nope; }"));
+    assertEquals(Arrays.asList("Tag[tag] is used for Field[text]."),
+        compile(this.dir, "Twice", HEADER
+            + "class Twice { @BindTag(\"tag\") String text; @BindTag(\"tag\") String other; }"));
+
+    final List<String> actual = compile(this.dir, "Broken", "package p;\n"
+        + "import org.diy4j.jbond.annotation.*;\n"
+        + "@Pattern(index=0, regex=\"(?<tag>a\")\n"
+        + "class Broken { @BindTag(\"tag\") String text; }");
+    assertEquals(1, actual.size());
+    assertTrue(actual.get(0), actual.get(0).startsWith("invalid pattern."));
+  }
+
+  @Test
+  public void testStaleBinder() throws IOException, ReflectiveOperationException {
+
+    assertEquals(Collections.emptyList(), compile(this.dir, "Rec", HEADER
+        + "public class Rec { @BindTag(\"tag\") String text; }", "-d", this.dir.toString()));
+    // field is renamed, and class is compiled without processor. old binder is left.
+    assertEquals(Collections.emptyList(), compile(this.dir, "Rec", HEADER
+        + "public class Rec { @BindTag(\"tag\") String body; }", "-proc:none", "-d",
+        this.dir.toString()));
+    assertTrue(Files.exists(this.dir.resolve("p/Rec_JbondBinder.class")));
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] { this.dir.toUri().toURL() },
+        getClass().getClassLoader())) {
+      final Class<?> clazz = loader.loadClass("p.Rec");
+      final List<?> actual = Unmarshallers.getTextUnmarshaller(clazz)
+          .unmarshal(Arrays.asList("A", "Bhi"));
+      assertEquals(1, actual.size());
+      final Field body = clazz.getDeclaredField("body");
+      body.setAccessible(true);
+      assertEquals("hi", body.get(actual.get(0)));
+      Unmarshallers.evict(clazz);
+    }
+  }
+
+  /**
+   * run processor on source, and only generate sources.
+   * @return error messages
+   */
+  private static List<String> compile(Path dir, String className, String source)
+      throws IOException {
+    return compile(dir, className, source, "-proc:only");
+  }
+
+  /**
+   * run processor on source.
+   * @param options options of compiler
+   * @return error messages
+   */
+  private static List<String> compile(Path dir, String className, String source,
+      String... options) throws IOException {
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    final JavaFileObject file = new SimpleJavaFileObject(
+        URI.create("string:///p/" + className + ".java"), JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return source;
+      }
+    };
+    final DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+    final List<String> optionList = new ArrayList<>(Arrays.asList(options));
+    optionList.addAll(Arrays.asList("-s", dir.toString(), "-cp",
+        System.getProperty("java.class.path")));
+    final JavaCompiler.CompilationTask task = compiler.getTask(null, null, collector,
+        optionList, null, Collections.singletonList(file));
+    task.setProcessors(Collections.singletonList(new BinderProcessor()));
+    task.call();
+
+    final List<String> result = new ArrayList<>();
+    for (final Diagnostic<? extends JavaFileObject> d : collector.getDiagnostics()) {
+      if (d.getKind() == Diagnostic.Kind.ERROR) {
+        result.add(d.getMessage(null));
+      }
+    }
+    return result;
+  }
+}
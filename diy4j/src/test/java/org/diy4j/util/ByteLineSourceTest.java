@@ -0,0 +1,90 @@
+package org.diy4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ByteLineSourceTest {
+
+  private static final String[] PARTS = { "a", "bc", "\u3042\u3044", "\ud83d\ude00", "\r", "\n",
+    "\r\n", "xyz", "\u00e9" };
+  /** malformed UTF-8 and ASCII. */
+  private static final byte[][] BROKEN_PARTS = { { (byte) 0xff }, { (byte) 0xe3, (byte) 0x81 },
+    { (byte) 0x80 } };
+
+  @Test
+  public void testReadLine() throws IOException {
+
+    final Random random = new Random(1);
+    for (int n = 0; n < 50; n++) {
+      final ByteArrayOutputStream out = new ByteArrayOutputStream();
+      final int count = random.nextInt(100000);
+      for (int i = 0; i < count; i++) {
+        if (random.nextInt(50) == 0) {
+          out.write(BROKEN_PARTS[random.nextInt(BROKEN_PARTS.length)]);
+        } else {
+          out.write(PARTS[random.nextInt(PARTS.length)].getBytes(StandardCharsets.UTF_8));
+        }
+      }
+      if (n % 10 == 0) {
+        // line longer than initial buffer
+        final char[] longLine = new char[100000];
+        Arrays.fill(longLine, 'L');
+        out.write(new String(longLine).getBytes(StandardCharsets.UTF_8));
+      }
+      for (final Charset charset : Arrays.asList(StandardCharsets.UTF_8,
+          StandardCharsets.US_ASCII, StandardCharsets.ISO_8859_1)) {
+        assertLines(out.toByteArray(), charset, 1 + random.nextInt(4));
+      }
+    }
+  }
+
+  private void assertLines(byte[] bytes, Charset charset, int retain) throws IOException {
+
+    final List<String> expected = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(new ByteArrayInputStream(bytes), charset))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        expected.add(line);
+      }
+    }
+
+    final File file = File.createTempFile("lines", ".txt");
+    try {
+      Files.write(file.toPath(), bytes);
+
+      final List<String> actual = new ArrayList<>();
+      final List<CharSequence> views = new ArrayList<>();
+      try (LineSource sut = new ByteLineSource(file.toPath(), charset, retain)) {
+        CharSequence line;
+        while ((line = sut.readLine()) != null) {
+          actual.add(line.toString());
+          views.add(line);
+          // recent views must not be overwritten.
+          for (int i = Math.max(0, views.size() - retain); i < views.size(); i++) {
+            assertEquals(actual.get(i), views.get(i).toString());
+            assertEquals(actual.get(i), new StringBuilder(views.get(i)).toString());
+          }
+        }
+      }
+      assertEquals(expected, actual);
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,70 @@
+package org.diy4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MappedLineSourceTest {
+
+  private static final String[] PARTS = { "a", "bc", "\u3042\u3044", "\ud83d\ude00", "\r", "\n",
+    "\r\n", "xyz" };
+
+  @Test
+  public void testReadLine() throws IOException {
+
+    final Random random = new Random(1);
+    for (int n = 0; n < 50; n++) {
+      final StringBuilder sb = new StringBuilder();
+      final int count = random.nextInt(100000);
+      for (int i = 0; i < count; i++) {
+        sb.append(PARTS[random.nextInt(PARTS.length)]);
+      }
+      for (final String charsetName : new String[] { "UTF-8", "UTF-16LE" }) {
+        assertLines(sb.toString(), Charset.forName(charsetName), 1 + random.nextInt(4));
+      }
+    }
+  }
+
+  private void assertLines(String text, Charset charset, int retain) throws IOException {
+
+    final List<String> expected = new ArrayList<>();
+    try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        expected.add(line);
+      }
+    }
+
+    final File file = File.createTempFile("lines", ".txt");
+    try {
+      Files.write(file.toPath(), text.getBytes(charset));
+
+      final List<String> actual = new ArrayList<>();
+      final List<CharSequence> views = new ArrayList<>();
+      try (LineSource sut = new MappedLineSource(file.toPath(), charset, retain)) {
+        CharSequence line;
+        while ((line = sut.readLine()) != null) {
+          actual.add(line.toString());
+          views.add(line);
+          // recent views must not be overwritten.
+          for (int i = Math.max(0, views.size() - retain); i < views.size(); i++) {
+            assertEquals(actual.get(i), views.get(i).toString());
+          }
+        }
+      }
+      assertEquals(expected, actual);
+    } finally {
+      file.delete();
+    }
+  }
+}
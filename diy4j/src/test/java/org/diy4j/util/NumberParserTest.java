@@ -0,0 +1,120 @@
+package org.diy4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class NumberParserTest {
+
+  private static final String[] LONG_TEXTS = { "0", "-0", "+7", "42", "-128", "128", "-129",
+    "32767", "-32768", "2147483647", "2147483648", "-2147483648", "9223372036854775807",
+    "9223372036854775808", "-9223372036854775808", "-9223372036854775809", "", "-", "+", "1a",
+    "a1", "1.0", " 1", "\u0661\u0662", "00012", "--1" };
+
+  private static final String[] DOUBLE_TEXTS = { "0", "-0", "0.0", "-0.0", ".5", "5.", "+.5",
+    "1.25", "3.14159", "0.1", "0.3", "123456789012345", "1234567890123456789", "0.000001",
+    "1e10", "1.5E-3", "2e", "1f", "1.0d", "NaN", "-NaN", "Infinity", "-Infinity", "0x1p3",
+    "0x1.8p1", "0xg", "", ".", "-", "1.2.3", "abc", " 2.5 ", "1e+", "9007199254740993",
+    "0.30000000000000004", "1e400", "4.9e-324" };
+
+  @Test
+  public void testParseLong() {
+
+    final long[][] ranges = { { Byte.MIN_VALUE, Byte.MAX_VALUE },
+      { Short.MIN_VALUE, Short.MAX_VALUE }, { Integer.MIN_VALUE, Integer.MAX_VALUE },
+      { Long.MIN_VALUE, Long.MAX_VALUE } };
+    for (final String text : LONG_TEXTS) {
+      for (final long[] range : ranges) {
+        Long expected;
+        try {
+          expected = Long.parseLong(text);
+          if (expected < range[0] || expected > range[1]) {
+            expected = null;
+          }
+        } catch (final NumberFormatException e) {
+          expected = null;
+        }
+        final String region = "x" + text + "y";
+        final long actual = NumberParser.parseLong(region, 1, region.length() - 1, range[0],
+            range[1]);
+        final boolean invalid = NumberParser.isInvalid(actual, range[0], region, 1,
+            region.length() - 1);
+        if (expected == null) {
+          assertTrue(text, invalid);
+        } else {
+          assertTrue(text, !invalid);
+          assertEquals(text, expected.longValue(), actual);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParseDouble() {
+
+    for (final String text : DOUBLE_TEXTS) {
+      assertDouble(text);
+    }
+    final Random random = new Random(1);
+    for (int i = 0; i < 100000; i++) {
+      final StringBuilder sb = new StringBuilder();
+      if (random.nextBoolean()) {
+        sb.append('-');
+      }
+      sb.append(random.nextInt(100000));
+      sb.append('.');
+      final int fraction = random.nextInt(12);
+      for (int j = 0; j < fraction; j++) {
+        sb.append(random.nextInt(10));
+      }
+      assertDouble(sb.toString());
+      assertDouble(Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20)));
+    }
+  }
+
+  private static void assertDouble(String text) {
+    final String region = "<" + text + ">";
+    final int end = region.length() - 1;
+
+    Double expected;
+    try {
+      expected = Double.parseDouble(text);
+    } catch (final NumberFormatException e) {
+      expected = null;
+    }
+    final double actual = NumberParser.parseDouble(region, 1, end);
+    if (expected == null) {
+      assertTrue(text, NumberParser.isInvalid(actual, region, 1, end));
+    } else {
+      assertTrue(text, !NumberParser.isInvalid(actual, region, 1, end));
+      assertEquals(text, Double.doubleToLongBits(expected), Double.doubleToLongBits(actual));
+    }
+
+    Float expectedFloat;
+    try {
+      expectedFloat = Float.parseFloat(text);
+    } catch (final NumberFormatException e) {
+      expectedFloat = null;
+    }
+    final float actualFloat = NumberParser.parseFloat(region, 1, end);
+    if (expectedFloat == null) {
+      assertTrue(text, NumberParser.isInvalid(actualFloat, region, 1, end));
+    } else {
+      assertEquals(text, Float.floatToIntBits(expectedFloat), Float.floatToIntBits(actualFloat));
+    }
+  }
+
+  @Test
+  public void testParseBoolean() {
+
+    for (final String text : new String[] { "true", "TRUE", "True", "false", "", "yes", " true",
+      "truee" }) {
+      final String region = "[" + text + "]";
+      assertEquals(text, Boolean.parseBoolean(text),
+          NumberParser.parseBoolean(region, 1, region.length() - 1));
+    }
+  }
+}
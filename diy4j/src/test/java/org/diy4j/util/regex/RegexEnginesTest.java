@@ -0,0 +1,85 @@
+package org.diy4j.util.regex;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+public class RegexEnginesTest {
+
+  private static final String[] INPUTS = { "", "a", "ab12", "ERROR txn=42 failed", "x  1 2 3",
+      "k=v;k2=v2", "\u00e9\ud83d\ude00z", "a\nb", "foo bar 404" };
+
+  @Test
+  public void testSameAsJdk() {
+
+    final String[] regexes = { "(?<msg>.*)\\s+(?<code>\\d+)", "^ERROR txn=(?<id>\\d+) .*$",
+        "(?<k>[^=;]+)=(?<v>[^;]*)(?:;.*)?", "(?<a>a|ab)(?<b>b?)(?<c>\\d*)", "(?<x>.+?)\\s*",
+        "(?<e>\\Q\u00e9\\E).(?<z>[a-z])", "(?<all>[\\w\\s]{1,4}?)\\d?", "a.b",
+        "(?<w>\\S+)(?: (?<rest>.*))?" };
+
+    for (final String regex : regexes) {
+      final CompiledRegex sut = RegexEngines.LINEAR.compile(regex);
+      assertTrue(regex, sut instanceof LinearRegex);
+      final Pattern expected = Pattern.compile(regex);
+      for (final String input : INPUTS) {
+        final Matcher m = expected.matcher(input);
+        final RegexMatcher actual = sut.matcher(input);
+        assertEquals(regex + " " + input, m.matches(), actual.matches());
+        if (m.matches()) {
+          for (final String name : new String[] { "msg", "code", "id", "k", "v", "a", "b", "c",
+              "x", "e", "z", "all", "w", "rest" }) {
+            if (regex.contains("<" + name + ">")) {
+              assertEquals(regex + " " + input, m.group(name), actual.group(name));
+            }
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFallback() {
+
+    for (final String regex : new String[] { "(a)\\1", "(?=a)a", "(?i)a", "a++", "\\bword\\b",
+        "(a*)*" }) {
+      final CompiledRegex sut = RegexEngines.LINEAR.compile(regex);
+      assertTrue(regex, sut instanceof JdkRegex);
+    }
+  }
+
+  @Test
+  public void testStepBudget() {
+
+    final StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 30; i++) {
+      sb.append('a');
+    }
+    final String pathological = sb.toString();
+
+    // back reference is compiled by java.util.regex. the budget is shared by the line.
+    final CompiledRegex sut = RegexEngines.LINEAR.compile("(?<x>a|a)*\\1c");
+    final StepBudget budget = new StepBudget(100000);
+    final long before = RegexEngines.getBudgetExceededCount();
+    // backtracks in exponential time without budget
+    assertFalse(sut.matcher(pathological, budget).matches());
+    assertTrue(budget.isExceeded());
+    assertEquals(before + 1, RegexEngines.getBudgetExceededCount());
+
+    // the rest of the line is given up, and the line is counted once
+    assertFalse(sut.matcher("aac", budget).matches());
+    assertEquals(before + 1, RegexEngines.getBudgetExceededCount());
+    // linear time regex does not use budget
+    assertTrue(RegexEngines.LINEAR.compile("a*c").matcher("aac", budget).matches());
+
+    budget.reset();
+    final RegexMatcher m = sut.matcher("aac", budget);
+    assertTrue(m.matches());
+    assertEquals("a", m.group("x"));
+    assertFalse(budget.isExceeded());
+  }
+}